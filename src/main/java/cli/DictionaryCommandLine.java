@@ -1,7 +1,24 @@
 package cli;
 
+import dictionary.BatchResult;
 import dictionary.EnglishDictionary;
-
+import dictionary.LookupStats;
+import dictionary.Trace;
+import dictionary.TraceReplayer;
+import server.DictionaryServer;
+import trees.MemoryFootprint;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -35,6 +52,13 @@ public class DictionaryCommandLine {
   // Prompt
   private static final String PROMPT = "\u001B[1;93m"; // Bold Bright Yellow
 
+  // suggestions printed by the suggest command
+  private static final int SUGGEST_DISTANCE = 2;
+  private static final int SUGGEST_LIMIT = 10;
+
+  // tree types compared by --replay unless --type is given
+  private static final String[] REPLAY_TYPES = { "AVL", "Red-Black", "Adaptive", "Splay", "Treap", "WAVL", "MVCC" };
+
   public DictionaryCommandLine(EnglishDictionary dictionary) {
     this.dictionary = dictionary;
     this.scanner = new Scanner(System.in);
@@ -68,23 +92,47 @@ public class DictionaryCommandLine {
           case "search":
             searchWord(arg);
             break;
+          case "suggest":
+            suggestWords(arg);
+            break;
           case "batch-insert":
             batchInsert(arg);
             break;
           case "batch-delete":
             batchDelete(arg);
             break;
+          case "save":
+            saveDictionary(arg);
+            break;
+          case "load":
+            loadDictionary(arg);
+            break;
           case "size":
             printSize();
             break;
           case "height":
             printHight();
             break;
+          case "stats":
+            printStats();
+            break;
+          case "memory":
+            printMemory();
+            break;
+          case "freeze":
+            freezeDictionary();
+            break;
+          case "trace":
+            traceDictionary(arg);
+            break;
           case "help":
             printHelp();
             break;
           case "exit":
             running = false;
+            if (dictionary.isTracing()) {
+              traceDictionary("stop");
+            }
             System.out.println(INFO + "Exiting..." + RESET);
             break;
           default:
@@ -141,6 +189,20 @@ public class DictionaryCommandLine {
     }
   }
 
+  private void suggestWords(String word) {
+    if (word.isEmpty()) {
+      System.out.println(ERROR + "Please specify a word to get suggestions for." + RESET);
+      return;
+    }
+
+    List<String> suggestions = dictionary.suggest(word, SUGGEST_DISTANCE, SUGGEST_LIMIT);
+    if (suggestions.isEmpty()) {
+      System.out.println(ERROR + "⚠ No words within " + SUGGEST_DISTANCE + " edits of '" + VALUE + word + ERROR + "'." + RESET);
+    } else {
+      System.out.println(SUCCESS + "✓ Did you mean: " + VALUE + String.join(", ", suggestions) + RESET);
+    }
+  }
+
   private void batchInsert(String filename) {
     if (filename.isEmpty()) {
       System.out.println(ERROR + "Please specify a filename." + RESET);
@@ -148,7 +210,9 @@ public class DictionaryCommandLine {
     }
 
     System.out.println(INFO + "Batch inserting words from file: " + VALUE + filename + RESET);
-    int[] result = dictionary.batchInsert(filename);
+    BatchResult batch = dictionary.batchInsertAll(filename);
+    printPerFile(batch, "inserted");
+    int[] result = batch.toArray();
     System.out.println(SUCCESS + "✓ Successfully inserted " + VALUE + result[0] + SUCCESS + " words" + RESET +
         (result[1] > 0 ? ERROR + ", failed to insert " + VALUE + result[1] + ERROR + " words." + RESET : "."));
   }
@@ -160,11 +224,45 @@ public class DictionaryCommandLine {
     }
 
     System.out.println(INFO + "Batch deleting words from file: " + VALUE + filename + RESET);
-    int[] result = dictionary.batchDelete(filename);
+    BatchResult batch = dictionary.batchDeleteAll(filename);
+    printPerFile(batch, "deleted");
+    int[] result = batch.toArray();
     System.out.println(SUCCESS + "✓ Successfully deleted " + VALUE + result[0] + SUCCESS + " words" + RESET +
         (result[1] > 0 ? ERROR + ", failed to delete " + VALUE + result[1] + ERROR + " words." + RESET : "."));
   }
 
+  private void printPerFile(BatchResult batch, String action) {
+    if (batch.getPerFile().size() < 2) {
+      return;
+    }
+    for (Map.Entry<String, int[]> file : batch.getPerFile().entrySet()) {
+      System.out.println(INFO + "  " + file.getKey() + ": " + VALUE + file.getValue()[0] + INFO + " " + action + ", "
+          + VALUE + file.getValue()[1] + INFO + " failed" + RESET);
+    }
+  }
+
+  private void saveDictionary(String filename) throws IOException {
+    if (filename.isEmpty()) {
+      System.out.println(ERROR + "Please specify a filename." + RESET);
+      return;
+    }
+    dictionary.save(filename);
+    System.out.println(SUCCESS + "✓ Saved " + VALUE + dictionary.getSize() + SUCCESS + " words to " + VALUE
+        + filename + RESET);
+  }
+
+  private void loadDictionary(String filename) throws IOException {
+    if (filename.isEmpty()) {
+      System.out.println(ERROR + "Please specify a filename." + RESET);
+      return;
+    }
+    long startTime = System.nanoTime();
+    dictionary.load(filename);
+    long millis = (System.nanoTime() - startTime) / 1_000_000;
+    System.out.println(SUCCESS + "✓ Loaded " + VALUE + dictionary.getSize() + SUCCESS + " words in " + VALUE
+        + millis + SUCCESS + " ms" + RESET);
+  }
+
   private void printSize() {
     System.out.println(INFO + "Dictionary size: " + VALUE + dictionary.getSize() + INFO + " words" + RESET);
   }
@@ -173,37 +271,211 @@ public class DictionaryCommandLine {
     System.out.println(INFO + "Tree height : " + VALUE + dictionary.getHight() + RESET);
   }
 
+  private void printStats() {
+    LookupStats stats = dictionary.getLookupStats();
+    if (stats == null) {
+      System.out.println(INFO + "Lookup filter is disabled, start with --filter <expectedWords> <hotKeys>." + RESET);
+      return;
+    }
+    System.out.println(INFO + "Lookups: " + VALUE + stats.getLookups() + RESET);
+    System.out.println(INFO + "Filter rejections: " + VALUE + stats.getFilterRejections() + RESET);
+    System.out.println(INFO + "False positive rate: " + VALUE + String.format("%.4f", stats.getFalsePositiveRate()) + RESET);
+    System.out.println(INFO + "Hot-key cache hit rate: " + VALUE + String.format("%.4f", stats.getCacheHitRate()) + RESET);
+  }
+
+  private void printMemory() {
+    MemoryFootprint footprint;
+    try {
+      footprint = dictionary.memoryFootprint();
+    } catch (UnsupportedOperationException e) {
+      System.out.println(ERROR + e.getMessage() + RESET);
+      return;
+    }
+    System.out.println(INFO + "Estimated heap size: " + VALUE + String.format("%,d", footprint.getTotalBytes()) + INFO
+        + " bytes, " + VALUE + String.format("%.1f", footprint.getBytesPerEntry()) + INFO + " per word" + RESET);
+    System.out.println(INFO + "Nodes: " + VALUE + String.format("%,d", footprint.getNodeBytes()) + INFO
+        + ", child arrays: " + VALUE + String.format("%,d", footprint.getChildArrayBytes()) + INFO
+        + ", words: " + VALUE + String.format("%,d", footprint.getKeyBytes()) + INFO
+        + ", metadata: " + VALUE + String.format("%,d", footprint.getMetadataBytes()) + RESET);
+  }
+
+  private void freezeDictionary() {
+    try {
+      dictionary.freeze();
+    } catch (UnsupportedOperationException e) {
+      System.out.println(ERROR + e.getMessage() + RESET);
+      return;
+    }
+    System.out.println(SUCCESS + "✓ Dictionary frozen for fast searches until the next insert or delete." + RESET);
+  }
+
+  private void traceDictionary(String arg) throws IOException {
+    if (arg.isEmpty()) {
+      System.out.println(ERROR + "Please specify a filename or 'stop'." + RESET);
+      return;
+    }
+    if (arg.equalsIgnoreCase("stop")) {
+      long records = dictionary.stopTrace();
+      System.out.println(SUCCESS + "✓ Trace stopped after " + VALUE + records + SUCCESS + " operations" + RESET);
+      return;
+    }
+    dictionary.startTrace(arg);
+    System.out.println(SUCCESS + "✓ Recording operations to " + VALUE + arg + RESET);
+  }
+
   private void printHelp() {
     System.out.println(HEADER + "Available Commands:" + RESET);
     System.out.println(COMMAND + "  insert " + VALUE + "<word>" + RESET + "       - Insert a word into the dictionary");
     System.out.println(COMMAND + "  delete " + VALUE + "<word>" + RESET + "       - Delete a word from the dictionary");
     System.out.println(COMMAND + "  search " + VALUE + "<word>" + RESET + "       - Search for a word in the dictionary");
-    System.out.println(COMMAND + "  batch-insert " + VALUE + "<file>" + RESET + " - Insert words from file");
-    System.out.println(COMMAND + "  batch-delete " + VALUE + "<file>" + RESET + " - Delete words from file");
+    System.out.println(COMMAND + "  suggest " + VALUE + "<word>" + RESET + "      - Suggest words within two edits of a word");
+    System.out.println(COMMAND + "  batch-insert " + VALUE + "<file>" + RESET + " - Insert words from a file, directory or glob (.gz supported)");
+    System.out.println(COMMAND + "  batch-delete " + VALUE + "<file>" + RESET + " - Delete words from a file, directory or glob (.gz supported)");
+    System.out.println(COMMAND + "  save " + VALUE + "<file>" + RESET + "         - Save the tree shape for instant reload");
+    System.out.println(COMMAND + "  load " + VALUE + "<file>" + RESET + "         - Replace the words with a saved tree");
     System.out.println(COMMAND + "  size" + RESET + "                - Print the current dictionary size");
     System.out.println(COMMAND + "  height" + RESET + "              - Print the current height of the used tree");
+    System.out.println(COMMAND + "  stats" + RESET + "               - Print lookup filter statistics");
+    System.out.println(COMMAND + "  memory" + RESET + "              - Print the estimated heap size of the dictionary");
+    System.out.println(COMMAND + "  freeze" + RESET + "              - Optimize searches until the next insert or delete");
+    System.out.println(COMMAND + "  trace " + VALUE + "<file>|stop" + RESET + "  - Record operations for replay, or stop recording");
     System.out.println(COMMAND + "  help" + RESET + "                - Print this help message");
     System.out.println(COMMAND + "  exit" + RESET + "                - Exit the program");
     System.out.println();
   }
 
   /**
-   * Main method to run the command line interface
+   * Main method to run the command line interface.
+   * Usage: {@code [--type AVL|Red-Black|Adaptive|Splay|Treap|WAVL|MVCC] [--batch | --script <file> | --server <port>]}
+   * <ul>
+   * <li>{@code --batch} runs the commands piped into standard input, see {@link ScriptRunner}</li>
+   * <li>{@code --script} runs the commands of a file</li>
+   * <li>{@code --server} serves the dictionary over the network, see {@link DictionaryServer}</li>
+   * </ul>
+   * Without a mode the interactive menu is shown; {@code --type} skips the tree selection.
+   * {@code --lazy-delete <fraction>} enables lazy deletion with the given tombstone fraction.
+   * {@code --bulk} applies batch files with one bulk update, see {@link EnglishDictionary#enableBulkBatches()}.
+   * {@code --trace <file>} records all operations in any mode.
+   * {@code --filter <expectedWords> <hotKeys>} puts a lookup filter and hot-key cache in front of
+   * the tree, whose counters the {@code stats} command prints.
+   * <p>
+   * {@code --replay <trace> [--type <type,...>] [--threads <n>] [--speed <factor>]} replays a
+   * recorded trace against each tree type, all of them by default, see {@link TraceReplayer}.
    */
-  public static void main(String[] args) {
-    Scanner startupScanner = new Scanner(System.in);
+  public static void main(String[] args) throws IOException, InterruptedException {
     String treeType = "";
+    boolean batch = false;
+    String script = null;
+    int serverPort = -1;
+    double lazyDelete = 0;
+    boolean bulk = false;
+    String trace = null;
+    String replay = null;
+    int threads = 1;
+    double speedUp = 0;
+    int filterWords = 0;
+    int filterHotKeys = 0;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--type":
+          treeType = optionValue(args, ++i);
+          break;
+        case "--batch":
+          batch = true;
+          break;
+        case "--script":
+          script = optionValue(args, ++i);
+          break;
+        case "--server":
+          serverPort = Integer.parseInt(optionValue(args, ++i));
+          break;
+        case "--lazy-delete":
+          lazyDelete = Double.parseDouble(optionValue(args, ++i));
+          break;
+        case "--bulk":
+          bulk = true;
+          break;
+        case "--trace":
+          trace = optionValue(args, ++i);
+          break;
+        case "--filter":
+          filterWords = Integer.parseInt(optionValue(args, ++i));
+          filterHotKeys = Integer.parseInt(optionValue(args, ++i));
+          break;
+        case "--replay":
+          replay = optionValue(args, ++i);
+          break;
+        case "--threads":
+          threads = Integer.parseInt(optionValue(args, ++i));
+          break;
+        case "--speed":
+          speedUp = Double.parseDouble(optionValue(args, ++i));
+          break;
+        default:
+          System.err.println("Unknown option: " + args[i]);
+          System.exit(2);
+      }
+    }
+
+    if (replay != null) {
+      replayTrace(replay, treeType.isEmpty() ? REPLAY_TYPES : treeType.split(","), threads, speedUp);
+      return;
+    }
+
+    if (batch || script != null) {
+      EnglishDictionary dictionary = createDictionary(treeType.isEmpty() ? "AVL" : treeType, lazyDelete, bulk, trace,
+          filterWords, filterHotKeys);
+      BufferedReader in = script != null
+          ? Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8)
+          : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+      Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+      try (in) {
+        new ScriptRunner(dictionary, in, out).run();
+      }
+      // the script may have started or stopped a trace itself
+      if (dictionary.isTracing()) {
+        dictionary.stopTrace();
+      }
+      return;
+    }
+
+    if (serverPort >= 0) {
+      String type = treeType.isEmpty() ? "AVL" : treeType;
+      EnglishDictionary dictionary = createDictionary(type, lazyDelete, bulk, trace, filterWords, filterHotKeys);
+      if (trace != null) {
+        // the server only ends when the process is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+          try {
+            dictionary.stopTrace();
+          } catch (IOException e) {
+            System.err.println("Error closing trace: " + e.getMessage());
+          }
+        }));
+      }
+      DictionaryServer server = new DictionaryServer(dictionary, serverPort);
+      server.start();
+      System.out.println(INFO + "Serving " + VALUE + type + INFO + " dictionary on localhost:" + VALUE
+          + server.getPort() + RESET);
+      Thread.currentThread().join();
+      return;
+    }
 
     // Ask user for hash table type
     System.out.println(HEADER + "╔══════════════════════════════════════╗");
     System.out.println("║  SelfBalancing Tree Implementation   ║");
     System.out.println("╚══════════════════════════════════════╝" + RESET);
 
-    while (!treeType.equals("AVL") && !treeType.equals("Red-Black")) {
+    Scanner startupScanner = treeType.isEmpty() ? new Scanner(System.in) : null;
+    while (treeType.isEmpty()) {
       System.out.println(INFO + "Select tree type:" + RESET);
       System.out.println(COMMAND + "1. AVL Tree" + RESET);
       System.out.println(COMMAND + "2. Red-Black Tree" + RESET);
-      System.out.print(PROMPT + "Enter your choice (1 or 2): " + RESET);
+      System.out.println(COMMAND + "3. Adaptive Tree (switches between AVL and Red-Black)" + RESET);
+      System.out.println(COMMAND + "4. Splay Tree (for skewed lookups)" + RESET);
+      System.out.println(COMMAND + "5. Frequency Treap (for skewed lookups)" + RESET);
+      System.out.println(COMMAND + "6. Weak AVL Tree (for delete-heavy workloads)" + RESET);
+      System.out.println(COMMAND + "7. MVCC AVL Tree (lock-free reads and snapshots)" + RESET);
+      System.out.print(PROMPT + "Enter your choice (1-7): " + RESET);
 
       String choice = startupScanner.nextLine().trim();
 
@@ -211,16 +483,71 @@ public class DictionaryCommandLine {
         treeType = "AVL";
       } else if (choice.equals("2")) {
         treeType = "Red-Black";
+      } else if (choice.equals("3")) {
+        treeType = "Adaptive";
+      } else if (choice.equals("4")) {
+        treeType = "Splay";
+      } else if (choice.equals("5")) {
+        treeType = "Treap";
+      } else if (choice.equals("6")) {
+        treeType = "WAVL";
+      } else if (choice.equals("7")) {
+        treeType = "MVCC";
       } else {
-        System.out.println(ERROR + "Invalid choice. Please enter 1 or 2." + RESET);
+        System.out.println(ERROR + "Invalid choice. Please enter a number from 1 to 7." + RESET);
       }
     }
 
     System.out.println(INFO + "Initializing " + VALUE + treeType + INFO + " Tree" + RESET);
-    EnglishDictionary dictionary = new EnglishDictionary(treeType);
+    EnglishDictionary dictionary = createDictionary(treeType, lazyDelete, bulk, trace, filterWords,
+        filterHotKeys);
     DictionaryCommandLine cli = new DictionaryCommandLine(dictionary);
     cli.start();
 
-    startupScanner.close();
+    if (startupScanner != null) {
+      startupScanner.close();
+    }
+  }
+
+  /**
+   * @param filterWords words the lookup filter is sized for, 0 for no filter
+   */
+  static EnglishDictionary createDictionary(String treeType, double lazyDelete, boolean bulk, String trace,
+      int filterWords, int filterHotKeys) throws IOException {
+    EnglishDictionary dictionary = filterWords > 0
+        ? new EnglishDictionary(treeType, filterWords, filterHotKeys)
+        : new EnglishDictionary(treeType);
+    if (lazyDelete > 0) {
+      dictionary.enableLazyDelete(lazyDelete);
+    }
+    if (bulk) {
+      dictionary.enableBulkBatches();
+    }
+    if (trace != null) {
+      dictionary.startTrace(trace);
+    }
+    return dictionary;
+  }
+
+  private static void replayTrace(String file, String[] types, int threads, double speedUp)
+      throws IOException, InterruptedException {
+    Trace trace = Trace.read(file);
+    System.out.println(INFO + "Replaying " + VALUE + trace.size() + INFO + " operations on " + VALUE
+        + trace.getSnapshot().size() + INFO + " words with " + VALUE + threads + INFO + " thread(s)" + RESET);
+    TraceReplayer replayer = new TraceReplayer(trace);
+    for (String type : types) {
+      // an unpaced first replay only warms the JIT up
+      replayer.replay(EnglishDictionary.newTree(type), threads, 0);
+      TraceReplayer.Report report = replayer.replay(EnglishDictionary.newTree(type), threads, speedUp);
+      System.out.println(COMMAND + String.format("%-10s", type) + RESET + report);
+    }
+  }
+
+  private static String optionValue(String[] args, int index) {
+    if (index >= args.length) {
+      System.err.println("Missing value for option " + args[index - 1]);
+      System.exit(2);
+    }
+    return args[index];
   }
-}
\ No newline at end of file
+}
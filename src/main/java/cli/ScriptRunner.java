@@ -0,0 +1,165 @@
+package cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import dictionary.EnglishDictionary;
+import dictionary.LookupStats;
+
+/**
+ * Non-interactive counterpart of {@link DictionaryCommandLine} for scripts.
+ * Reads the same commands, one per line, and writes one plain result line per
+ * command through a single buffered writer:
+ *
+ * <pre>
+ * insert | delete | search word          => 1 | 0
+ * suggest word                           => up to 10 words within edit distance 2, closest first
+ * batch-insert | batch-delete file       => succeeded failed
+ * size | height                          => number
+ * memory                                 => estimated heap bytes
+ * save | load file                       => number of words
+ * freeze                                 => number of words
+ * trace file | stop                      => number of words | number of recorded operations
+ * </pre>
+ *
+ * Blank lines and lines starting with {@code #} are ignored, failures are
+ * reported as {@code ERR message}. Runs of consecutive searches are looked up
+ * as one group before their results are written.
+ */
+public class ScriptRunner {
+  // suggestions written by the suggest command
+  private static final int SUGGEST_DISTANCE = 2;
+  private static final int SUGGEST_LIMIT = 10;
+
+  private final EnglishDictionary dictionary;
+  private final BufferedReader in;
+  private final Writer out;
+  private final List<String> searches = new ArrayList<>();
+
+  public ScriptRunner(EnglishDictionary dictionary, BufferedReader in, Writer out) {
+    this.dictionary = dictionary;
+    this.in = in;
+    this.out = out;
+  }
+
+  /**
+   * Executes every command until the end of the input or an {@code exit} command.
+   */
+  public void run() throws IOException {
+    String line;
+    while ((line = in.readLine()) != null) {
+      int start = 0;
+      int end = line.length();
+      while (start < end && line.charAt(start) <= ' ')
+        start++;
+      while (end > start && line.charAt(end - 1) <= ' ')
+        end--;
+      if (start == end || line.charAt(start) == '#')
+        continue;
+
+      int space = start;
+      while (space < end && line.charAt(space) > ' ')
+        space++;
+      int argStart = space;
+      while (argStart < end && line.charAt(argStart) <= ' ')
+        argStart++;
+
+      String arg = line.substring(argStart, end);
+      if (is(line, start, space, "search") && !arg.isEmpty()) {
+        searches.add(arg);
+        continue;
+      }
+      flushSearches();
+      if (is(line, start, space, "exit"))
+        break;
+      execute(line, start, space, arg);
+    }
+    flushSearches();
+    out.flush();
+  }
+
+  private static boolean is(String line, int start, int end, String command) {
+    return end - start == command.length() && line.regionMatches(true, start, command, 0, command.length());
+  }
+
+  private void execute(String line, int start, int end, String arg) throws IOException {
+    try {
+      if (is(line, start, end, "insert")) {
+        writeFlag(dictionary.insert(requireArg(arg)));
+      } else if (is(line, start, end, "delete")) {
+        writeFlag(dictionary.delete(requireArg(arg)));
+      } else if (is(line, start, end, "search")) {
+        writeFlag(dictionary.search(requireArg(arg)));
+      } else if (is(line, start, end, "suggest")) {
+        writeLine(String.join(" ", dictionary.suggest(requireArg(arg), SUGGEST_DISTANCE, SUGGEST_LIMIT)));
+      } else if (is(line, start, end, "batch-insert")) {
+        writeCounts(dictionary.batchInsertAll(requireArg(arg)).toArray());
+      } else if (is(line, start, end, "batch-delete")) {
+        writeCounts(dictionary.batchDeleteAll(requireArg(arg)).toArray());
+      } else if (is(line, start, end, "save")) {
+        dictionary.save(requireArg(arg));
+        writeLine(Integer.toString(dictionary.getSize()));
+      } else if (is(line, start, end, "load")) {
+        dictionary.load(requireArg(arg));
+        writeLine(Integer.toString(dictionary.getSize()));
+      } else if (is(line, start, end, "size")) {
+        writeLine(Integer.toString(dictionary.getSize()));
+      } else if (is(line, start, end, "height")) {
+        writeLine(Integer.toString(dictionary.getHight()));
+      } else if (is(line, start, end, "stats")) {
+        LookupStats stats = dictionary.getLookupStats();
+        writeLine(stats == null ? "disabled" : stats.toString());
+      } else if (is(line, start, end, "freeze")) {
+        dictionary.freeze();
+        writeLine(Integer.toString(dictionary.getSize()));
+      } else if (is(line, start, end, "trace")) {
+        if (requireArg(arg).equalsIgnoreCase("stop")) {
+          writeLine(Long.toString(dictionary.stopTrace()));
+        } else {
+          dictionary.startTrace(arg);
+          writeLine(Integer.toString(dictionary.getSize()));
+        }
+      } else if (is(line, start, end, "memory")) {
+        writeLine(Long.toString(dictionary.memoryFootprint().getTotalBytes()));
+      } else {
+        writeLine("ERR Unknown command: " + line.substring(start, end));
+      }
+    } catch (IOException | RuntimeException e) {
+      writeLine("ERR " + e.getMessage());
+    }
+  }
+
+  private void flushSearches() throws IOException {
+    if (searches.isEmpty())
+      return;
+    boolean[] found = new boolean[searches.size()];
+    for (int i = 0; i < found.length; i++)
+      found[i] = dictionary.search(searches.get(i));
+    for (boolean value : found)
+      writeFlag(value);
+    searches.clear();
+  }
+
+  private static String requireArg(String arg) {
+    if (arg.isEmpty())
+      throw new IllegalArgumentException("Missing argument");
+    return arg;
+  }
+
+  private void writeFlag(boolean value) throws IOException {
+    out.write(value ? '1' : '0');
+    out.write('\n');
+  }
+
+  private void writeCounts(int[] result) throws IOException {
+    writeLine(result[0] + " " + result[1]);
+  }
+
+  private void writeLine(String text) throws IOException {
+    out.write(text);
+    out.write('\n');
+  }
+}
@@ -0,0 +1,372 @@
+package dictionary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Non-blocking facade over an {@link EnglishDictionary}.
+ * <p>
+ * Searches run on virtual threads and share a read lock, unless
+ * {@link EnglishDictionary#isSearchReadOnly()} says they modify the dictionary. MVCC
+ * dictionaries are searched without any lock, see
+ * {@link EnglishDictionary#isSearchLockFree()}. Mutations are queued
+ * to a single writer thread, which drains the queue in batches and applies each
+ * batch under one acquisition of the write lock. Batch jobs read their file on a
+ * virtual thread and feed it to the writer in chunks. A drain holds at most one
+ * chunk and the lock is fair, so searches and other writes interleave with a long
+ * running batch instead of waiting for it. The reader waits while a few chunks are
+ * queued, so a large file is never buffered whole.
+ */
+public class AsyncDictionary implements AutoCloseable {
+    private static final int MAX_DRAIN = 1024;
+    private static final int BATCH_CHUNK = 4096;
+    // chunks a batch reader may queue ahead of the writer
+    private static final int MAX_QUEUED_CHUNKS = 4;
+
+    private abstract static class Mutation {
+        /**
+         * Runs on the writer thread under the write lock.
+         *
+         * @param lastOps word => kind of the last single-word mutation in this drain
+         */
+        abstract void apply(EnglishDictionary dictionary, Map<String, Boolean> lastOps);
+    }
+
+    private static class WordMutation extends Mutation {
+        final String word;
+        final boolean insert;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        WordMutation(String word, boolean insert) {
+            this.word = word;
+            this.insert = insert;
+        }
+
+        @Override
+        void apply(EnglishDictionary dictionary, Map<String, Boolean> lastOps) {
+            // repeating the previous mutation of the same word cannot succeed => skip the tree
+            Boolean last = lastOps.put(word, insert);
+            if (last != null && last == insert) {
+                future.complete(false);
+                return;
+            }
+            future.complete(insert ? dictionary.insert(word) : dictionary.delete(word));
+        }
+    }
+
+    private static class BatchJob {
+        final boolean insert;
+        final BatchProgressListener listener;
+        final CompletableFuture<int[]> future = new CompletableFuture<>();
+        final int[] result = new int[2];
+
+        BatchJob(boolean insert, BatchProgressListener listener) {
+            this.insert = insert;
+            this.listener = listener;
+        }
+    }
+
+    private static class BatchChunk extends Mutation {
+        final BatchJob job;
+        final List<String> words;
+
+        BatchChunk(BatchJob job, List<String> words) {
+            this.job = job;
+            this.words = words;
+        }
+
+        @Override
+        void apply(EnglishDictionary dictionary, Map<String, Boolean> lastOps) {
+            // the chunk may change words touched earlier in this drain
+            lastOps.clear();
+            int[] counts = dictionary.applyBatch(words, job.insert);
+            job.result[0] += counts[0];
+            job.result[1] += counts[1];
+            if (job.listener != null)
+                job.listener.onProgress(job.result[0] + job.result[1], job.result[0], job.result[1]);
+        }
+    }
+
+    private static class BatchEnd extends Mutation {
+        final BatchJob job;
+
+        BatchEnd(BatchJob job) {
+            this.job = job;
+        }
+
+        @Override
+        void apply(EnglishDictionary dictionary, Map<String, Boolean> lastOps) {
+            job.future.complete(job.result.clone());
+        }
+    }
+
+    private static final Mutation SHUTDOWN = new Mutation() {
+        @Override
+        void apply(EnglishDictionary dictionary, Map<String, Boolean> lastOps) {
+        }
+    };
+
+    private final EnglishDictionary dictionary;
+    // fair, so searches waiting during one chunk go before the next
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final BlockingQueue<Mutation> mutations = new LinkedBlockingQueue<>();
+    private final Semaphore chunkPermits = new Semaphore(MAX_QUEUED_CHUNKS);
+    // submitters share it, close takes it alone, so nothing is queued after SHUTDOWN
+    private final ReentrantReadWriteLock submitLock = new ReentrantReadWriteLock();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public AsyncDictionary(EnglishDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.writer = Thread.ofVirtual().name("dictionary-writer").start(this::writeLoop);
+    }
+
+    public CompletableFuture<Boolean> insertAsync(String word) {
+        return submit(new WordMutation(word, true)).future;
+    }
+
+    public CompletableFuture<Boolean> deleteAsync(String word) {
+        return submit(new WordMutation(word, false)).future;
+    }
+
+    public CompletableFuture<Boolean> searchAsync(String word) {
+        ensureOpen();
+        return CompletableFuture.supplyAsync(() -> search(word), executor);
+    }
+
+    /**
+     * Searches on the calling thread, concurrently with other readers.
+     */
+    public boolean search(String word) {
+        if (dictionary.isSearchLockFree())
+            return dictionary.search(word);
+        // the lookup filter and self-adjusting trees change state on every search
+        Lock readLock = dictionary.isSearchReadOnly() ? lock.readLock() : lock.writeLock();
+        readLock.lock();
+        try {
+            return dictionary.search(word);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Suggests words on the calling thread, see {@link EnglishDictionary#suggest}.
+     */
+    public List<String> suggest(String word, int maxDistance, int limit) {
+        if (dictionary.isSearchLockFree())
+            return dictionary.suggest(word, maxDistance, limit);
+        lock.readLock().lock();
+        try {
+            return dictionary.suggest(word, maxDistance, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getSize() {
+        if (dictionary.isSearchLockFree())
+            return dictionary.snapshot().getSize();
+        lock.readLock().lock();
+        try {
+            return dictionary.getSize();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getHeight() {
+        if (dictionary.isSearchLockFree())
+            return dictionary.snapshot().getHeight();
+        lock.readLock().lock();
+        try {
+            return dictionary.getHight();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the lookup filter counters, or null if the filter is disabled
+     */
+    public LookupStats getLookupStats() {
+        lock.readLock().lock();
+        try {
+            return dictionary.getLookupStats();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the change feed of the dictionary, or null if disabled
+     */
+    public ChangeFeed getChangeFeed() {
+        return dictionary.getChangeFeed();
+    }
+
+    /**
+     * Takes a snapshot for {@link DictionaryReplica} under the read lock, so it
+     * matches its sequence number.
+     */
+    public ChangeFrame changeSnapshot() {
+        lock.readLock().lock();
+        try {
+            return dictionary.changeSnapshot();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public CompletableFuture<int[]> batchInsertAsync(String filePath) {
+        return batchInsertAsync(filePath, null);
+    }
+
+    /**
+     * @param listener called on the writer thread after every applied chunk, may be null
+     * @return future of the int[2] array described in {@link IDictionary#batchInsert(String)}
+     */
+    public CompletableFuture<int[]> batchInsertAsync(String filePath, BatchProgressListener listener) {
+        return batch(filePath, true, listener);
+    }
+
+    public CompletableFuture<int[]> batchDeleteAsync(String filePath) {
+        return batchDeleteAsync(filePath, null);
+    }
+
+    /**
+     * @param listener called on the writer thread after every applied chunk, may be null
+     * @return future of the int[2] array described in {@link IDictionary#batchDelete(String)}
+     */
+    public CompletableFuture<int[]> batchDeleteAsync(String filePath, BatchProgressListener listener) {
+        return batch(filePath, false, listener);
+    }
+
+    private CompletableFuture<int[]> batch(String filePath, boolean insert, BatchProgressListener listener) {
+        ensureOpen();
+        BatchJob job = new BatchJob(insert, listener);
+        executor.execute(() -> {
+            // one-element holder the word callback can replace; generic arrays cannot be created directly
+            @SuppressWarnings("unchecked")
+            List<String>[] chunk = (List<String>[]) new List<?>[] { new ArrayList<String>(BATCH_CHUNK) };
+            try {
+                WordFileReader.forEachWord(filePath, word -> {
+                    chunk[0].add(word);
+                    if (chunk[0].size() == BATCH_CHUNK) {
+                        submitChunk(new BatchChunk(job, chunk[0]));
+                        chunk[0] = new ArrayList<>(BATCH_CHUNK);
+                    }
+                });
+                if (!chunk[0].isEmpty())
+                    submitChunk(new BatchChunk(job, chunk[0]));
+                submit(new BatchEnd(job));
+            } catch (IOException | RuntimeException e) {
+                job.future.completeExceptionally(e);
+            }
+        });
+        return job.future;
+    }
+
+    private <M extends Mutation> M submit(M mutation) {
+        submitLock.readLock().lock();
+        try {
+            ensureOpen();
+            mutations.add(mutation);
+        } finally {
+            submitLock.readLock().unlock();
+        }
+        return mutation;
+    }
+
+    /**
+     * Waits until the writer has room for another chunk; the writer returns the
+     * permit once the chunk is applied.
+     */
+    private void submitChunk(BatchChunk chunk) {
+        chunkPermits.acquireUninterruptibly();
+        try {
+            submit(chunk);
+        } catch (RuntimeException e) {
+            chunkPermits.release();
+            throw e;
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed)
+            throw new IllegalStateException("Dictionary is closed");
+    }
+
+    private void writeLoop() {
+        List<Mutation> drained = new ArrayList<>(MAX_DRAIN);
+        Map<String, Boolean> lastOps = new HashMap<>();
+        while (true) {
+            try {
+                drained.add(mutations.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            // at most one chunk per drain, so the write lock is released between chunks
+            Mutation next;
+            while (drained.size() < MAX_DRAIN && !(drained.get(drained.size() - 1) instanceof BatchChunk)
+                    && (next = mutations.poll()) != null)
+                drained.add(next);
+
+            lock.writeLock().lock();
+            try {
+                for (Mutation mutation : drained) {
+                    if (mutation == SHUTDOWN)
+                        return;
+                    try {
+                        mutation.apply(dictionary, lastOps);
+                    } catch (RuntimeException e) {
+                        if (mutation instanceof WordMutation word)
+                            word.future.completeExceptionally(e);
+                        else if (mutation instanceof BatchChunk chunk)
+                            chunk.job.future.completeExceptionally(e);
+                    }
+                    if (mutation instanceof BatchChunk)
+                        chunkPermits.release();
+                }
+            } finally {
+                lock.writeLock().unlock();
+                drained.clear();
+                lastOps.clear();
+            }
+        }
+    }
+
+    /**
+     * Applies every mutation queued so far, then stops the writer.
+     */
+    @Override
+    public void close() {
+        submitLock.writeLock().lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            mutations.add(SHUTDOWN);
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdown();
+    }
+}
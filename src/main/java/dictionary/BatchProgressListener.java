@@ -0,0 +1,15 @@
+package dictionary;
+
+/**
+ * Receives progress updates of an asynchronous batch job.
+ */
+@FunctionalInterface
+public interface BatchProgressListener {
+
+    /**
+     * @param processed words applied so far
+     * @param succeeded words inserted (or deleted) so far
+     * @param failed    duplicate (or not found) words so far
+     */
+    void onProgress(int processed, int succeeded, int failed);
+}
@@ -0,0 +1,70 @@
+package dictionary;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a batch operation over one or more word files.
+ * For inserts the two counts are inserted/duplicate words, for deletes
+ * deleted/not found words, as in the {@code int[2]} of {@link IDictionary}.
+ */
+public class BatchResult {
+    private final Map<String, int[]> perFile = new LinkedHashMap<>();
+    private int succeeded;
+    private int failed;
+
+    void addFile(String file) {
+        perFile.put(file, new int[2]);
+    }
+
+    void record(int[] fileCounts, boolean success) {
+        if (success) {
+            fileCounts[0]++;
+            succeeded++;
+        } else {
+            fileCounts[1]++;
+            failed++;
+        }
+    }
+
+    void record(String file, int fileSucceeded, int fileFailed) {
+        int[] counts = perFile.get(file);
+        counts[0] += fileSucceeded;
+        counts[1] += fileFailed;
+        succeeded += fileSucceeded;
+        failed += fileFailed;
+    }
+
+    int[] countsOf(String file) {
+        return perFile.get(file);
+    }
+
+    /**
+     * @return words inserted (or deleted) over all files
+     */
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * @return duplicate (or not found) words over all files
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return file path => int[2] with the same layout as {@link #toArray()}, in input order
+     */
+    public Map<String, int[]> getPerFile() {
+        return Collections.unmodifiableMap(perFile);
+    }
+
+    /**
+     * @return int[2] array with the totals, as returned by {@link IDictionary#batchInsert(String)}
+     */
+    public int[] toArray() {
+        return new int[] { succeeded, failed };
+    }
+}
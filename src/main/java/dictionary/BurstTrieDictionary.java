@@ -0,0 +1,432 @@
+package dictionary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import trees.AVLTree;
+import trees.ISelfBalancingBST;
+import trees.MemoryFootprint;
+import trees.MemoryLayout;
+import trees.RedBlackTree;
+
+/**
+ * Burst trie dictionary (Heinz, Zobel and Williams). The top of the structure is a
+ * trie that consumes one character per level, so shared prefixes are compared
+ * once; below it, words are kept as suffixes in small {@link AVLTree} or
+ * {@link RedBlackTree} containers. A container that grows beyond the burst
+ * threshold is replaced by a trie node whose children are containers for the
+ * suffixes grouped by their first character.
+ * <p>
+ * Trie nodes hold up to {@value #SPARSE_LIMIT} children in sorted arrays and switch
+ * to a table indexed by character for the Latin-1 range beyond that. Emptied trie
+ * nodes are not collapsed.
+ */
+public class BurstTrieDictionary implements IDictionary {
+    private static final int DEFAULT_BURST_THRESHOLD = 128;
+    private static final int SPARSE_LIMIT = 16;
+    private static final int DENSE_RANGE = 256;
+
+    private static final class TrieNode {
+        // a word ends exactly here
+        boolean terminal;
+        // sorted labels with their TrieNode or container; only labels >= DENSE_RANGE once dense
+        char[] labels = new char[4];
+        Object[] children = new Object[4];
+        int sparseCount;
+        Object[] dense;
+
+        Object get(char c) {
+            if (dense != null && c < DENSE_RANGE)
+                return dense[c];
+            for (int i = 0; i < sparseCount; i++) {
+                if (labels[i] == c)
+                    return children[i];
+                if (labels[i] > c)
+                    break;
+            }
+            return null;
+        }
+
+        void put(char c, Object child) {
+            if (dense != null && c < DENSE_RANGE) {
+                dense[c] = child;
+                return;
+            }
+            int i = 0;
+            while (i < sparseCount && labels[i] < c)
+                i++;
+            if (i < sparseCount && labels[i] == c) {
+                children[i] = child;
+                return;
+            }
+            if (sparseCount == labels.length) {
+                labels = Arrays.copyOf(labels, sparseCount * 2);
+                children = Arrays.copyOf(children, sparseCount * 2);
+            }
+            System.arraycopy(labels, i, labels, i + 1, sparseCount - i);
+            System.arraycopy(children, i, children, i + 1, sparseCount - i);
+            labels[i] = c;
+            children[i] = child;
+            sparseCount++;
+            if (dense == null && sparseCount > SPARSE_LIMIT)
+                densify();
+        }
+
+        void remove(char c) {
+            if (dense != null && c < DENSE_RANGE) {
+                dense[c] = null;
+                return;
+            }
+            for (int i = 0; i < sparseCount; i++) {
+                if (labels[i] == c) {
+                    System.arraycopy(labels, i + 1, labels, i, sparseCount - i - 1);
+                    System.arraycopy(children, i + 1, children, i, sparseCount - i - 1);
+                    children[--sparseCount] = null;
+                    return;
+                }
+            }
+        }
+
+        private void densify() {
+            dense = new Object[DENSE_RANGE];
+            int kept = 0;
+            for (int i = 0; i < sparseCount; i++) {
+                if (labels[i] < DENSE_RANGE) {
+                    dense[labels[i]] = children[i];
+                } else {
+                    labels[kept] = labels[i];
+                    children[kept++] = children[i];
+                }
+            }
+            Arrays.fill(children, kept, sparseCount, null);
+            sparseCount = kept;
+        }
+
+        /**
+         * Visits the children in label order.
+         */
+        void forEachChild(ChildVisitor visitor) {
+            if (dense != null) {
+                for (int c = 0; c < DENSE_RANGE; c++) {
+                    if (dense[c] != null)
+                        visitor.visit((char) c, dense[c]);
+                }
+            }
+            for (int i = 0; i < sparseCount; i++)
+                visitor.visit(labels[i], children[i]);
+        }
+    }
+
+    private interface ChildVisitor {
+        void visit(char label, Object child);
+    }
+
+    private final Function<List<String>, ISelfBalancingBST<String>> containerBuilder;
+    private final int burstThreshold;
+    private final TrieNode root = new TrieNode();
+    private int size;
+    private int bursts;
+
+    public BurstTrieDictionary() {
+        this("AVL", DEFAULT_BURST_THRESHOLD);
+    }
+
+    /**
+     * @param containerType  "AVL" or "Red-Black", the tree holding suffixes below the trie
+     * @param burstThreshold number of suffixes a container holds before it bursts
+     */
+    public BurstTrieDictionary(String containerType, int burstThreshold) {
+        if (containerType.equalsIgnoreCase("AVL"))
+            containerBuilder = AVLTree::fromSorted;
+        else if (containerType.equalsIgnoreCase("Red-Black"))
+            containerBuilder = RedBlackTree::fromSorted;
+        else
+            throw new IllegalArgumentException("Unknown container type: " + containerType);
+        if (burstThreshold <= 0)
+            throw new IllegalArgumentException("Burst threshold must be positive: " + burstThreshold);
+        this.burstThreshold = burstThreshold;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ISelfBalancingBST<String> container(Object child) {
+        return (ISelfBalancingBST<String>) child;
+    }
+
+    @Override
+    public boolean insert(String word) {
+        TrieNode node = root;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            Object child = node.get(c);
+            if (child instanceof TrieNode trieNode) {
+                node = trieNode;
+                continue;
+            }
+            ISelfBalancingBST<String> container = child == null ? containerBuilder.apply(List.of()) : container(child);
+            if (!container.insert(word.substring(i + 1)))
+                return false;
+            size++;
+            if (child == null)
+                node.put(c, container);
+            else if (container.getSize() > burstThreshold)
+                node.put(c, burst(container));
+            return true;
+        }
+        if (node.terminal)
+            return false;
+        node.terminal = true;
+        size++;
+        return true;
+    }
+
+    /**
+     * Replaces a container by a trie node, grouping the suffixes by their first
+     * character. The groups are contiguous in sorted order, so each new container is
+     * built in linear time; a group that is still too large bursts again.
+     */
+    private TrieNode burst(ISelfBalancingBST<String> container) {
+        bursts++;
+        TrieNode node = new TrieNode();
+        List<String> group = new ArrayList<>();
+        char[] label = new char[1];
+        container.inOrder(suffix -> {
+            if (suffix.isEmpty()) {
+                node.terminal = true;
+                return;
+            }
+            if (!group.isEmpty() && suffix.charAt(0) != label[0]) {
+                addGroup(node, label[0], group);
+                group.clear();
+            }
+            label[0] = suffix.charAt(0);
+            group.add(suffix.substring(1));
+        });
+        if (!group.isEmpty())
+            addGroup(node, label[0], group);
+        return node;
+    }
+
+    private void addGroup(TrieNode node, char label, List<String> suffixes) {
+        ISelfBalancingBST<String> child = containerBuilder.apply(suffixes);
+        node.put(label, child.getSize() > burstThreshold ? burst(child) : child);
+    }
+
+    @Override
+    public boolean delete(String word) {
+        TrieNode node = root;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            Object child = node.get(c);
+            if (child == null)
+                return false;
+            if (child instanceof TrieNode trieNode) {
+                node = trieNode;
+                continue;
+            }
+            ISelfBalancingBST<String> container = container(child);
+            if (!container.delete(word.substring(i + 1)))
+                return false;
+            size--;
+            if (container.getSize() == 0)
+                node.remove(c);
+            return true;
+        }
+        if (!node.terminal)
+            return false;
+        node.terminal = false;
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean search(String word) {
+        TrieNode node = root;
+        for (int i = 0; i < word.length(); i++) {
+            Object child = node.get(word.charAt(i));
+            if (child == null)
+                return false;
+            if (!(child instanceof TrieNode trieNode))
+                return container(child).search(word.substring(i + 1));
+            node = trieNode;
+        }
+        return node.terminal;
+    }
+
+    /**
+     * Visits the words starting with the given prefix in sorted order. The trie part
+     * of the prefix is walked once; only a container reached before the end of the
+     * prefix is filtered.
+     */
+    public void forEachWithPrefix(String prefix, Consumer<? super String> action) {
+        walkPrefix(prefix, word -> {
+            action.accept(word);
+            return true;
+        });
+    }
+
+    /**
+     * @return up to limit words starting with the prefix, in sorted order
+     */
+    public List<String> wordsWithPrefix(String prefix, int limit) {
+        List<String> words = new ArrayList<>();
+        if (limit <= 0)
+            return words;
+        walkPrefix(prefix, word -> {
+            words.add(word);
+            return words.size() < limit;
+        });
+        return words;
+    }
+
+    /**
+     * @param action returns false to stop the walk
+     */
+    private void walkPrefix(String prefix, Predicate<? super String> action) {
+        TrieNode node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            Object child = node.get(prefix.charAt(i));
+            if (child == null)
+                return;
+            if (!(child instanceof TrieNode trieNode)) {
+                String head = prefix.substring(0, i + 1);
+                String rest = prefix.substring(i + 1);
+                forEach(container(child), suffix -> !suffix.startsWith(rest) || action.test(head + suffix));
+                return;
+            }
+            node = trieNode;
+        }
+        forEach(node, new StringBuilder(prefix), action);
+    }
+
+    /**
+     * @return false if the action stopped the walk
+     */
+    private boolean forEach(TrieNode node, StringBuilder prefix, Predicate<? super String> action) {
+        if (node.terminal && !action.test(prefix.toString()))
+            return false;
+        boolean[] going = { true };
+        node.forEachChild((label, child) -> {
+            if (!going[0])
+                return;
+            prefix.append(label);
+            if (child instanceof TrieNode trieNode) {
+                going[0] = forEach(trieNode, prefix, action);
+            } else {
+                String head = prefix.toString();
+                going[0] = forEach(container(child), suffix -> action.test(head + suffix));
+            }
+            prefix.setLength(prefix.length() - 1);
+        });
+        return going[0];
+    }
+
+    /**
+     * Visits a container's suffixes until the action returns false; AVL and Red-Black
+     * containers skip their remaining subtrees once stopped.
+     *
+     * @return false if the action stopped the walk
+     */
+    private static boolean forEach(ISelfBalancingBST<String> container, Predicate<String> action) {
+        boolean[] going = { true };
+        container.inOrder((low, high) -> !going[0], suffix -> {
+            if (going[0])
+                going[0] = action.test(suffix);
+        });
+        return going[0];
+    }
+
+    @Override
+    public int[] batchInsert(String filePath) {
+        return batch(filePath, this::insert);
+    }
+
+    @Override
+    public int[] batchDelete(String filePath) {
+        return batch(filePath, this::delete);
+    }
+
+    private int[] batch(String filePath, Predicate<String> operation) {
+        int[] result = new int[2];
+        try {
+            WordFileReader.forEachWord(filePath, word -> {
+                if (operation.test(word))
+                    result[0]++;
+                else
+                    result[1]++;
+            });
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return trie levels plus the height of the deepest container below them
+     */
+    @Override
+    public int getHight() {
+        // like an empty tree; emptied trie nodes may still hang below the root
+        return size == 0 ? 0 : getHeight(root);
+    }
+
+    private int getHeight(TrieNode node) {
+        int[] height = new int[1];
+        node.forEachChild((label, child) -> height[0] = Math.max(height[0],
+                child instanceof TrieNode trieNode ? getHeight(trieNode) : container(child).getHeight()));
+        return 1 + height[0];
+    }
+
+    /**
+     * @return number of containers burst into trie nodes so far
+     */
+    public int getBurstCount() {
+        return bursts;
+    }
+
+    /**
+     * Estimates the retained heap size with the running JVM's layout. Trie nodes and
+     * their child arrays are reported as nodes and child arrays, containers are
+     * added with their own footprint.
+     */
+    public MemoryFootprint memoryFootprint() {
+        MemoryLayout layout = MemoryLayout.current();
+        // [0] trie nodes, [1] child arrays, [2] container nodes, [3] container child arrays, [4] keys, [5] metadata
+        long[] bytes = new long[6];
+        measure(root, layout, bytes);
+        // builder, root; int burstThreshold, size, bursts
+        bytes[5] += layout.objectSize(2, 12);
+        return new MemoryFootprint(size, bytes[0] + bytes[2], bytes[1] + bytes[3], bytes[4], bytes[5]);
+    }
+
+    private void measure(TrieNode node, MemoryLayout layout, long[] bytes) {
+        // labels, children, dense; boolean terminal, int sparseCount
+        bytes[0] += layout.objectSize(3, 5);
+        bytes[1] += layout.arraySize(node.labels.length, 2)
+                + layout.arraySize(node.children.length, layout.getReferenceSize());
+        if (node.dense != null)
+            bytes[1] += layout.arraySize(DENSE_RANGE, layout.getReferenceSize());
+        node.forEachChild((label, child) -> {
+            if (child instanceof TrieNode trieNode) {
+                measure(trieNode, layout, bytes);
+                return;
+            }
+            MemoryFootprint footprint = child instanceof AVLTree<?> avl ? avl.memoryFootprint(layout)
+                    : ((RedBlackTree<?>) child).memoryFootprint(layout);
+            bytes[2] += footprint.getNodeBytes();
+            bytes[3] += footprint.getChildArrayBytes();
+            bytes[4] += footprint.getKeyBytes();
+            bytes[5] += footprint.getMetadataBytes();
+        });
+    }
+}
@@ -0,0 +1,196 @@
+package dictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequence-numbered log of the inserts and deletes of an {@link EnglishDictionary},
+ * see {@link EnglishDictionary#enableChangeFeed}. The last {@code capacity} changes
+ * are retained in a ring buffer; subscribers pull them in {@link ChangeFrame}s at
+ * their own pace.
+ * <p>
+ * A subscriber that falls more than {@code capacity} changes behind either holds
+ * up the writer until it catches up, if the feed blocks writers, or loses its place
+ * and must resync from a snapshot, see {@link DictionaryReplica}. Thread-safe; the
+ * feed has a single writer, the dictionary.
+ */
+public class ChangeFeed {
+    private final int capacity;
+    private final boolean blockWriters;
+    private final byte[] operations;
+    private final String[] words;
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    // sequence number of the last change, 0 before the first
+    private long sequence;
+
+    /**
+     * @param capacity     number of changes retained for subscribers
+     * @param blockWriters true to make the writer wait for the slowest subscriber
+     *                     instead of dropping it once it is capacity changes behind
+     */
+    public ChangeFeed(int capacity, boolean blockWriters) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.blockWriters = blockWriters;
+        this.operations = new byte[capacity];
+        this.words = new String[capacity];
+    }
+
+    /**
+     * Waits until the next change can be published without overrunning a subscriber.
+     * Called before the dictionary applies a change, so an interrupted wait leaves
+     * dictionary and feed unchanged.
+     *
+     * @throws IllegalStateException if interrupted while waiting
+     */
+    synchronized void awaitRoom() {
+        if (!blockWriters)
+            return;
+        try {
+            while (!subscriptions.isEmpty() && sequence - slowestPosition() >= capacity)
+                wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for change feed subscribers");
+        }
+    }
+
+    private long slowestPosition() {
+        long slowest = sequence;
+        for (Subscription subscription : subscriptions)
+            slowest = Math.min(slowest, subscription.position);
+        return slowest;
+    }
+
+    /**
+     * @param operation {@link ChangeFrame#INSERT} or {@link ChangeFrame#DELETE}
+     */
+    synchronized void publish(int operation, String word) {
+        sequence++;
+        int slot = (int) (sequence % capacity);
+        operations[slot] = (byte) operation;
+        words[slot] = word;
+        notifyAll();
+    }
+
+    /**
+     * @return sequence number of the last change, 0 before the first
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * @param afterSequence the last change the subscriber has seen, e.g. the sequence
+     *                      of a snapshot; must still be retained
+     * @throws IllegalArgumentException if changes after it are no longer retained
+     */
+    public synchronized Subscription subscribe(long afterSequence) {
+        if (afterSequence < 0 || afterSequence > sequence || afterSequence < sequence - capacity)
+            throw new IllegalArgumentException("Changes after " + afterSequence + " are not retained, the feed is at "
+                    + sequence + " and keeps " + capacity);
+        Subscription subscription = new Subscription(afterSequence);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * A subscriber's position in the feed. Not thread-safe.
+     */
+    public final class Subscription implements AutoCloseable {
+        // sequence number of the last change handed out
+        private long position;
+        private boolean closed;
+
+        private Subscription(long position) {
+            this.position = position;
+        }
+
+        /**
+         * @return the next changes, at most maxChanges, or null if there are none yet
+         * @throws IllegalStateException if the subscriber fell behind the retained
+         *                               changes and must resync from a snapshot
+         */
+        public ChangeFrame poll(int maxChanges) {
+            synchronized (ChangeFeed.this) {
+                if (closed)
+                    throw new IllegalStateException("Subscription is closed");
+                if (position < sequence - capacity)
+                    throw new IllegalStateException("Subscriber at " + position + " fell behind the feed at " + sequence
+                            + ", resync from a snapshot");
+                int count = (int) Math.min(sequence - position, maxChanges);
+                if (count == 0)
+                    return null;
+                byte[] frameOperations = new byte[count];
+                String[] frameWords = new String[count];
+                for (int i = 0; i < count; i++) {
+                    int slot = (int) ((position + 1 + i) % capacity);
+                    frameOperations[i] = operations[slot];
+                    frameWords[i] = words[slot];
+                }
+                ChangeFrame frame = new ChangeFrame(false, position + 1, frameOperations, frameWords);
+                position += count;
+                // a blocked writer may go on
+                ChangeFeed.this.notifyAll();
+                return frame;
+            }
+        }
+
+        /**
+         * Like {@link #poll}, but waits for changes.
+         *
+         * @return the next changes, or null if none arrived within the timeout
+         */
+        public ChangeFrame take(int maxChanges, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (ChangeFeed.this) {
+                while (position == sequence && !closed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0)
+                        return null;
+                    TimeUnit.NANOSECONDS.timedWait(ChangeFeed.this, remaining);
+                }
+                return poll(maxChanges);
+            }
+        }
+
+        /**
+         * @return sequence number of the last change handed out
+         */
+        public long getPosition() {
+            synchronized (ChangeFeed.this) {
+                return position;
+            }
+        }
+
+        /**
+         * @return changes published but not yet handed out
+         */
+        public long getLag() {
+            synchronized (ChangeFeed.this) {
+                return sequence - position;
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (ChangeFeed.this) {
+                if (!closed) {
+                    closed = true;
+                    subscriptions.remove(this);
+                    ChangeFeed.this.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package dictionary;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A batch of consecutive changes from a {@link ChangeFeed}, or a snapshot of all
+ * stored words.
+ * <p>
+ * Wire format: a flag byte, the sequence number of the first change (of a snapshot:
+ * the last change it includes), the change count, then per change its word length
+ * shifted left by one with the operation in the low bit, and the UTF-8 word.
+ * Sequence numbers of the other changes are implicit. Numbers are unsigned varints.
+ */
+public class ChangeFrame {
+    public static final int INSERT = 0;
+    public static final int DELETE = 1;
+
+    private static final int SNAPSHOT = 1;
+
+    private final boolean snapshot;
+    private final long firstSequence;
+    private final byte[] operations;
+    private final String[] words;
+
+    ChangeFrame(boolean snapshot, long firstSequence, byte[] operations, String[] words) {
+        this.snapshot = snapshot;
+        this.firstSequence = firstSequence;
+        this.operations = operations;
+        this.words = words;
+    }
+
+    /**
+     * @param sequence sequence number of the last change included in the words
+     * @param words    stored words, in ascending order
+     */
+    static ChangeFrame snapshot(long sequence, List<String> words) {
+        return new ChangeFrame(true, sequence, new byte[words.size()], words.toArray(new String[0]));
+    }
+
+    /**
+     * @return true if the frame holds all stored words as inserts, to be applied to
+     *         an empty replica
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return sequence number of the first change; for a snapshot, of the last change
+     *         it includes
+     */
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /**
+     * @return sequence number of the last change included; a subscriber continues after it
+     */
+    public long getLastSequence() {
+        return snapshot ? firstSequence : firstSequence + operations.length - 1;
+    }
+
+    public int size() {
+        return operations.length;
+    }
+
+    /**
+     * @return {@link #INSERT} or {@link #DELETE}
+     */
+    public int getOperation(int index) {
+        return operations[index];
+    }
+
+    public String getWord(int index) {
+        return words[index];
+    }
+
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeByte(snapshot ? SNAPSHOT : 0);
+        writeVarLong(out, firstSequence);
+        writeVarLong(out, operations.length);
+        for (int i = 0; i < operations.length; i++) {
+            byte[] bytes = words[i].getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, (long) bytes.length << 1 | operations[i]);
+            out.write(bytes);
+        }
+        out.flush();
+    }
+
+    /**
+     * @return the next frame, or null at the end of the stream
+     * @throws IOException if the stream ends in the middle of a frame
+     */
+    public static ChangeFrame readFrom(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        int flags = in.read();
+        if (flags < 0)
+            return null;
+        long firstSequence = readVarLong(in);
+        long count = readVarLong(in);
+        if (count > Integer.MAX_VALUE - 8)
+            throw new IOException("Corrupt change frame: " + count + " changes");
+        byte[] operations = new byte[(int) count];
+        String[] words = new String[(int) count];
+        for (int i = 0; i < count; i++) {
+            long header = readVarLong(in);
+            operations[i] = (byte) (header & 1);
+            byte[] bytes = new byte[(int) (header >>> 1)];
+            in.readFully(bytes);
+            words[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new ChangeFrame((flags & SNAPSHOT) != 0, firstSequence, operations, words);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b < 0x80)
+                return value;
+        }
+        throw new IOException("Corrupt change frame: varint too long");
+    }
+}
@@ -0,0 +1,96 @@
+package dictionary;
+
+import java.util.Arrays;
+
+import trees.MemoryLayout;
+
+/**
+ * Counting Bloom filter over words. Each slot holds a small counter instead of
+ * a single bit so that words can be removed again after a delete.
+ * A saturated counter is never decremented, which keeps the filter free of
+ * false negatives at the cost of a slightly higher false positive rate.
+ */
+class CountingBloomFilter {
+    private static final int MAX_COUNT = 0xFF;
+
+    private final byte[] counters;
+    private final int hashCount;
+
+    /**
+     * @param expectedWords     number of words the filter is sized for
+     * @param falsePositiveRate target false positive rate at that size
+     */
+    CountingBloomFilter(int expectedWords, double falsePositiveRate) {
+        if (expectedWords <= 0)
+            throw new IllegalArgumentException("Expected words must be positive: " + expectedWords);
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+            throw new IllegalArgumentException("False positive rate must be in (0, 1): " + falsePositiveRate);
+
+        double ln2 = Math.log(2);
+        long slots = (long) Math.ceil(-expectedWords * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.counters = new byte[(int) Math.min(Math.max(slots, 64), Integer.MAX_VALUE - 8)];
+        this.hashCount = Math.max(1, (int) Math.round((double) counters.length / expectedWords * ln2));
+    }
+
+    void add(String word) {
+        long hash = mix(word.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int slot = index(h1 + i * h2);
+            int count = counters[slot] & 0xFF;
+            if (count < MAX_COUNT)
+                counters[slot] = (byte) (count + 1);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(counters, (byte) 0);
+    }
+
+    void remove(String word) {
+        long hash = mix(word.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int slot = index(h1 + i * h2);
+            int count = counters[slot] & 0xFF;
+            // saturated counters lost track of their real count => keep them
+            if (count > 0 && count < MAX_COUNT)
+                counters[slot] = (byte) (count - 1);
+        }
+    }
+
+    /**
+     * @return false if the word is definitely absent, true if it may be present
+     */
+    boolean mightContain(String word) {
+        long hash = mix(word.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            if (counters[index(h1 + i * h2)] == 0)
+                return false;
+        }
+        return true;
+    }
+
+    long memoryFootprint(MemoryLayout layout) {
+        return layout.objectSize(1, 4) + layout.arraySize(counters.length, 1);
+    }
+
+    private int index(int hash) {
+        return (hash & Integer.MAX_VALUE) % counters.length;
+    }
+
+    // MurmurHash3 64-bit finalizer, spreads String.hashCode over two independent halves
+    private static long mix(int hashCode) {
+        long h = hashCode;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
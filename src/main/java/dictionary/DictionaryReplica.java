@@ -0,0 +1,166 @@
+package dictionary;
+
+import java.util.function.Supplier;
+
+import trees.ISelfBalancingBST;
+
+/**
+ * A copy of another dictionary kept up to date from its {@link ChangeFeed}.
+ * <p>
+ * A replica starts from a snapshot frame, see {@link EnglishDictionary#changeSnapshot()},
+ * and then applies the frames of a subscription made after the snapshot's sequence
+ * number, so catching up costs one tree operation per change instead of a copy of the
+ * whole dictionary. Frames may come from an in-process {@link ChangeFeed.Subscription}
+ * or be read from a stream with {@link ChangeFrame#readFrom}. Not thread-safe.
+ */
+public class DictionaryReplica {
+    // changes handed out per frame when following in process
+    private static final int FRAME_CHANGES = 4096;
+
+    private final String type;
+    private final EnglishDictionary dictionary;
+    // sequence number of the last applied change
+    private long sequence;
+
+    private ChangeFeed feed;
+    private Supplier<ChangeFrame> snapshots;
+    private ChangeFeed.Subscription subscription;
+    private long resyncs;
+
+    /**
+     * Creates an empty replica, at sequence 0 of a feed enabled on an empty dictionary.
+     *
+     * @param type tree type of the replica, see {@link EnglishDictionary#newTree}
+     */
+    public DictionaryReplica(String type) {
+        this.type = type;
+        this.dictionary = new EnglishDictionary(type);
+    }
+
+    /**
+     * Applies a frame: a snapshot replaces all words of the same dictionary instance,
+     * changes already applied are skipped.
+     *
+     * @return number of words inserted or deleted
+     * @throws IllegalStateException if changes between the last applied one and the
+     *                               frame are missing
+     */
+    public int apply(ChangeFrame frame) {
+        if (frame.isSnapshot()) {
+            ISelfBalancingBST<String> tree = EnglishDictionary.newTree(type);
+            for (int i = 0; i < frame.size(); i++)
+                tree.insert(frame.getWord(i));
+            dictionary.replaceTree(tree);
+            sequence = frame.getLastSequence();
+            return frame.size();
+        }
+        if (frame.getFirstSequence() > sequence + 1)
+            throw new IllegalStateException("Changes " + (sequence + 1) + " to " + (frame.getFirstSequence() - 1)
+                    + " are missing, resync from a snapshot");
+        int applied = 0;
+        for (int i = (int) Math.max(0, sequence + 1 - frame.getFirstSequence()); i < frame.size(); i++) {
+            String word = frame.getWord(i);
+            if (frame.getOperation(i) == ChangeFrame.INSERT)
+                dictionary.insert(word);
+            else
+                dictionary.delete(word);
+            applied++;
+        }
+        sequence = Math.max(sequence, frame.getLastSequence());
+        return applied;
+    }
+
+    /**
+     * Follows a dictionary in the same process: copies its snapshot and subscribes
+     * after it. The primary must not be modified concurrently; for a dictionary
+     * behind an {@link AsyncDictionary} use {@link #follow(ChangeFeed, Supplier)}
+     * with {@link AsyncDictionary#changeSnapshot()}.
+     */
+    public void follow(EnglishDictionary primary) {
+        if (primary.getChangeFeed() == null)
+            throw new IllegalArgumentException("The primary has no change feed");
+        follow(primary.getChangeFeed(), primary::changeSnapshot);
+    }
+
+    /**
+     * @param snapshots consistent snapshots of the dictionary that publishes to the feed
+     */
+    public void follow(ChangeFeed feed, Supplier<ChangeFrame> snapshots) {
+        stopFollowing();
+        this.feed = feed;
+        this.snapshots = snapshots;
+        resync();
+    }
+
+    private void resync() {
+        while (true) {
+            apply(snapshots.get());
+            try {
+                subscription = feed.subscribe(sequence);
+                return;
+            } catch (IllegalArgumentException e) {
+                // more than capacity changes since the snapshot, take a newer one
+            }
+        }
+    }
+
+    /**
+     * Applies all changes published since the last call. A replica that fell too far
+     * behind resyncs from a new snapshot.
+     *
+     * @return number of words inserted or deleted
+     */
+    public int catchUp() {
+        if (subscription == null)
+            throw new IllegalStateException("The replica is not following a dictionary");
+        int applied = 0;
+        while (true) {
+            ChangeFrame frame;
+            try {
+                frame = subscription.poll(FRAME_CHANGES);
+            } catch (IllegalStateException e) {
+                subscription.close();
+                resyncs++;
+                resync();
+                continue;
+            }
+            if (frame == null)
+                return applied;
+            applied += apply(frame);
+        }
+    }
+
+    /**
+     * Closes the subscription; the words stay as they are.
+     */
+    public void stopFollowing() {
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+        feed = null;
+        snapshots = null;
+    }
+
+    /**
+     * @return sequence number of the last applied change
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return number of times the replica fell behind and copied a snapshot
+     */
+    public long getResyncs() {
+        return resyncs;
+    }
+
+    /**
+     * @return the replicated words, the same instance across resyncs; changes made to
+     *         it directly are not reverted
+     */
+    public EnglishDictionary getDictionary() {
+        return dictionary;
+    }
+}
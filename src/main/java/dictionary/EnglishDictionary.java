@@ -1,73 +1,447 @@
 package dictionary;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
 
 import trees.AVLTree;
+import trees.AdaptiveTree;
+import trees.FrequencyTreap;
 import trees.ISelfBalancingBST;
+import trees.KeyCodec;
+import trees.MemoryFootprint;
+import trees.MemoryLayout;
+import trees.PersistentAVLTree;
 import trees.RedBlackTree;
+import trees.SplayTree;
+import trees.WAVLTree;
 
 public class EnglishDictionary implements IDictionary {
+    private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+
     private ISelfBalancingBST<String> tree;
 
+    // optional lookup filter, both null when disabled
+    private CountingBloomFilter filter;
+    private HotKeyCache hotKeys;
+    private long lookups;
+    private long filterRejections;
+    private long filterFalsePositives;
+    private long cacheHits;
+
+    // records every operation while set
+    private TraceRecorder trace;
+    // batch files are sorted and applied with one bulk update
+    private boolean bulkBatches;
+    // publishes every insert and delete while set
+    private ChangeFeed changes;
+
     public EnglishDictionary(String type) {
+        tree = newTree(type);
+    }
+
+    /**
+     * @param type AVL, Red-Black, Adaptive, Splay, Treap, WAVL or MVCC, ignoring case
+     */
+    public static ISelfBalancingBST<String> newTree(String type) {
         if (type.equalsIgnoreCase("AVL"))
-            tree = new AVLTree<String>();
+            return new AVLTree<String>();
         else if (type.equalsIgnoreCase("Red-Black"))
-            tree = new RedBlackTree<String>();
+            return new RedBlackTree<String>();
+        else if (type.equalsIgnoreCase("Adaptive"))
+            return new AdaptiveTree<String>();
+        else if (type.equalsIgnoreCase("Splay"))
+            return new SplayTree<String>();
+        else if (type.equalsIgnoreCase("Treap"))
+            return new FrequencyTreap<String>();
+        else if (type.equalsIgnoreCase("WAVL"))
+            return new WAVLTree<String>();
+        else if (type.equalsIgnoreCase("MVCC"))
+            return new PersistentAVLTree<String>();
         else
             throw new IllegalArgumentException("Unknown tree type: " + type);
     }
 
+    /**
+     * Creates a dictionary with a lookup filter in front of the tree: a counting
+     * Bloom filter that rejects absent words without a tree descent, and a bounded
+     * LRU cache of recently found words.
+     *
+     * @param expectedWords  number of words the Bloom filter is sized for
+     * @param hotKeyCapacity maximum number of words kept in the hot-key cache
+     */
+    public EnglishDictionary(String type, int expectedWords, int hotKeyCapacity) {
+        this(type);
+        this.filter = new CountingBloomFilter(expectedWords, FILTER_FALSE_POSITIVE_RATE);
+        this.hotKeys = new HotKeyCache(hotKeyCapacity);
+    }
+
+    /**
+     * Switches to lazy deletion: deletes only tombstone words, and the tree is
+     * rebuilt in O(n) once tombstones exceed the given fraction of stored words.
+     * Suited to mass deletions; only available for AVL and Red-Black trees.
+     */
+    public void enableLazyDelete(double maxTombstoneFraction) {
+        if (tree instanceof AVLTree<String> avl)
+            avl.setLazyDelete(maxTombstoneFraction);
+        else if (tree instanceof RedBlackTree<String> redBlack)
+            redBlack.setLazyDelete(maxTombstoneFraction);
+        else
+            throw new UnsupportedOperationException("Lazy deletion needs an AVL or Red-Black tree");
+    }
+
+    /**
+     * Freezes the tree into a read-optimized array layout for read-mostly phases; the
+     * next insert or delete thaws it again. Only available for AVL and Red-Black trees.
+     */
+    public void freeze() {
+        if (tree instanceof AVLTree<String> avl)
+            avl.freeze();
+        else if (tree instanceof RedBlackTree<String> redBlack)
+            redBlack.freeze();
+        else
+            throw new UnsupportedOperationException("Freezing needs an AVL or Red-Black tree");
+    }
+
+    /**
+     * Switches {@link #batchInsert}, {@link #batchDelete}, {@link #batchInsertAll} and
+     * {@link #batchDeleteAll} to bulk updates: every file is read and sorted, then
+     * merged into the tree in one pass instead of rebalancing after every word. Only
+     * available for AVL and Red-Black trees; batches still run word by word while a
+     * trace is recorded, the lookup filter or the change feed is enabled, which all
+     * need the outcome of every single word.
+     */
+    public void enableBulkBatches() {
+        if (!(tree instanceof AVLTree) && !(tree instanceof RedBlackTree))
+            throw new UnsupportedOperationException("Bulk batches need an AVL or Red-Black tree");
+        bulkBatches = true;
+    }
+
+    public boolean isFrozen() {
+        return tree instanceof AVLTree<String> avl ? avl.isFrozen()
+                : tree instanceof RedBlackTree<String> redBlack && redBlack.isFrozen();
+    }
+
+    /**
+     * Starts recording all inserts, deletes and searches to a trace file for
+     * {@link TraceReplayer}. The trace begins with the currently stored words.
+     */
+    public void startTrace(String filePath) throws IOException {
+        if (trace != null)
+            throw new IllegalStateException("A trace is already being recorded");
+        List<String> words = new ArrayList<>(tree.getSize());
+        tree.inOrder(words::add);
+        trace = new TraceRecorder(Files.newOutputStream(Path.of(filePath)), words);
+    }
+
+    /**
+     * @return number of recorded operations
+     */
+    public long stopTrace() throws IOException {
+        if (trace == null)
+            throw new IllegalStateException("No trace is being recorded");
+        TraceRecorder recorder = trace;
+        trace = null;
+        recorder.close();
+        return recorder.getRecordCount();
+    }
+
+    public boolean isTracing() {
+        return trace != null;
+    }
+
+    /**
+     * Starts publishing every successful insert and delete to a {@link ChangeFeed},
+     * for replicas to follow, see {@link DictionaryReplica}. Batches run word by word
+     * while the feed is enabled.
+     *
+     * @param capacity     number of changes retained for subscribers
+     * @param blockWriters true to make inserts and deletes wait for the slowest
+     *                     subscriber instead of dropping it
+     */
+    public ChangeFeed enableChangeFeed(int capacity, boolean blockWriters) {
+        if (changes != null)
+            throw new IllegalStateException("The change feed is already enabled");
+        changes = new ChangeFeed(capacity, blockWriters);
+        return changes;
+    }
+
+    /**
+     * @return the change feed, or null if disabled
+     */
+    public ChangeFeed getChangeFeed() {
+        return changes;
+    }
+
+    /**
+     * @return all stored words, tagged with the sequence number of the last published
+     *         change, for a replica to start from before it subscribes
+     */
+    public ChangeFrame changeSnapshot() {
+        if (changes == null)
+            throw new IllegalStateException("The change feed is not enabled");
+        List<String> words = new ArrayList<>(tree.getSize());
+        tree.inOrder(words::add);
+        return ChangeFrame.snapshot(changes.getSequence(), words);
+    }
+
     @Override
     public boolean insert(String word) {
-        return tree.insert(word);
+        if (changes != null)
+            changes.awaitRoom();
+        boolean inserted = insertWord(word);
+        if (inserted && changes != null)
+            changes.publish(ChangeFrame.INSERT, word);
+        if (trace != null)
+            trace.record(Trace.INSERT, word, inserted);
+        return inserted;
+    }
+
+    private boolean insertWord(String word) {
+        if (!tree.insert(word))
+            return false;
+        if (filter != null)
+            filter.add(word);
+        return true;
     }
 
     @Override
     public boolean delete(String word) {
-        return tree.delete(word);
+        if (changes != null)
+            changes.awaitRoom();
+        boolean deleted = deleteWord(word);
+        if (deleted && changes != null)
+            changes.publish(ChangeFrame.DELETE, word);
+        if (trace != null)
+            trace.record(Trace.DELETE, word, deleted);
+        return deleted;
+    }
+
+    private boolean deleteWord(String word) {
+        if (!tree.delete(word))
+            return false;
+        if (filter != null) {
+            filter.remove(word);
+            hotKeys.remove(word);
+        }
+        return true;
     }
 
     @Override
     public boolean search(String word) {
-        return tree.search(word);
+        boolean found = searchWord(word);
+        if (trace != null)
+            trace.record(Trace.SEARCH, word, found);
+        return found;
+    }
+
+    private boolean searchWord(String word) {
+        if (filter == null)
+            return tree.search(word);
+
+        lookups++;
+        if (!filter.mightContain(word)) {
+            filterRejections++;
+            return false;
+        }
+        if (hotKeys.contains(word)) {
+            cacheHits++;
+            return true;
+        }
+        if (tree.search(word)) {
+            hotKeys.add(word);
+            return true;
+        }
+        filterFalsePositives++;
+        return false;
+    }
+
+    /**
+     * Suggests stored words within an edit distance of the given word, closest first.
+     * Equally close words sharing a longer prefix with it come first, then they are
+     * in alphabetical order. The tree is walked once in order by a Levenshtein
+     * automaton; AVL and Red-Black trees skip every subtree whose words all start
+     * with a prefix that is already too far from the word.
+     *
+     * @param maxDistance maximum number of inserted, deleted or substituted chars; a
+     *                    distance beyond the longest word costs no more than that
+     * @param limit       maximum number of suggestions
+     */
+    public List<String> suggest(String word, int maxDistance, int limit) {
+        if (maxDistance < 0 || limit < 0)
+            throw new IllegalArgumentException("Distance and limit must not be negative: " + maxDistance + ", " + limit);
+        // worst of the best suggestions so far on top
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(Math.min(limit, 64) + 1, Comparator.reverseOrder());
+        if (limit > 0) {
+            FuzzyMatcher matcher = new FuzzyMatcher(word, maxDistance);
+            tree.inOrder(matcher::rulesOut, key -> {
+                int distance = matcher.distance(key);
+                if (distance < 0)
+                    return;
+                Suggestion suggestion = new Suggestion(key, distance, commonPrefixLength(word, key));
+                if (best.size() < limit) {
+                    best.add(suggestion);
+                } else if (suggestion.compareTo(best.peek()) < 0) {
+                    best.poll();
+                    best.add(suggestion);
+                }
+            });
+        }
+        List<Suggestion> ranked = new ArrayList<>(best);
+        ranked.sort(null);
+        List<String> words = new ArrayList<>(ranked.size());
+        for (Suggestion suggestion : ranked)
+            words.add(suggestion.word);
+        return words;
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int length = 0;
+        int limit = Math.min(a.length(), b.length());
+        while (length < limit && a.charAt(length) == b.charAt(length))
+            length++;
+        return length;
+    }
+
+    private static final class Suggestion implements Comparable<Suggestion> {
+        final String word;
+        final int distance;
+        final int commonPrefix;
+
+        Suggestion(String word, int distance, int commonPrefix) {
+            this.word = word;
+            this.distance = distance;
+            this.commonPrefix = commonPrefix;
+        }
+
+        @Override
+        public int compareTo(Suggestion other) {
+            if (distance != other.distance)
+                return Integer.compare(distance, other.distance);
+            if (commonPrefix != other.commonPrefix)
+                return Integer.compare(other.commonPrefix, commonPrefix);
+            return word.compareTo(other.word);
+        }
+    }
+
+    /**
+     * @return true if concurrent searches are safe while no writer is active; false if
+     *         searches update internal state (lookup filter counters, self-adjusting trees)
+     */
+    public boolean isSearchReadOnly() {
+        return filter == null && isSearchReadOnly(tree);
+    }
+
+    /**
+     * @return true if searches, sizes and snapshots are safe without any lock, even
+     *         while a writer is active; only for MVCC dictionaries without lookup filter
+     */
+    public boolean isSearchLockFree() {
+        return filter == null && tree instanceof PersistentAVLTree;
+    }
+
+    /**
+     * Pins the current version of an MVCC dictionary: it can be searched and iterated
+     * without locks while writes go on, and is reclaimed once unreferenced.
+     */
+    public PersistentAVLTree.Snapshot<String> snapshot() {
+        if (tree instanceof PersistentAVLTree<String> persistent)
+            return persistent.snapshot();
+        throw new UnsupportedOperationException("Snapshots need an MVCC dictionary");
+    }
+
+    /**
+     * @return false for self-adjusting trees, whose searches restructure the tree
+     */
+    public static boolean isSearchReadOnly(ISelfBalancingBST<?> tree) {
+        return !(tree instanceof SplayTree) && !(tree instanceof FrequencyTreap);
+    }
+
+    public boolean hasLookupFilter() {
+        return filter != null;
+    }
+
+    /**
+     * @return counters of the lookup filter, or null if the filter is disabled
+     */
+    public LookupStats getLookupStats() {
+        if (filter == null)
+            return null;
+        return new LookupStats(lookups, filterRejections, filterFalsePositives, cacheHits);
     }
 
     @Override
     public int[] batchInsert(String filePath) {
-        int[] result = new int[2];
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (!line.isEmpty())
-                    if (insert(line))
-                        result[0]++;
-                    else
-                        result[1]++;
+        if (isBulkAllowed())
+            return bulkBatch(filePath, true);
+        return batch(filePath, this::insert);
+    }
+
+    @Override
+    public int[] batchDelete(String filePath) {
+        if (isBulkAllowed())
+            return bulkBatch(filePath, false);
+        return batch(filePath, this::delete);
+    }
+
+    /**
+     * Inserts the words of several shards, decoding them in parallel.
+     *
+     * @param pathPattern a file, a directory or a glob such as {@code words/part-*.gz};
+     *                    shards ending in {@code .gz} are decompressed on the fly
+     * @return inserted/duplicate counts per shard and in total
+     */
+    public BatchResult batchInsertAll(String pathPattern) {
+        return batchAll(pathPattern, true);
+    }
+
+    /**
+     * Deletes the words of several shards, decoding them in parallel.
+     *
+     * @param pathPattern a file, a directory or a glob such as {@code words/part-*.gz}
+     * @return deleted/not found counts per shard and in total
+     */
+    public BatchResult batchDeleteAll(String pathPattern) {
+        return batchAll(pathPattern, false);
+    }
+
+    private BatchResult batchAll(String pathPattern, boolean insert) {
+        try {
+            List<Path> shards = ShardReader.resolve(pathPattern);
+            if (!isBulkAllowed())
+                return ShardReader.apply(shards, insert ? this::insert : this::delete);
+            // one bulk update per shard keeps the per-shard counts exact
+            BatchResult result = new BatchResult();
+            List<List<String>> words = ShardReader.readAll(shards);
+            for (int i = 0; i < shards.size(); i++) {
+                String file = shards.get(i).toString();
+                int[] counts = bulkUpdate(words.get(i), insert);
+                result.addFile(file);
+                result.record(file, counts[0], counts[1]);
             }
+            return result;
         } catch (IOException e) {
             System.err.println("Error reading file: " + e.getMessage());
             throw new RuntimeException(e);
         }
-        return result;
     }
 
-    @Override
-    public int[] batchDelete(String filePath) {
+    private int[] batch(String filePath, Predicate<String> operation) {
         int[] result = new int[2];
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (!line.isEmpty())
-                    if (delete(line))
-                        result[0]++;
-                    else
-                        result[1]++;
-            }
+        try {
+            WordFileReader.forEachWord(filePath, word -> {
+                if (operation.test(word))
+                    result[0]++;
+                else
+                    result[1]++;
+            });
         } catch (IOException e) {
             System.err.println("Error reading file: " + e.getMessage());
             throw new RuntimeException(e);
@@ -75,11 +449,138 @@ public class EnglishDictionary implements IDictionary {
         return result;
     }
 
+    /**
+     * Applies a chunk of a batch for {@link AsyncDictionary}, with one bulk update if
+     * enabled; sorts the words in place.
+     *
+     * @return int[2] array as described in {@link IDictionary#batchInsert(String)}
+     */
+    int[] applyBatch(List<String> words, boolean insert) {
+        if (isBulkAllowed())
+            return bulkUpdate(words, insert);
+        int[] result = new int[2];
+        for (String word : words) {
+            if (insert ? insert(word) : delete(word))
+                result[0]++;
+            else
+                result[1]++;
+        }
+        return result;
+    }
+
+    private boolean isBulkAllowed() {
+        return bulkBatches && trace == null && filter == null && changes == null;
+    }
+
+    private int[] bulkBatch(String filePath, boolean insert) {
+        List<String> words = new ArrayList<>();
+        try {
+            WordFileReader.forEachWord(filePath, words::add);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        return bulkUpdate(words, insert);
+    }
+
+    /**
+     * Sorts the words in place and applies them with one bulk update.
+     */
+    private int[] bulkUpdate(List<String> words, boolean insert) {
+        words.sort(null);
+        int distinct = 0;
+        for (String word : words)
+            if (distinct == 0 || !word.equals(words.get(distinct - 1)))
+                words.set(distinct++, word);
+        List<String> keys = words.subList(0, distinct);
+
+        int changed;
+        if (tree instanceof AVLTree<String> avl)
+            changed = insert ? avl.bulkInsert(keys) : avl.bulkDelete(keys);
+        else
+            changed = insert ? ((RedBlackTree<String>) tree).bulkInsert(keys)
+                    : ((RedBlackTree<String>) tree).bulkDelete(keys);
+        return new int[] { changed, words.size() - changed };
+    }
+
     @Override
     public int getSize() {
         return tree.getSize();
     }
 
+    /**
+     * Saves the exact tree shape, see {@link AVLTree#writeTo}. Only available for AVL
+     * and Red-Black trees.
+     */
+    public void save(String filePath) throws IOException {
+        if (!(tree instanceof AVLTree) && !(tree instanceof RedBlackTree))
+            throw new UnsupportedOperationException("Saving needs an AVL or Red-Black tree");
+        try (OutputStream out = Files.newOutputStream(Path.of(filePath))) {
+            if (tree instanceof AVLTree<String> avl)
+                avl.writeTo(out, KeyCodec.UTF8);
+            else if (tree instanceof RedBlackTree<String> redBlack)
+                redBlack.writeTo(out, KeyCodec.UTF8);
+        }
+    }
+
+    /**
+     * Replaces the words with a tree saved by {@link #save}, without rebalancing.
+     * The file must hold the same tree type as this dictionary.
+     */
+    public void load(String filePath) throws IOException {
+        if (!(tree instanceof AVLTree) && !(tree instanceof RedBlackTree))
+            throw new UnsupportedOperationException("Loading needs an AVL or Red-Black tree");
+        if (trace != null)
+            throw new IllegalStateException("Stop the trace before loading, it could not be replayed");
+        if (changes != null)
+            throw new IllegalStateException("Loading is not published to the change feed");
+        try (InputStream in = Files.newInputStream(Path.of(filePath))) {
+            if (tree instanceof AVLTree)
+                tree = AVLTree.readFrom(in, KeyCodec.UTF8);
+            else
+                tree = RedBlackTree.readFrom(in, KeyCodec.UTF8);
+        }
+        if (filter != null) {
+            filter.clear();
+            hotKeys.clear();
+            tree.inOrder(filter::add);
+        }
+    }
+
+    /**
+     * Replaces all words with those of the given tree, keeping this instance, for
+     * {@link DictionaryReplica}. The replacement is neither traced nor published.
+     */
+    void replaceTree(ISelfBalancingBST<String> replacement) {
+        tree = replacement;
+        if (filter != null) {
+            filter.clear();
+            hotKeys.clear();
+            tree.inOrder(filter::add);
+        }
+    }
+
+    /**
+     * Estimates the retained heap size of the stored words, the tree and the lookup
+     * filter, if any. Only available for AVL and Red-Black trees.
+     */
+    public MemoryFootprint memoryFootprint() {
+        MemoryLayout layout = MemoryLayout.current();
+        MemoryFootprint footprint;
+        if (tree instanceof AVLTree<String> avl)
+            footprint = avl.memoryFootprint(layout);
+        else if (tree instanceof RedBlackTree<String> redBlack)
+            footprint = redBlack.memoryFootprint(layout);
+        else
+            throw new UnsupportedOperationException("Memory footprint needs an AVL or Red-Black tree");
+        // tree, filter, cache, trace and change feed references; four lookup counters and
+        // the bulk batch flag. A running trace or feed holds buffers that are not counted.
+        long metadata = layout.objectSize(5, 4 * 8 + 1);
+        if (filter != null)
+            metadata += filter.memoryFootprint(layout) + hotKeys.memoryFootprint(layout);
+        return footprint.plusMetadata(metadata);
+    }
+
     @Override
     public int getHight() {
         return tree.getHeight();
@@ -0,0 +1,114 @@
+package dictionary;
+
+import java.util.Arrays;
+
+/**
+ * Levenshtein automaton of a query word, run over keys in ascending order.
+ * <p>
+ * The state after reading a prefix is the last row of the edit distance table
+ * between the prefix and the query. Rows are kept per prefix length, so a key only
+ * costs the rows past the prefix it shares with the previous one. Row minimums
+ * never decrease as the prefix grows, so once a row's minimum exceeds the maximum
+ * distance, no key starting with that prefix can match and the subtrees holding
+ * only such keys are skipped. Not thread-safe.
+ */
+final class FuzzyMatcher {
+    private final String query;
+    private final int maxDistance;
+    // rows[i] is the state after prefix[0..i), mins[i] its minimum
+    private int[][] rows;
+    private int[] mins;
+    private char[] prefix;
+    // rows up to this prefix length are current
+    private int valid;
+
+    FuzzyMatcher(String query, int maxDistance) {
+        this.query = query;
+        this.maxDistance = maxDistance;
+        // a longer prefix has a row minimum above maxDistance and is never extended;
+        // a distance beyond the longest key never fills that, so grow on demand instead
+        int capacity = query.length() + Math.min(maxDistance, query.length() + 16) + 1;
+        rows = new int[capacity + 1][];
+        mins = new int[capacity + 1];
+        prefix = new char[capacity];
+        rows[0] = new int[query.length() + 1];
+        for (int j = 0; j <= query.length(); j++)
+            rows[0][j] = j;
+    }
+
+    /**
+     * @return the edit distance between the query and the word, or -1 if it exceeds
+     *         the maximum distance
+     */
+    int distance(String word) {
+        // every extra or missing char costs one edit
+        if (Math.abs(word.length() - query.length()) > maxDistance)
+            return -1;
+        int depth = advance(word, word.length());
+        if (depth < word.length())
+            return -1;
+        int distance = rows[depth][query.length()];
+        return distance <= maxDistance ? distance : -1;
+    }
+
+    /**
+     * Serves as the skipRange of {@link trees.ISelfBalancingBST#inOrder}: keys
+     * between two bounds share the bounds' common prefix.
+     *
+     * @return true if no key strictly between the bounds can match
+     */
+    boolean rulesOut(String low, String high) {
+        if (low == null || high == null)
+            return false;
+        int length = 0;
+        int limit = Math.min(low.length(), high.length());
+        while (length < limit && low.charAt(length) == high.charAt(length))
+            length++;
+        return length > 0 && mins[advance(low, length)] > maxDistance;
+    }
+
+    /**
+     * Brings the rows up to the first length chars of s, stopping early at a prefix
+     * no key can extend to a match.
+     *
+     * @return the prefix length reached
+     */
+    private int advance(String s, int length) {
+        int depth = 0;
+        int limit = Math.min(valid, length);
+        while (depth < limit && prefix[depth] == s.charAt(depth))
+            depth++;
+        while (depth < length && mins[depth] <= maxDistance) {
+            if (depth == prefix.length)
+                grow();
+            char c = s.charAt(depth);
+            prefix[depth] = c;
+            step(rows[depth], c, depth + 1);
+            depth++;
+        }
+        valid = depth;
+        return depth;
+    }
+
+    private void grow() {
+        int capacity = prefix.length * 2;
+        rows = Arrays.copyOf(rows, capacity + 1);
+        mins = Arrays.copyOf(mins, capacity + 1);
+        prefix = Arrays.copyOf(prefix, capacity);
+    }
+
+    private void step(int[] previous, char c, int depth) {
+        int[] row = rows[depth];
+        if (row == null)
+            row = rows[depth] = new int[previous.length];
+        row[0] = depth;
+        int min = depth;
+        for (int j = 1; j < row.length; j++) {
+            int cost = query.charAt(j - 1) == c ? 0 : 1;
+            int value = Math.min(Math.min(row[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+            row[j] = value;
+            min = Math.min(min, value);
+        }
+        mins[depth] = min;
+    }
+}
@@ -0,0 +1,64 @@
+package dictionary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import trees.MemoryLayout;
+
+/**
+ * Bounded set of recently found words with least-recently-used eviction.
+ */
+class HotKeyCache {
+    private final LinkedHashMap<String, Boolean> entries;
+    private final int initialCapacity;
+
+    HotKeyCache(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        this.initialCapacity = Math.min(capacity, 1 << 16);
+        // access order => iteration starts at the least recently used word
+        this.entries = new LinkedHashMap<>(initialCapacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    boolean contains(String word) {
+        return entries.get(word) != null;
+    }
+
+    void add(String word) {
+        entries.put(word, Boolean.TRUE);
+    }
+
+    void remove(String word) {
+        entries.remove(word);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return estimated retained size, including the cached words
+     */
+    long memoryFootprint(MemoryLayout layout) {
+        int tableLength = Integer.highestOneBit(Math.max(initialCapacity - 1, 1)) << 1;
+        while (entries.size() > tableLength * 0.75)
+            tableLength <<= 1;
+        // this; the map subclass: 6 references, size, modCount, threshold, loadFactor, captured capacity,
+        // accessOrder; per entry: hash, key, value, next, before, after
+        long bytes = layout.objectSize(1, 8) + layout.objectSize(6, 21)
+                + layout.arraySize(tableLength, layout.getReferenceSize())
+                + entries.size() * layout.objectSize(5, 4);
+        for (String word : entries.keySet())
+            bytes += layout.keySize(word);
+        return bytes;
+    }
+}
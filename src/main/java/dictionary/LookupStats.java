@@ -0,0 +1,62 @@
+package dictionary;
+
+/**
+ * Snapshot of the counters kept by the lookup filter of {@link EnglishDictionary}.
+ */
+public class LookupStats {
+    private final long lookups;
+    private final long filterRejections;
+    private final long filterFalsePositives;
+    private final long cacheHits;
+
+    LookupStats(long lookups, long filterRejections, long filterFalsePositives, long cacheHits) {
+        this.lookups = lookups;
+        this.filterRejections = filterRejections;
+        this.filterFalsePositives = filterFalsePositives;
+        this.cacheHits = cacheHits;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * @return lookups answered by the Bloom filter without touching the tree
+     */
+    public long getFilterRejections() {
+        return filterRejections;
+    }
+
+    /**
+     * @return lookups the Bloom filter let through for words that were absent
+     */
+    public long getFilterFalsePositives() {
+        return filterFalsePositives;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * @return fraction of absent-word lookups that the Bloom filter failed to reject
+     */
+    public double getFalsePositiveRate() {
+        long absent = filterRejections + filterFalsePositives;
+        return absent == 0 ? 0 : (double) filterFalsePositives / absent;
+    }
+
+    /**
+     * @return fraction of lookups that passed the filter and were served by the hot-key cache
+     */
+    public double getCacheHitRate() {
+        long passed = lookups - filterRejections;
+        return passed == 0 ? 0 : (double) cacheHits / passed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("lookups=%d, filterRejections=%d, falsePositiveRate=%.4f, cacheHitRate=%.4f",
+                lookups, filterRejections, getFalsePositiveRate(), getCacheHitRate());
+    }
+}
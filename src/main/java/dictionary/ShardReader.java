@@ -0,0 +1,198 @@
+package dictionary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decodes word shards in parallel and feeds them into a single merge stage.
+ * Shards may be plain text or gzip compressed ({@code .gz}); every shard is
+ * decoded on its own thread while the calling thread applies the words to the
+ * dictionary, so the tree itself is only ever touched by one thread.
+ */
+final class ShardReader {
+    private static final int CHUNK_WORDS = 4096;
+    private static final int QUEUE_CHUNKS = 64;
+
+    // one unit of work for the merge stage: a run of words, the end of a shard or a decoding failure
+    private static class Chunk {
+        final int shard;
+        final List<String> words;
+        final Exception error;
+
+        Chunk(int shard, List<String> words, Exception error) {
+            this.shard = shard;
+            this.words = words;
+            this.error = error;
+        }
+    }
+
+    private ShardReader() {
+    }
+
+    /**
+     * Resolves a file, a directory (all regular files in it) or a glob pattern
+     * such as {@code shards/words-*.gz} to the list of shards, sorted by name.
+     */
+    static List<Path> resolve(String pathPattern) throws IOException {
+        Path path = Path.of(pathPattern);
+        List<Path> shards = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, Files::isRegularFile)) {
+                stream.forEach(shards::add);
+            }
+        } else if (isGlob(pathPattern)) {
+            Path dir = path.getParent() == null ? Path.of(".") : path.getParent();
+            PathMatcher matcher = dir.getFileSystem().getPathMatcher("glob:" + path.getFileName());
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir,
+                    p -> Files.isRegularFile(p) && matcher.matches(p.getFileName()))) {
+                stream.forEach(shards::add);
+            }
+        } else {
+            if (!Files.isRegularFile(path))
+                throw new IOException("No such file: " + pathPattern);
+            shards.add(path);
+        }
+        shards.sort(null);
+        for (Path shard : shards) {
+            if (shard.getFileName().toString().endsWith(".zst"))
+                throw new IllegalArgumentException("zstd shards are not supported, recompress as .gz: " + shard);
+        }
+        return shards;
+    }
+
+    private static boolean isGlob(String pathPattern) {
+        for (char c : new char[] { '*', '?', '[', '{' }) {
+            if (pathPattern.indexOf(c) >= 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Applies the operation to every word of every shard and counts the outcome per shard.
+     */
+    static BatchResult apply(List<Path> shards, Predicate<String> operation) {
+        BatchResult result = new BatchResult();
+        for (Path shard : shards)
+            result.addFile(shard.toString());
+        merge(shards, (shard, words) -> {
+            int[] counts = result.countsOf(shards.get(shard).toString());
+            for (String word : words)
+                result.record(counts, operation.test(word));
+        });
+        return result;
+    }
+
+    /**
+     * Decodes every shard in parallel and collects its words.
+     *
+     * @return the words of each shard, in shard order
+     */
+    static List<List<String>> readAll(List<Path> shards) {
+        List<List<String>> words = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++)
+            words.add(new ArrayList<>());
+        merge(shards, (shard, chunk) -> words.get(shard).addAll(chunk));
+        return words;
+    }
+
+    private interface ChunkSink {
+        void accept(int shard, List<String> words);
+    }
+
+    // hands every decoded chunk to the sink on the calling thread
+    private static void merge(List<Path> shards, ChunkSink sink) {
+        if (shards.isEmpty())
+            return;
+
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        int threads = Math.min(shards.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService decoders = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "shard-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < shards.size(); i++) {
+                int shard = i;
+                decoders.execute(() -> decode(shard, shards.get(shard), queue));
+            }
+
+            int remaining = shards.size();
+            while (remaining > 0) {
+                Chunk chunk = queue.take();
+                if (chunk.error != null)
+                    throw new RuntimeException("Error reading " + shards.get(chunk.shard), chunk.error);
+                if (chunk.words == null) {
+                    remaining--;
+                    continue;
+                }
+                sink.accept(chunk.shard, chunk.words);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            decoders.shutdownNow();
+        }
+    }
+
+    private static void decode(int shard, Path path, BlockingQueue<Chunk> queue) {
+        try {
+            // one-element holder the word callback can replace; generic arrays cannot be created directly
+            @SuppressWarnings("unchecked")
+            List<String>[] words = (List<String>[]) new List<?>[] { new ArrayList<String>(CHUNK_WORDS) };
+            if (path.getFileName().toString().endsWith(".gz")) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(Files.newInputStream(path), 1 << 16), StandardCharsets.UTF_8), 1 << 16)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (!line.isEmpty())
+                            words[0] = add(shard, words[0], line, queue);
+                    }
+                }
+            } else {
+                WordFileReader.forEachWord(path.toString(), word -> words[0] = add(shard, words[0], word, queue));
+            }
+            if (!words[0].isEmpty())
+                queue.put(new Chunk(shard, words[0], null));
+            queue.put(new Chunk(shard, null, null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            try {
+                queue.put(new Chunk(shard, null, e));
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static List<String> add(int shard, List<String> words, String word, BlockingQueue<Chunk> queue) {
+        words.add(word);
+        if (words.size() < CHUNK_WORDS)
+            return words;
+        try {
+            queue.put(new Chunk(shard, words, null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return new ArrayList<>(CHUNK_WORDS);
+    }
+}
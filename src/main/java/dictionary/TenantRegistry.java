@@ -0,0 +1,271 @@
+package dictionary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import trees.KeyCodec;
+import trees.OffHeapAVLTree;
+import trees.OffHeapStore;
+
+/**
+ * Hosts many small per-tenant dictionaries in one JVM.
+ * <p>
+ * Each tenant is an {@link OffHeapAVLTree}; the trees share a few
+ * {@link OffHeapStore}s, one per stripe, so a tenant costs a handful of heap objects
+ * however many words it holds, and empty space freed by one tenant is reused by the
+ * next. Tenants are assigned to stripes by name, which spreads allocations of
+ * concurrently active tenants over separate allocator locks.
+ * <p>
+ * Every tenant is guarded by its own monitor, so operations on different tenants run
+ * in parallel and only share the short allocation step of their stripe. Inserts
+ * are checked against the tenant's entry and byte quotas.
+ */
+public class TenantRegistry implements AutoCloseable {
+    // 1 MB chunks, so a registry with few tenants does not reserve much
+    private static final int CHUNK_SHIFT = 20;
+
+    private final OffHeapStore[] stores;
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a registry with one stripe per available processor.
+     */
+    public TenantRegistry() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes number of shared stores
+     */
+    public TenantRegistry(int stripes) {
+        if (stripes <= 0)
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripes);
+        stores = new OffHeapStore[stripes];
+        for (int i = 0; i < stripes; i++)
+            stores[i] = OffHeapStore.allocateDirect(CHUNK_SHIFT);
+    }
+
+    /**
+     * @param maxEntries maximum number of words the tenant may hold
+     * @param maxBytes   maximum store bytes of the tenant's nodes, see {@link Tenant#getOffHeapBytes()}
+     * @throws IllegalArgumentException if a tenant of that name exists
+     */
+    public Tenant create(String name, int maxEntries, long maxBytes) {
+        if (maxEntries < 0 || maxBytes < 0)
+            throw new IllegalArgumentException("Quotas must not be negative: " + maxEntries + ", " + maxBytes);
+        OffHeapStore store = stores[Math.floorMod(name.hashCode(), stores.length)];
+        Tenant tenant = new Tenant(name, new OffHeapAVLTree<>(store, KeyCodec.UTF8), maxEntries, maxBytes);
+        if (tenants.putIfAbsent(name, tenant) != null) {
+            tenant.release();
+            throw new IllegalArgumentException("Tenant already exists: " + name);
+        }
+        return tenant;
+    }
+
+    /**
+     * @return the tenant, or null if there is none of that name
+     */
+    public Tenant get(String name) {
+        return tenants.get(name);
+    }
+
+    /**
+     * Removes a tenant and returns its memory to the shared store. Later operations on
+     * the removed tenant throw {@link IllegalStateException}.
+     *
+     * @return false if there was no tenant of that name
+     */
+    public boolean remove(String name) {
+        Tenant tenant = tenants.remove(name);
+        if (tenant == null)
+            return false;
+        tenant.release();
+        return true;
+    }
+
+    public int getTenantCount() {
+        return tenants.size();
+    }
+
+    /**
+     * @return counters of all tenants, in no particular order
+     */
+    public List<TenantStats> getStats() {
+        List<TenantStats> stats = new ArrayList<>(tenants.size());
+        for (Tenant tenant : tenants.values())
+            stats.add(tenant.getStats());
+        return stats;
+    }
+
+    /**
+     * @return bytes of live records in all shared stores
+     */
+    public long getUsedBytes() {
+        long bytes = 0;
+        for (OffHeapStore store : stores)
+            bytes += store.getUsedBytes();
+        return bytes;
+    }
+
+    /**
+     * @return bytes of chunks reserved by all shared stores
+     */
+    public long getReservedBytes() {
+        long bytes = 0;
+        for (OffHeapStore store : stores)
+            bytes += store.getReservedBytes();
+        return bytes;
+    }
+
+    /**
+     * Drops all tenants and releases the stores; the registry must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        for (String name : new ArrayList<>(tenants.keySet()))
+            remove(name);
+        for (OffHeapStore store : stores)
+            store.close();
+    }
+
+    /**
+     * One tenant's dictionary. Thread-safe; operations hold the tenant's monitor.
+     */
+    public static final class Tenant implements IDictionary {
+        private final String name;
+        private final OffHeapAVLTree<String> tree;
+        private final int maxEntries;
+        private final long maxBytes;
+        private long searches;
+        private long hits;
+        private long inserts;
+        private long deletes;
+        private long quotaRejections;
+        private boolean removed;
+
+        private Tenant(String name, OffHeapAVLTree<String> tree, int maxEntries, long maxBytes) {
+            this.name = name;
+            this.tree = tree;
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @throws IllegalStateException if the word would exceed the entry or byte quota;
+         *                               the tenant is left unchanged
+         */
+        @Override
+        public synchronized boolean insert(String word) {
+            checkNotRemoved();
+            if (tree.getSize() >= maxEntries && !tree.search(word))
+                throw quotaExceeded("entry quota of " + maxEntries + " words");
+            if (!tree.insert(word))
+                return false;
+            if (tree.getOffHeapBytes() > maxBytes) {
+                tree.delete(word);
+                throw quotaExceeded("byte quota of " + maxBytes + " bytes");
+            }
+            inserts++;
+            return true;
+        }
+
+        private IllegalStateException quotaExceeded(String quota) {
+            quotaRejections++;
+            return new IllegalStateException("Tenant " + name + " would exceed its " + quota);
+        }
+
+        @Override
+        public synchronized boolean delete(String word) {
+            checkNotRemoved();
+            if (!tree.delete(word))
+                return false;
+            deletes++;
+            return true;
+        }
+
+        @Override
+        public synchronized boolean search(String word) {
+            checkNotRemoved();
+            searches++;
+            if (!tree.search(word))
+                return false;
+            hits++;
+            return true;
+        }
+
+        /**
+         * Inserts the words of a file under one acquisition of the tenant's monitor.
+         *
+         * @throws IllegalStateException once a word would exceed a quota; the words
+         *                               before it stay inserted
+         */
+        @Override
+        public synchronized int[] batchInsert(String filePath) {
+            return batch(filePath, this::insert);
+        }
+
+        @Override
+        public synchronized int[] batchDelete(String filePath) {
+            return batch(filePath, this::delete);
+        }
+
+        private int[] batch(String filePath, Predicate<String> operation) {
+            int[] result = new int[2];
+            try {
+                WordFileReader.forEachWord(filePath, word -> {
+                    if (operation.test(word))
+                        result[0]++;
+                    else
+                        result[1]++;
+                });
+            } catch (IOException e) {
+                System.err.println("Error reading file: " + e.getMessage());
+                throw new RuntimeException(e);
+            }
+            return result;
+        }
+
+        @Override
+        public synchronized int getSize() {
+            return tree.getSize();
+        }
+
+        @Override
+        public synchronized int getHight() {
+            checkNotRemoved();
+            return tree.getHeight();
+        }
+
+        /**
+         * @return bytes of the shared store taken by this tenant's nodes and descriptor
+         */
+        public synchronized long getOffHeapBytes() {
+            return removed ? 0 : tree.getOffHeapBytes();
+        }
+
+        public synchronized TenantStats getStats() {
+            return new TenantStats(name, tree.getSize(), getOffHeapBytes(), maxEntries, maxBytes, searches, hits,
+                    inserts, deletes, quotaRejections);
+        }
+
+        private synchronized void release() {
+            if (!removed) {
+                removed = true;
+                tree.release();
+            }
+        }
+
+        private void checkNotRemoved() {
+            if (removed)
+                throw new IllegalStateException("Tenant " + name + " was removed");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package dictionary;
+
+/**
+ * Snapshot of the counters and quota usage of one {@link TenantRegistry.Tenant}.
+ */
+public class TenantStats {
+    private final String name;
+    private final int entries;
+    private final long offHeapBytes;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long searches;
+    private final long hits;
+    private final long inserts;
+    private final long deletes;
+    private final long quotaRejections;
+
+    TenantStats(String name, int entries, long offHeapBytes, int maxEntries, long maxBytes, long searches,
+            long hits, long inserts, long deletes, long quotaRejections) {
+        this.name = name;
+        this.entries = entries;
+        this.offHeapBytes = offHeapBytes;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.searches = searches;
+        this.hits = hits;
+        this.inserts = inserts;
+        this.deletes = deletes;
+        this.quotaRejections = quotaRejections;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return bytes of the shared store taken by the tenant's nodes and descriptor
+     */
+    public long getOffHeapBytes() {
+        return offHeapBytes;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getSearches() {
+        return searches;
+    }
+
+    /**
+     * @return searches that found their word
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return successful inserts
+     */
+    public long getInserts() {
+        return inserts;
+    }
+
+    /**
+     * @return successful deletes
+     */
+    public long getDeletes() {
+        return deletes;
+    }
+
+    /**
+     * @return inserts refused because they would exceed a quota
+     */
+    public long getQuotaRejections() {
+        return quotaRejections;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: entries=%d/%d, bytes=%d/%d, searches=%d, hits=%d, inserts=%d, deletes=%d, "
+                + "quotaRejections=%d", name, entries, maxEntries, offHeapBytes, maxBytes, searches, hits, inserts,
+                deletes, quotaRejections);
+    }
+}
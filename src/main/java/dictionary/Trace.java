@@ -0,0 +1,172 @@
+package dictionary;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Operation trace recorded by {@link TraceRecorder}, loaded into memory for
+ * {@link TraceReplayer}.
+ * <p>
+ * File format: magic, version, the words stored when recording started, then one
+ * record per operation: a flag byte (operation and result), the time since the
+ * previous record in microseconds and the word. Words are numbered in order of
+ * their first appearance, later occurrences only store the number. Counts and
+ * numbers are unsigned varints, times unsigned varlongs, which read the same as
+ * varints below 2^31. A trace cut off in the middle of a record,
+ * e.g. by a killed server, is read up to the last complete record.
+ */
+public class Trace {
+    public static final int INSERT = 0;
+    public static final int DELETE = 1;
+    public static final int SEARCH = 2;
+
+    static final int MAGIC = 0x54524345; // "TRCE"
+    static final int VERSION = 1;
+    static final int OPERATION_MASK = 3;
+    // the operation returned true
+    static final int RESULT = 4;
+
+    private final List<String> snapshot;
+    private final byte[] flags;
+    private final String[] words;
+    private final long[] timesNanos;
+
+    private Trace(List<String> snapshot, byte[] flags, String[] words, long[] timesNanos) {
+        this.snapshot = snapshot;
+        this.flags = flags;
+        this.words = words;
+        this.timesNanos = timesNanos;
+    }
+
+    public static Trace read(String filePath) throws IOException {
+        try (InputStream in = Files.newInputStream(Path.of(filePath))) {
+            return read(in);
+        }
+    }
+
+    public static Trace read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a trace file");
+        int version = in.readUnsignedByte();
+        if (version != VERSION)
+            throw new IOException("Unsupported trace file version " + version);
+        int snapshotSize = readVarInt(in);
+        List<String> snapshot = new ArrayList<>(snapshotSize);
+        for (int i = 0; i < snapshotSize; i++)
+            snapshot.add(readWord(in));
+
+        List<String> dictionary = new ArrayList<>();
+        int count = 0;
+        byte[] flags = new byte[1024];
+        String[] words = new String[1024];
+        long[] timesNanos = new long[1024];
+        long time = 0;
+        while (true) {
+            int flag = in.read();
+            if (flag < 0)
+                break;
+            String word;
+            try {
+                time += readVarLong(in) * 1_000L;
+                int id = readVarInt(in);
+                if (id == 0) {
+                    word = readWord(in);
+                    dictionary.add(word);
+                } else if (id <= dictionary.size()) {
+                    word = dictionary.get(id - 1);
+                } else {
+                    throw new IOException("Corrupt trace: unknown word number " + id);
+                }
+            } catch (EOFException e) {
+                break;
+            }
+            if ((flag & OPERATION_MASK) > SEARCH)
+                throw new IOException("Corrupt trace: unknown operation " + (flag & OPERATION_MASK));
+            if (count == flags.length) {
+                flags = Arrays.copyOf(flags, count * 2);
+                words = Arrays.copyOf(words, count * 2);
+                timesNanos = Arrays.copyOf(timesNanos, count * 2);
+            }
+            flags[count] = (byte) flag;
+            words[count] = word;
+            timesNanos[count] = time;
+            count++;
+        }
+        return new Trace(snapshot, Arrays.copyOf(flags, count), Arrays.copyOf(words, count),
+                Arrays.copyOf(timesNanos, count));
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if (b < 0x80)
+                return value;
+        }
+        throw new IOException("Corrupt trace: varint too long");
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b < 0x80)
+                return value;
+        }
+        throw new IOException("Corrupt trace: varlong too long");
+    }
+
+    private static String readWord(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the words stored when recording started, in ascending order
+     */
+    public List<String> getSnapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        return flags.length;
+    }
+
+    /**
+     * @return {@link #INSERT}, {@link #DELETE} or {@link #SEARCH}
+     */
+    public int getOperation(int index) {
+        return flags[index] & OPERATION_MASK;
+    }
+
+    public String getWord(int index) {
+        return words[index];
+    }
+
+    /**
+     * @return what the operation returned while recording
+     */
+    public boolean getResult(int index) {
+        return (flags[index] & RESULT) != 0;
+    }
+
+    /**
+     * @return time since recording started, in microsecond resolution
+     */
+    public long getTimeNanos(int index) {
+        return timesNanos[index];
+    }
+}
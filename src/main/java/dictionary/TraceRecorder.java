@@ -0,0 +1,103 @@
+package dictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Writes the operations of a dictionary to a trace file, see {@link Trace} for the
+ * format. Recording is synchronized, so concurrent searches may share a recorder.
+ */
+public class TraceRecorder implements Closeable {
+    private final DataOutputStream out;
+    // word => number of its first record, starting at 1
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private long lastMicros;
+    private long records;
+
+    /**
+     * @param snapshot words stored when recording starts, in ascending order
+     */
+    public TraceRecorder(OutputStream stream, Collection<String> snapshot) throws IOException {
+        this(stream, snapshot, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of {@link System#nanoTime()} readings
+     */
+    TraceRecorder(OutputStream stream, Collection<String> snapshot, LongSupplier nanoClock) throws IOException {
+        this.nanoClock = nanoClock;
+        out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.writeInt(Trace.MAGIC);
+        out.writeByte(Trace.VERSION);
+        writeVarInt(snapshot.size());
+        for (String word : snapshot)
+            writeWord(word);
+        startNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * @param operation {@link Trace#INSERT}, {@link Trace#DELETE} or {@link Trace#SEARCH}
+     * @param result    what the operation returned
+     */
+    public synchronized void record(int operation, String word, boolean result) {
+        long micros = (nanoClock.getAsLong() - startNanos) / 1_000;
+        try {
+            out.writeByte(operation | (result ? Trace.RESULT : 0));
+            // a varlong, so a long idle gap keeps replay on schedule
+            writeVarLong(micros - lastMicros);
+            Integer id = ids.putIfAbsent(word, ids.size() + 1);
+            if (id == null) {
+                out.writeByte(0);
+                writeWord(word);
+            } else {
+                writeVarInt(id);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastMicros = micros;
+        records++;
+    }
+
+    public synchronized long getRecordCount() {
+        return records;
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private void writeWord(String word) throws IOException {
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,224 @@
+package dictionary;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import trees.ISelfBalancingBST;
+
+/**
+ * Replays a {@link Trace} against a tree and measures throughput, latency
+ * percentiles, allocations and the final tree shape.
+ * <p>
+ * The tree is first filled with the trace's snapshot in a fixed pseudo-random
+ * order, untimed. Operation i then runs on thread {@code i % threads}; with more than
+ * one thread the tree is guarded by a read-write lock, searches sharing the read lock
+ * unless the tree restructures on search. With a speed-up each operation is started
+ * at its recorded time divided by the speed-up and its latency is measured from that
+ * scheduled time, so a stall also delays the operations queued behind it. Without
+ * one the operations run back to back and the latency is the service time.
+ */
+public class TraceReplayer {
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    // shorter waits are spun, parking overshoots by tens of microseconds
+    private static final long SPIN_NANOS = 100_000;
+
+    private final Trace trace;
+
+    public static class Report {
+        private final int operations;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+        private final long allocatedBytes;
+        private final long mismatches;
+        private final int height;
+        private final int size;
+
+        Report(int operations, long elapsedNanos, long[] sortedLatencies, long allocatedBytes, long mismatches,
+                int height, int size) {
+            this.operations = operations;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = sortedLatencies;
+            this.allocatedBytes = allocatedBytes;
+            this.mismatches = mismatches;
+            this.height = height;
+            this.size = size;
+        }
+
+        public int getOperations() {
+            return operations;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : operations * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @param quantile in (0, 1], e.g. 0.99
+         */
+        public long getLatencyNanos(double quantile) {
+            if (sortedLatencies.length == 0)
+                return 0;
+            int index = (int) Math.ceil(quantile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+        }
+
+        /**
+         * @return bytes allocated by the replaying threads, or -1 if the JVM cannot tell
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * @return operations whose result differs from the recorded one; only expected
+         *         to be 0 for single-threaded replays
+         */
+        public long getMismatches() {
+            return mismatches;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d ops in %,d ms: %.2f Mops/s, p50 %.1f us, p99 %.1f us, p999 %.1f us, "
+                    + "%s allocated, height %d, size %,d, %,d mismatches", operations, elapsedNanos / 1_000_000,
+                    getThroughput() / 1e6, getLatencyNanos(0.5) / 1e3, getLatencyNanos(0.99) / 1e3,
+                    getLatencyNanos(0.999) / 1e3,
+                    allocatedBytes < 0 ? "unknown" : String.format("%,d KB", allocatedBytes / 1024), height, size,
+                    mismatches);
+        }
+    }
+
+    public TraceReplayer(Trace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * @param tree    an empty tree
+     * @param threads number of replaying threads
+     * @param speedUp factor the recorded timing is compressed by, or 0 to replay as fast
+     *                as possible
+     */
+    public Report replay(ISelfBalancingBST<String> tree, int threads, double speedUp) throws InterruptedException {
+        if (threads < 1)
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        if (speedUp < 0)
+            throw new IllegalArgumentException("Speed-up must not be negative: " + speedUp);
+        List<String> snapshot = new ArrayList<>(trace.getSnapshot());
+        Collections.shuffle(snapshot, new Random(42));
+        for (String word : snapshot)
+            tree.insert(word);
+
+        ReentrantReadWriteLock lock = threads > 1 ? new ReentrantReadWriteLock() : null;
+        Lock searchLock = lock == null ? null
+                : EnglishDictionary.isSearchReadOnly(tree) ? lock.readLock() : lock.writeLock();
+        Lock writeLock = lock == null ? null : lock.writeLock();
+
+        int n = trace.size();
+        long[][] latencies = new long[threads][];
+        AtomicLong allocated = new AtomicLong(THREADS == null ? -1 : 0);
+        AtomicLong mismatches = new AtomicLong();
+        List<Thread> workers = new ArrayList<>(threads);
+        long startNanos = System.nanoTime() + 1_000_000;
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            long[] own = new long[(n - t + threads - 1) / threads];
+            latencies[t] = own;
+            workers.add(new Thread(() -> {
+                long allocatedBefore = THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+                long ownMismatches = 0;
+                int k = 0;
+                waitUntil(startNanos);
+                for (int i = first; i < n; i += threads) {
+                    long begin;
+                    if (speedUp > 0) {
+                        begin = startNanos + (long) (trace.getTimeNanos(i) / speedUp);
+                        waitUntil(begin);
+                    } else {
+                        begin = System.nanoTime();
+                    }
+                    int operation = trace.getOperation(i);
+                    Lock operationLock = operation == Trace.SEARCH ? searchLock : writeLock;
+                    if (operationLock != null)
+                        operationLock.lock();
+                    boolean result;
+                    try {
+                        result = apply(tree, operation, trace.getWord(i));
+                    } finally {
+                        if (operationLock != null)
+                            operationLock.unlock();
+                    }
+                    own[k++] = System.nanoTime() - begin;
+                    if (result != trace.getResult(i))
+                        ownMismatches++;
+                }
+                if (THREADS != null)
+                    allocated.addAndGet(THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore);
+                mismatches.addAndGet(ownMismatches);
+            }, "trace-replay-" + t));
+        }
+        for (Thread worker : workers)
+            worker.start();
+        for (Thread worker : workers)
+            worker.join();
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        long[] all = new long[n];
+        int offset = 0;
+        for (long[] own : latencies) {
+            System.arraycopy(own, 0, all, offset, own.length);
+            offset += own.length;
+        }
+        Arrays.sort(all);
+        return new Report(n, elapsedNanos, all, allocated.get(), mismatches.get(), tree.getHeight(), tree.getSize());
+    }
+
+    private static boolean apply(ISelfBalancingBST<String> tree, int operation, String word) {
+        switch (operation) {
+            case Trace.INSERT:
+                return tree.insert(word);
+            case Trace.DELETE:
+                return tree.delete(word);
+            default:
+                return tree.search(word);
+        }
+    }
+
+    private static void waitUntil(long deadline) {
+        long delay;
+        while ((delay = deadline - System.nanoTime()) > 0) {
+            if (delay > SPIN_NANOS)
+                LockSupport.parkNanos(delay - SPIN_NANOS);
+            else
+                Thread.onSpinWait();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+}
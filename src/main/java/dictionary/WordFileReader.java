@@ -0,0 +1,81 @@
+package dictionary;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Reads a UTF-8 word file with one word per line through memory-mapped chunks.
+ * Lines are split and trimmed by scanning bytes in place, so the only allocation
+ * per word is the {@code String} handed to the caller; blank lines cost nothing.
+ */
+final class WordFileReader {
+    private static final int CHUNK_SIZE = 64 << 20;
+
+    private WordFileReader() {
+    }
+
+    /**
+     * Passes every non-blank, trimmed line of the file to the action, in file order.
+     */
+    static void forEachWord(String filePath, Consumer<String> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            forEachWord(channel, action);
+        }
+    }
+
+    static void forEachWord(FileChannel channel, Consumer<String> action) throws IOException {
+        long fileSize = channel.size();
+        long position = 0;
+        int chunkSize = CHUNK_SIZE;
+        byte[] scratch = new byte[256];
+
+        while (position < fileSize) {
+            long length = Math.min(chunkSize, fileSize - position);
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            boolean lastChunk = position + length == fileSize;
+            int limit = (int) length;
+
+            int lineStart = 0;
+            for (int i = 0; i < limit; i++) {
+                byte b = chunk.get(i);
+                if (b == '\n' || b == '\r') {
+                    scratch = emit(chunk, lineStart, i, scratch, action);
+                    lineStart = i + 1;
+                }
+            }
+
+            if (lastChunk) {
+                emit(chunk, lineStart, limit, scratch, action);
+                position = fileSize;
+            } else if (lineStart == 0) {
+                // a single line longer than the chunk => map a bigger window
+                chunkSize = chunkSize <= Integer.MAX_VALUE / 2 ? chunkSize * 2 : Integer.MAX_VALUE;
+            } else {
+                // continue from the start of the unterminated line
+                position += lineStart;
+            }
+        }
+    }
+
+    private static byte[] emit(MappedByteBuffer chunk, int start, int end, byte[] scratch, Consumer<String> action) {
+        // same whitespace rule as String.trim(); UTF-8 continuation bytes are never <= ' '
+        while (start < end && (chunk.get(start) & 0xFF) <= ' ')
+            start++;
+        while (end > start && (chunk.get(end - 1) & 0xFF) <= ' ')
+            end--;
+        int length = end - start;
+        if (length == 0)
+            return scratch;
+
+        if (length > scratch.length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        chunk.get(start, scratch, 0, length);
+        action.accept(new String(scratch, 0, length, StandardCharsets.UTF_8));
+        return scratch;
+    }
+}
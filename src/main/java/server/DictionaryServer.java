@@ -0,0 +1,297 @@
+package server;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import dictionary.AsyncDictionary;
+import dictionary.ChangeFeed;
+import dictionary.ChangeFrame;
+import dictionary.DictionaryReplica;
+import dictionary.EnglishDictionary;
+import dictionary.LookupStats;
+
+/**
+ * Serves a dictionary to many clients over a line protocol, one virtual thread
+ * per connection. Every request is one line and gets exactly one response line,
+ * in request order:
+ *
+ * <pre>
+ * INSERT word        => 1 | 0
+ * DELETE word        => 1 | 0
+ * SEARCH word        => 1 | 0
+ * SUGGEST word       => up to 10 words within edit distance 2, closest first
+ * BATCH-INSERT file  => inserted duplicates
+ * BATCH-DELETE file  => deleted notFound
+ * SIZE               => size
+ * HEIGHT             => height
+ * STATS              => lookup filter counters, or disabled
+ * SUBSCRIBE sequence => OK, then change frames until the connection closes
+ * QUIT               => closes the connection
+ * </pre>
+ *
+ * Errors are answered with {@code ERR message}. Batch files are read on the server
+ * side, which is why the server only listens on the loopback interface.
+ * <p>
+ * {@code SUBSCRIBE} needs a dictionary with a change feed and turns the connection
+ * into a stream of binary {@link ChangeFrame}s for a {@link DictionaryReplica}: the
+ * changes after the given sequence number, preceded by a snapshot if those are no
+ * longer retained. A fresh replica sends {@code SUBSCRIBE -1} to start from a
+ * snapshot; a subscriber that falls behind gets a new one.
+ * <p>
+ * Clients may pipeline requests. Mutations are handed to the single writer of an
+ * {@link AsyncDictionary} without waiting, so consecutive writes from all clients
+ * are applied in batches; responses are flushed once the client has no more
+ * requests in flight.
+ */
+public class DictionaryServer implements AutoCloseable {
+    // changes per frame sent to a subscriber
+    private static final int FRAME_CHANGES = 4096;
+    private static final int SUGGEST_DISTANCE = 2;
+    private static final int SUGGEST_LIMIT = 10;
+
+    private final AsyncDictionary dictionary;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private Thread acceptor;
+
+    /**
+     * @param port port on the loopback interface, 0 for any free port
+     */
+    public DictionaryServer(EnglishDictionary dictionary, int port) throws IOException {
+        this.dictionary = new AsyncDictionary(dictionary);
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts accepting connections in the background.
+     */
+    public void start() {
+        acceptor = Thread.ofVirtual().name("dictionary-server").start(this::acceptLoop);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread.ofVirtual().name("dictionary-connection").start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed())
+                    System.err.println("Error accepting connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16)) {
+            Deque<CompletableFuture<String>> pending = new ArrayDeque<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!handle(line, pending, out, socket.getOutputStream()))
+                    break;
+                if (!in.ready()) {
+                    // nothing more in flight => answer everything we have
+                    writePending(pending, out);
+                    out.flush();
+                }
+            }
+            writePending(pending, out);
+        } catch (IOException e) {
+            // client went away
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * @return false if the client asked to close the connection
+     */
+    private boolean handle(String line, Deque<CompletableFuture<String>> pending, Writer out, OutputStream stream)
+            throws IOException {
+        int space = line.indexOf(' ');
+        String command = space < 0 ? line.trim() : line.substring(0, space);
+        String arg = space < 0 ? "" : line.substring(space + 1).trim();
+
+        try {
+            if (command.equalsIgnoreCase("INSERT")) {
+                pending.add(dictionary.insertAsync(requireArg(arg)).thenApply(DictionaryServer::flag));
+            } else if (command.equalsIgnoreCase("DELETE")) {
+                pending.add(dictionary.deleteAsync(requireArg(arg)).thenApply(DictionaryServer::flag));
+            } else if (command.equalsIgnoreCase("BATCH-INSERT")) {
+                pending.add(dictionary.batchInsertAsync(requireArg(arg)).thenApply(DictionaryServer::counts));
+            } else if (command.equalsIgnoreCase("BATCH-DELETE")) {
+                pending.add(dictionary.batchDeleteAsync(requireArg(arg)).thenApply(DictionaryServer::counts));
+            } else if (command.equalsIgnoreCase("SUBSCRIBE")) {
+                long after = Long.parseLong(requireArg(arg));
+                ChangeFeed feed = dictionary.getChangeFeed();
+                if (feed == null)
+                    throw new IllegalStateException("The dictionary has no change feed");
+                writePending(pending, out);
+                out.write("OK\n");
+                out.flush();
+                streamChanges(feed, after, stream);
+                return false;
+            } else if (command.equalsIgnoreCase("QUIT")) {
+                return false;
+            } else {
+                // reads must see this client's earlier writes
+                writePending(pending, out);
+                out.write(read(command, arg));
+                out.write('\n');
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            writePending(pending, out);
+            writeError(out, e);
+        }
+        return true;
+    }
+
+    /**
+     * Sends the changes after the given sequence number until the server is closed or
+     * the subscriber goes away, and a snapshot first whenever they are not retained.
+     */
+    private void streamChanges(ChangeFeed feed, long after, OutputStream stream) throws IOException {
+        OutputStream out = new BufferedOutputStream(stream, 1 << 16);
+        ChangeFeed.Subscription subscription = null;
+        try {
+            while (!serverSocket.isClosed()) {
+                if (subscription == null) {
+                    try {
+                        subscription = feed.subscribe(after);
+                    } catch (IllegalArgumentException e) {
+                        ChangeFrame snapshot = dictionary.changeSnapshot();
+                        snapshot.writeTo(out);
+                        after = snapshot.getLastSequence();
+                    }
+                    continue;
+                }
+                ChangeFrame frame;
+                try {
+                    frame = subscription.take(FRAME_CHANGES, 1, TimeUnit.SECONDS);
+                } catch (IllegalStateException e) {
+                    // fell behind, resync from a snapshot
+                    subscription.close();
+                    subscription = null;
+                    after = -1;
+                    continue;
+                }
+                if (frame != null)
+                    frame.writeTo(out);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (subscription != null)
+                subscription.close();
+        }
+    }
+
+    private String read(String command, String arg) {
+        if (command.equalsIgnoreCase("SEARCH"))
+            return flag(dictionary.search(requireArg(arg)));
+        if (command.equalsIgnoreCase("SUGGEST"))
+            return String.join(" ", dictionary.suggest(requireArg(arg), SUGGEST_DISTANCE, SUGGEST_LIMIT));
+        if (command.equalsIgnoreCase("SIZE"))
+            return Integer.toString(dictionary.getSize());
+        if (command.equalsIgnoreCase("HEIGHT"))
+            return Integer.toString(dictionary.getHeight());
+        if (command.equalsIgnoreCase("STATS")) {
+            LookupStats stats = dictionary.getLookupStats();
+            return stats == null ? "disabled" : stats.toString();
+        }
+        throw new IllegalArgumentException("Unknown command: " + command);
+    }
+
+    private static String requireArg(String arg) {
+        if (arg.isEmpty())
+            throw new IllegalArgumentException("Missing argument");
+        return arg;
+    }
+
+    private static String flag(boolean value) {
+        return value ? "1" : "0";
+    }
+
+    private static String counts(int[] result) {
+        return result[0] + " " + result[1];
+    }
+
+    private static void writePending(Deque<CompletableFuture<String>> pending, Writer out) throws IOException {
+        CompletableFuture<String> response;
+        while ((response = pending.poll()) != null) {
+            try {
+                out.write(response.join());
+                out.write('\n');
+            } catch (RuntimeException e) {
+                writeError(out, e.getCause() != null ? e.getCause() : e);
+            }
+        }
+    }
+
+    private static void writeError(Writer out, Throwable e) throws IOException {
+        String message = String.valueOf(e.getMessage()).replace('\n', ' ');
+        out.write("ERR " + message + '\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : connections)
+            socket.close();
+        if (acceptor != null) {
+            try {
+                acceptor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        dictionary.close();
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     * Usage: {@code DictionaryServer [AVL|Red-Black|Adaptive|Splay|Treap|WAVL|MVCC] [port] [feedCapacity]
+     * [expectedWords hotKeyCapacity]}; a feed capacity of 0 disables the change feed, the last
+     * two enable the lookup filter.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String type = args.length > 0 ? args[0] : "AVL";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7070;
+        EnglishDictionary dictionary = args.length > 4
+                ? new EnglishDictionary(type, Integer.parseInt(args[3]), Integer.parseInt(args[4]))
+                : new EnglishDictionary(type);
+        if (args.length > 2 && Integer.parseInt(args[2]) > 0)
+            dictionary.enableChangeFeed(Integer.parseInt(args[2]), false);
+        DictionaryServer server = new DictionaryServer(dictionary, port);
+        server.start();
+        System.out.println("Serving " + type + " dictionary on localhost:" + server.getPort());
+        Thread.currentThread().join();
+    }
+}
@@ -1,13 +1,29 @@
 package trees;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
 public class AVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
+    // compacting tiny trees is not worth a rebuild
+    private static final int MIN_COMPACTION_TOMBSTONES = 64;
+
     private class Node {
         T key;
+        // first chars of a string key, see KeyPrefix
+        long prefix;
         int height;
+        // tombstone left by a lazy delete, the node still takes part in the structure
+        boolean deleted;
         Node left, right;
 
         public Node(T key) {
             this.key = key;
+            this.prefix = KeyPrefix.of(key);
             this.height = 1;
             this.left = null;
             this.right = null;
@@ -16,12 +32,41 @@ public class AVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
 
     private Node root;
     private int size;
+    private long rotations;
+    // lazy deletion, disabled while 0
+    private double maxTombstoneFraction;
+    private int tombstones;
+    // read-only copy built by freeze(), dropped by the next write
+    private EytzingerIndex<T> frozen;
 
     public AVLTree() {
         this.root = null;
         this.size = 0;
     }
 
+    /**
+     * Builds a balanced tree from distinct keys in ascending order in O(n),
+     * without any comparisons or rotations.
+     */
+    public static <T extends Comparable<T>> AVLTree<T> fromSorted(List<T> sortedKeys) {
+        AVLTree<T> tree = new AVLTree<>();
+        tree.root = tree.build(sortedKeys, 0, sortedKeys.size() - 1);
+        tree.size = sortedKeys.size();
+        return tree;
+    }
+
+    private Node build(List<T> keys, int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        Node node = new Node(keys.get(mid));
+        node.left = build(keys, lo, mid - 1);
+        node.right = build(keys, mid + 1, hi);
+        updateHeight(node);
+        return node;
+    }
+
     private int height(Node node) {
         return node == null ? 0 : node.height;
     }
@@ -41,6 +86,7 @@ public class AVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
         node.right = temp;
         updateHeight(node);
         updateHeight(R);
+        rotations++;
         return R;
     }
 
@@ -51,6 +97,7 @@ public class AVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
         node.left = temp;
         updateHeight(node);
         updateHeight(L);
+        rotations++;
         return L;
     }
 
@@ -64,25 +111,35 @@ public class AVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
 
     @Override
     public boolean insert(T key) {
-        if (search(key)) {
-            return false;
+        Node node = find(key);
+        if (node != null) {
+            if (!node.deleted) {
+                return false;
+            }
+            // revive the tombstone
+            frozen = null;
+            node.deleted = false;
+            tombstones--;
+            size++;
+            return true;
         }
-        root = insert(root, key);
+        frozen = null;
+        root = insert(root, key, KeyPrefix.of(key));
         size++;
         return true;
     }
 
-    public Node insert(Node currNode, T key) {
+    private Node insert(Node currNode, T key, long prefix) {
         // Normal BST insertion
         if (currNode == null) {
             return new Node(key);
         }
 
-        int cmp = key.compareTo(currNode.key);
+        int cmp = KeyPrefix.compare(key, prefix, currNode.key, currNode.prefix);
         if (cmp < 0) {
-            currNode.left = insert(currNode.left, key);
+            currNode.left = insert(currNode.left, key, prefix);
         } else {
-            currNode.right = insert(currNode.right, key);
+            currNode.right = insert(currNode.right, key, prefix);
         }
 
         updateHeight(currNode);
@@ -112,9 +169,13 @@ public class AVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
 
     @Override
     public boolean delete(T key) {
+        if (maxTombstoneFraction > 0) {
+            return markDeleted(key);
+        }
         if (!search(key)) {
             return false;
         }
+        frozen = null;
         root = delete(root, key);
         size--;
         return true;
@@ -141,6 +202,8 @@ public class AVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
             } else {
                 Node temp = getMinNode(currNode.right);
                 currNode.key = temp.key;
+                currNode.prefix = temp.prefix;
+                currNode.deleted = temp.deleted;
                 currNode.right = delete(currNode.right, temp.key);
             }
         }
@@ -173,17 +236,325 @@ public class AVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
         return currNode;
     }
 
-    @Override
-    public boolean search(T key) {
+    private boolean markDeleted(T key) {
+        Node node = find(key);
+        if (node == null || node.deleted) {
+            return false;
+        }
+        frozen = null;
+        node.deleted = true;
+        tombstones++;
+        size--;
+        compactIfNeeded();
+        return true;
+    }
+
+    private void compactIfNeeded() {
+        if (tombstones >= MIN_COMPACTION_TOMBSTONES && tombstones > maxTombstoneFraction * (size + tombstones)) {
+            compact();
+        }
+    }
+
+    /**
+     * Inserts distinct keys in ascending order in one pass. The keys are split around
+     * each node on the way down and hang below the tree as balanced subtrees; on the
+     * way up heights are fixed, and a subtree whose children's heights differ by more
+     * than one is rebuilt from its own nodes. No rotations are performed.
+     *
+     * @return number of keys inserted, the others were already present
+     */
+    public int bulkInsert(List<T> sortedKeys) {
+        int before = size;
+        root = bulkInsert(root, sortedKeys, 0, sortedKeys.size() - 1);
+        if (size != before) {
+            frozen = null;
+        }
+        return size - before;
+    }
+
+    private Node bulkInsert(Node node, List<T> keys, int lo, int hi) {
+        if (lo > hi) {
+            return node;
+        }
+        if (node == null) {
+            size += hi - lo + 1;
+            return build(keys, lo, hi);
+        }
+        int split = lowerBound(keys, lo, hi, node.key);
+        boolean present = split <= hi && keys.get(split).compareTo(node.key) == 0;
+        node.left = bulkInsert(node.left, keys, lo, split - 1);
+        node.right = bulkInsert(node.right, keys, present ? split + 1 : split, hi);
+        if (present && node.deleted) {
+            // revive the tombstone
+            node.deleted = false;
+            tombstones--;
+            size++;
+        }
+        return rebalance(node);
+    }
+
+    /**
+     * Deletes distinct keys in ascending order in one pass, like {@link #bulkInsert}.
+     * With lazy deletion the keys are only tombstoned.
+     *
+     * @return number of keys deleted, the others were absent
+     */
+    public int bulkDelete(List<T> sortedKeys) {
+        int before = size;
+        root = bulkDelete(root, sortedKeys, 0, sortedKeys.size() - 1);
+        if (size != before) {
+            frozen = null;
+            compactIfNeeded();
+        }
+        return before - size;
+    }
+
+    private Node bulkDelete(Node node, List<T> keys, int lo, int hi) {
+        if (node == null || lo > hi) {
+            return node;
+        }
+        int split = lowerBound(keys, lo, hi, node.key);
+        boolean present = split <= hi && keys.get(split).compareTo(node.key) == 0;
+        node.left = bulkDelete(node.left, keys, lo, split - 1);
+        node.right = bulkDelete(node.right, keys, present ? split + 1 : split, hi);
+        if (present && !node.deleted) {
+            size--;
+            if (maxTombstoneFraction > 0) {
+                node.deleted = true;
+                tombstones++;
+            } else if (node.left == null) {
+                return node.right;
+            } else if (node.right == null) {
+                return node.left;
+            } else {
+                Node successor = getMinNode(node.right);
+                node.key = successor.key;
+                node.prefix = successor.prefix;
+                node.deleted = successor.deleted;
+                node.right = delete(node.right, successor.key);
+            }
+        }
+        return rebalance(node);
+    }
+
+    /**
+     * @return index of the first key in [lo, hi] not less than key, or hi + 1
+     */
+    private int lowerBound(List<T> keys, int lo, int hi, T key) {
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys.get(mid).compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Fixes the height of a node over two valid AVL subtrees, or rebuilds the subtree
+     * from its own nodes if their heights differ by more than one.
+     */
+    private Node rebalance(Node node) {
+        updateHeight(node);
+        if (Math.abs(getBalance(node)) <= 1) {
+            return node;
+        }
+        List<Node> nodes = new ArrayList<>();
+        collect(node, nodes);
+        return relink(nodes, 0, nodes.size() - 1);
+    }
+
+    private void collect(Node node, List<Node> nodes) {
+        while (node != null) {
+            collect(node.left, nodes);
+            nodes.add(node);
+            node = node.right;
+        }
+    }
+
+    private Node relink(List<Node> nodes, int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        Node node = nodes.get(mid);
+        node.left = relink(nodes, lo, mid - 1);
+        node.right = relink(nodes, mid + 1, hi);
+        updateHeight(node);
+        return node;
+    }
+
+    /**
+     * Enables lazy deletion: {@link #delete} only marks the node as deleted in a
+     * single descent, without rotations. Once tombstones exceed the given fraction of
+     * all nodes the tree is compacted, i.e. rebuilt from the live keys in O(n).
+     *
+     * @param maxTombstoneFraction fraction in (0, 1), or 0 to compact and go back to eager deletion
+     */
+    public void setLazyDelete(double maxTombstoneFraction) {
+        if (maxTombstoneFraction < 0 || maxTombstoneFraction >= 1) {
+            throw new IllegalArgumentException("Tombstone fraction must be in [0, 1): " + maxTombstoneFraction);
+        }
+        if (maxTombstoneFraction == 0) {
+            compact();
+        }
+        this.maxTombstoneFraction = maxTombstoneFraction;
+    }
+
+    /**
+     * Removes all tombstones by rebuilding the tree from the live keys in O(n).
+     */
+    public void compact() {
+        if (tombstones == 0) {
+            return;
+        }
+        List<T> live = new ArrayList<>(size);
+        inOrder(live::add);
+        root = build(live, 0, live.size() - 1);
+        tombstones = 0;
+    }
+
+    /**
+     * Copies the live keys into an {@link EytzingerIndex} that serves all searches
+     * until the next successful insert or delete, which thaws the tree again. The
+     * nodes stay in place, so thawing costs nothing.
+     */
+    public void freeze() {
+        if (frozen != null) {
+            return;
+        }
+        List<T> live = new ArrayList<>(size);
+        inOrder(live::add);
+        frozen = EytzingerIndex.fromSorted(live);
+    }
+
+    public boolean isFrozen() {
+        return frozen != null;
+    }
+
+    public int getTombstoneCount() {
+        return tombstones;
+    }
+
+    /**
+     * @return rotations performed so far, a double rotation counting as two
+     */
+    public long getRotationCount() {
+        return rotations;
+    }
+
+    /**
+     * Writes the exact tree shape in pre-order: per node a flag byte, its height and
+     * the length-prefixed key. Tombstones and the lazy deletion setting are kept.
+     * {@link #readFrom} rebuilds the tree without any compares or rotations.
+     */
+    public void writeTo(OutputStream out, KeyCodec<T> codec) throws IOException {
+        ShapeOutput output = new ShapeOutput(out);
+        output.writeHeader(ShapeOutput.AVL, size, tombstones, maxTombstoneFraction);
+        writeTo(root, output, codec);
+        output.flush();
+    }
+
+    private void writeTo(Node node, ShapeOutput output, KeyCodec<T> codec) throws IOException {
+        while (node != null) {
+            int flags = (node.left != null ? ShapeOutput.HAS_LEFT : 0) | (node.right != null ? ShapeOutput.HAS_RIGHT : 0)
+                    | (node.deleted ? ShapeOutput.DELETED : 0);
+            output.writeByte(flags);
+            output.writeByte(node.height);
+            output.writeKey(node.key, codec);
+            writeTo(node.left, output, codec);
+            node = node.right;
+        }
+    }
+
+    /**
+     * Loads a tree written by {@link #writeTo}. The shape is trusted as is, call
+     * {@link #validate()} to check files from untrusted sources.
+     *
+     * @throws IOException if the stream is not an AVL tree shape or is truncated
+     */
+    public static <T extends Comparable<T>> AVLTree<T> readFrom(InputStream in, KeyCodec<T> codec)
+            throws IOException {
+        ShapeInput input = new ShapeInput(in);
+        input.readHeader(ShapeOutput.AVL);
+        AVLTree<T> tree = new AVLTree<>();
+        // [0] live nodes, [1] tombstones
+        int[] count = new int[2];
+        if (input.getSize() + input.getTombstones() > 0)
+            tree.root = tree.readNode(input, codec, 1, count);
+        input.finish(count[0], count[1]);
+        tree.size = input.getSize();
+        tree.tombstones = input.getTombstones();
+        tree.maxTombstoneFraction = input.getMaxTombstoneFraction();
+        return tree;
+    }
+
+    private Node readNode(ShapeInput input, KeyCodec<T> codec, int depth, int[] count) throws IOException {
+        int flags = input.readNode(depth);
+        int height = input.readByte();
+        Node node = new Node(input.readKey(codec));
+        node.height = height;
+        node.deleted = (flags & ShapeOutput.DELETED) != 0;
+        count[node.deleted ? 1 : 0]++;
+        if ((flags & ShapeOutput.HAS_LEFT) != 0)
+            node.left = readNode(input, codec, depth + 1, count);
+        if ((flags & ShapeOutput.HAS_RIGHT) != 0)
+            node.right = readNode(input, codec, depth + 1, count);
+        return node;
+    }
+
+    /**
+     * Estimates the retained heap size of the tree with the running JVM's layout.
+     * Tombstoned nodes and their keys are included.
+     */
+    public MemoryFootprint memoryFootprint() {
+        return memoryFootprint(MemoryLayout.current());
+    }
+
+    public MemoryFootprint memoryFootprint(MemoryLayout layout) {
+        // key, left, right; long prefix, int height, boolean deleted. javac drops the unused outer instance
+        long nodeSize = layout.objectSize(3, 13);
+        // root, frozen; int size, long rotations, double maxTombstoneFraction, int tombstones
+        long treeSize = layout.objectSize(2, 24);
+        if (frozen != null) {
+            treeSize += frozen.memoryFootprint(layout);
+        }
+        int nodes = size + tombstones;
+        return new MemoryFootprint(size, nodes * nodeSize, 0, keyBytes(root, layout), treeSize);
+    }
+
+    private long keyBytes(Node node, MemoryLayout layout) {
+        long bytes = 0;
+        while (node != null) {
+            bytes += keyBytes(node.left, layout) + layout.keySize(node.key);
+            node = node.right;
+        }
+        return bytes;
+    }
+
+    private Node find(T key) {
+        long prefix = KeyPrefix.of(key);
         Node curr = root;
         while (curr != null) {
-            int cmp = key.compareTo(curr.key);
+            int cmp = KeyPrefix.compare(key, prefix, curr.key, curr.prefix);
             if (cmp == 0) {
-                return true;
+                return curr;
             }
             curr = cmp < 0 ? curr.left : curr.right;
         }
-        return false;
+        return null;
+    }
+
+    @Override
+    public boolean search(T key) {
+        EytzingerIndex<T> index = frozen;
+        if (index != null) {
+            return index.contains(key);
+        }
+        Node node = find(key);
+        return node != null && !node.deleted;
     }
 
     @Override
@@ -196,4 +567,77 @@ public class AVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
         return height(root);
     }
 
+    /**
+     * Checks the structural invariants in O(n): BST order, stored heights,
+     * balance factors within [-1, 1], and the size and tombstone counters.
+     *
+     * @throws IllegalStateException describing the first violation found
+     */
+    public void validate() {
+        // [0] live keys, [1] tombstones
+        int[] count = new int[2];
+        validate(root, null, null, count);
+        if (count[0] != size) {
+            throw new IllegalStateException("Size is " + size + " but the tree holds " + count[0] + " keys");
+        }
+        if (count[1] != tombstones) {
+            throw new IllegalStateException("Tombstone count is " + tombstones + " but the tree holds " + count[1]);
+        }
+    }
+
+    private int validate(Node node, T low, T high, int[] count) {
+        if (node == null) {
+            return 0;
+        }
+        if ((low != null && node.key.compareTo(low) <= 0) || (high != null && node.key.compareTo(high) >= 0)) {
+            throw new IllegalStateException("Key " + node.key + " out of order, expected within (" + low + ", " + high + ")");
+        }
+        count[node.deleted ? 1 : 0]++;
+        int leftHeight = validate(node.left, low, node.key, count);
+        int rightHeight = validate(node.right, node.key, high, count);
+        int height = 1 + Math.max(leftHeight, rightHeight);
+        if (node.height != height) {
+            throw new IllegalStateException("Node " + node.key + " stores height " + node.height + " but has height " + height);
+        }
+        if (Math.abs(leftHeight - rightHeight) > 1) {
+            throw new IllegalStateException("Node " + node.key + " has balance factor " + (leftHeight - rightHeight));
+        }
+        return height;
+    }
+
+    @Override
+    public void inOrder(Consumer<? super T> action) {
+        inOrder(root, action);
+    }
+
+    private void inOrder(Node node, Consumer<? super T> action) {
+        while (node != null) {
+            inOrder(node.left, action);
+            if (!node.deleted) {
+                action.accept(node.key);
+            }
+            node = node.right;
+        }
+    }
+
+    /**
+     * Passes every subtree's bounds, taken from its ancestors' keys, to skipRange.
+     */
+    @Override
+    public void inOrder(BiPredicate<? super T, ? super T> skipRange, Consumer<? super T> action) {
+        inOrder(root, null, null, skipRange, action);
+    }
+
+    private void inOrder(Node node, T low, T high, BiPredicate<? super T, ? super T> skipRange,
+            Consumer<? super T> action) {
+        while (node != null && !skipRange.test(low, high)) {
+            inOrder(node.left, low, node.key, skipRange, action);
+            if (!node.deleted) {
+                action.accept(node.key);
+            }
+            low = node.key;
+            node = node.right;
+        }
+    }
+
 }
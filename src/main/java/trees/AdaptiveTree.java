@@ -0,0 +1,226 @@
+package trees;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Tree that switches between {@link AVLTree} and {@link RedBlackTree} depending on
+ * the observed workload. AVL trees are shallower and win on read-heavy phases,
+ * red-black trees rebalance less and win on write-heavy ones.
+ * <p>
+ * Reads and writes are counted in sampling windows. When a window crosses one of
+ * the thresholds, the keys are copied in order and the other structure is built in
+ * O(n) on a background thread. Reads continue against the current tree during the
+ * migration; writes are applied to the current tree and replayed onto the new one
+ * before it is swapped in.
+ */
+public class AdaptiveTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
+    private static final int DEFAULT_WINDOW = 1 << 16;
+    private static final double DEFAULT_READ_HEAVY = 0.9;
+    private static final double DEFAULT_WRITE_HEAVY = 0.6;
+    private static final int DEFAULT_MIN_MIGRATION_SIZE = 1 << 12;
+    // reads look at the window once every SAMPLE_RATE calls on average
+    private static final int SAMPLE_RATE = 256;
+
+    private static class Write<T> {
+        final T key;
+        final boolean insert;
+
+        Write(T key, boolean insert) {
+            this.key = key;
+            this.insert = insert;
+        }
+    }
+
+    private final int window;
+    private final double readHeavy;
+    private final double writeHeavy;
+    private final int minMigrationSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    private volatile ISelfBalancingBST<T> tree;
+    // writes to replay onto the tree being built, null when no migration is running
+    private List<Write<T>> pendingWrites;
+    private volatile boolean migrating;
+    private volatile int migrations;
+    private int writesSinceCheck;
+
+    public AdaptiveTree() {
+        this(DEFAULT_WINDOW, DEFAULT_READ_HEAVY, DEFAULT_WRITE_HEAVY, DEFAULT_MIN_MIGRATION_SIZE);
+    }
+
+    /**
+     * @param window           number of operations per sampling window
+     * @param readHeavy        read fraction at or above which the AVL tree is used
+     * @param writeHeavy       read fraction at or below which the red-black tree is used
+     * @param minMigrationSize smallest tree worth migrating
+     */
+    public AdaptiveTree(int window, double readHeavy, double writeHeavy, int minMigrationSize) {
+        if (window <= 0)
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        if (writeHeavy >= readHeavy)
+            throw new IllegalArgumentException("Write-heavy threshold must be below read-heavy threshold");
+        this.window = window;
+        this.readHeavy = readHeavy;
+        this.writeHeavy = writeHeavy;
+        this.minMigrationSize = minMigrationSize;
+        this.tree = new RedBlackTree<>();
+    }
+
+    @Override
+    public boolean insert(T key) {
+        return write(key, true);
+    }
+
+    @Override
+    public boolean delete(T key) {
+        return write(key, false);
+    }
+
+    private boolean write(T key, boolean insert) {
+        boolean changed;
+        boolean check;
+        lock.writeLock().lock();
+        try {
+            changed = insert ? tree.insert(key) : tree.delete(key);
+            if (changed && pendingWrites != null)
+                pendingWrites.add(new Write<>(key, insert));
+            check = ++writesSinceCheck >= SAMPLE_RATE;
+            if (check)
+                writesSinceCheck = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        writes.increment();
+        if (check)
+            checkWorkload();
+        return changed;
+    }
+
+    @Override
+    public boolean search(T key) {
+        boolean found;
+        lock.readLock().lock();
+        try {
+            found = tree.search(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+        reads.increment();
+        if (ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0)
+            checkWorkload();
+        return found;
+    }
+
+    @Override
+    public int getSize() {
+        return tree.getSize();
+    }
+
+    @Override
+    public int getHeight() {
+        lock.readLock().lock();
+        try {
+            return tree.getHeight();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void inOrder(Consumer<? super T> action) {
+        lock.readLock().lock();
+        try {
+            tree.inOrder(action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return "AVL" or "Red-Black", the structure currently serving requests
+     */
+    public String getActiveType() {
+        return tree instanceof AVLTree ? "AVL" : "Red-Black";
+    }
+
+    public boolean isMigrating() {
+        return migrating;
+    }
+
+    /**
+     * @return number of completed migrations between the two structures
+     */
+    public int getMigrationCount() {
+        return migrations;
+    }
+
+    private void checkWorkload() {
+        long r = reads.sum();
+        long w = writes.sum();
+        if (r + w < window || migrating)
+            return;
+        reads.reset();
+        writes.reset();
+
+        double readRatio = (double) r / (r + w);
+        boolean onAVL = tree instanceof AVLTree;
+        if (onAVL && readRatio <= writeHeavy)
+            startMigration(false);
+        else if (!onAVL && readRatio >= readHeavy)
+            startMigration(true);
+    }
+
+    private void startMigration(boolean toAVL) {
+        synchronized (this) {
+            if (migrating || tree.getSize() < minMigrationSize)
+                return;
+            migrating = true;
+        }
+        Thread migration = new Thread(() -> migrate(toAVL), "adaptive-tree-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+
+    private void migrate(boolean toAVL) {
+        try {
+            List<T> keys = new ArrayList<>(tree.getSize());
+            // start logging writes, then downgrade so reads go on while the keys are copied
+            lock.writeLock().lock();
+            pendingWrites = new ArrayList<>();
+            lock.readLock().lock();
+            lock.writeLock().unlock();
+            try {
+                tree.inOrder(keys::add);
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            ISelfBalancingBST<T> target = toAVL ? AVLTree.fromSorted(keys) : RedBlackTree.fromSorted(keys);
+
+            lock.writeLock().lock();
+            try {
+                for (Write<T> write : pendingWrites) {
+                    if (write.insert)
+                        target.insert(write.key);
+                    else
+                        target.delete(write.key);
+                }
+                pendingWrites = null;
+                tree = target;
+                migrations++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            migrating = false;
+        }
+    }
+}
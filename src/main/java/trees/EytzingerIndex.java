@@ -0,0 +1,130 @@
+package trees;
+
+import java.util.List;
+
+/**
+ * Immutable sorted key set in Eytzinger (BFS) order: the children of slot i are
+ * 2i and 2i+1, so the first levels of every search share a few cache lines and
+ * each later level lands at a predictable position.
+ * <p>
+ * The search descends a fixed number of levels without an equality exit, so the
+ * only data-dependent choice is the next slot, which the JIT compiles to a
+ * conditional move. Integer keys are unboxed into an {@code int[]} so the descent
+ * touches no key objects at all. String keys keep their first eight Latin-1 chars
+ * packed into a {@code long[]} next to the references, so a key is only dereferenced
+ * when the prefixes tie. Other keys are compared through their references.
+ */
+public final class EytzingerIndex<T extends Comparable<T>> {
+    // slot 0 is unused; either ints or keys is set, prefixes only for string keys
+    private final Object[] keys;
+    private final long[] prefixes;
+    private final int[] ints;
+    private final int size;
+
+    private EytzingerIndex(Object[] keys, long[] prefixes, int[] ints, int size) {
+        this.keys = keys;
+        this.prefixes = prefixes;
+        this.ints = ints;
+        this.size = size;
+    }
+
+    /**
+     * @param sortedKeys distinct keys in ascending order
+     */
+    public static <T extends Comparable<T>> EytzingerIndex<T> fromSorted(List<T> sortedKeys) {
+        int n = sortedKeys.size();
+        boolean allInts = n > 0;
+        boolean allPrefixes = n > 0;
+        for (T key : sortedKeys) {
+            allInts &= key instanceof Integer;
+            allPrefixes &= KeyPrefix.of(key) != KeyPrefix.NONE;
+        }
+        if (allInts) {
+            int[] ints = new int[n + 1];
+            fill(sortedKeys, 0, 1, (slot, key) -> ints[slot] = (Integer) key);
+            return new EytzingerIndex<>(null, null, ints, n);
+        }
+        Object[] keys = new Object[n + 1];
+        long[] prefixes = allPrefixes ? new long[n + 1] : null;
+        fill(sortedKeys, 0, 1, (slot, key) -> {
+            keys[slot] = key;
+            if (prefixes != null)
+                prefixes[slot] = KeyPrefix.of(key);
+        });
+        return new EytzingerIndex<>(keys, prefixes, null, n);
+    }
+
+    private interface SlotWriter {
+        void write(int slot, Object key);
+    }
+
+    /**
+     * In-order walk of the implicit tree, assigning the sorted keys one by one.
+     *
+     * @return the next sorted position to assign
+     */
+    private static int fill(List<?> sortedKeys, int next, int slot, SlotWriter writer) {
+        if (slot > sortedKeys.size())
+            return next;
+        next = fill(sortedKeys, next, 2 * slot, writer);
+        writer.write(slot, sortedKeys.get(next++));
+        return fill(sortedKeys, next, 2 * slot + 1, writer);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return bytes of the index object and its array; the keys are shared with the tree
+     */
+    public long memoryFootprint(MemoryLayout layout) {
+        long arrays = ints != null ? layout.arraySize(size + 1, 4)
+                : layout.arraySize(size + 1, layout.getReferenceSize());
+        if (prefixes != null)
+            arrays += layout.arraySize(size + 1, 8);
+        // keys, prefixes, ints; int size
+        return layout.objectSize(3, 4) + arrays;
+    }
+
+    @SuppressWarnings("unchecked")
+    public boolean contains(T key) {
+        if (ints != null)
+            return key instanceof Integer value && contains(value);
+        if (prefixes != null && key instanceof String word) {
+            long prefix = KeyPrefix.of(word);
+            if (prefix != KeyPrefix.NONE)
+                return contains(word, prefix);
+        }
+        int i = 1;
+        while (i <= size)
+            i = 2 * i + (((T) keys[i]).compareTo(key) < 0 ? 1 : 0);
+        // drop the trailing right turns and the last left turn => slot of the lower bound
+        i >>>= Integer.numberOfTrailingZeros(~i) + 1;
+        return i != 0 && ((T) keys[i]).compareTo(key) == 0;
+    }
+
+    private boolean contains(String key, long prefix) {
+        long[] p = prefixes;
+        int n = size;
+        int i = 1;
+        while (i <= n) {
+            int cmp = Long.compareUnsigned(p[i], prefix);
+            if (cmp == 0)
+                cmp = ((String) keys[i]).compareTo(key);
+            i = 2 * i + (cmp < 0 ? 1 : 0);
+        }
+        i >>>= Integer.numberOfTrailingZeros(~i) + 1;
+        return i != 0 && p[i] == prefix && keys[i].equals(key);
+    }
+
+    private boolean contains(int key) {
+        int[] a = ints;
+        int n = size;
+        int i = 1;
+        while (i <= n)
+            i = 2 * i + (a[i] < key ? 1 : 0);
+        i >>>= Integer.numberOfTrailingZeros(~i) + 1;
+        return i != 0 && a[i] == key;
+    }
+}
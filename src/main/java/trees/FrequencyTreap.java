@@ -0,0 +1,191 @@
+package trees;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Treap whose priorities grow with access frequency. Each node is a max-heap on
+ * (access count, random tie-breaker) and a BST on its key. New keys start with
+ * count 1, so a tree without lookups is an ordinary randomized treap of expected
+ * O(log n) height; every successful search bumps the count and rotates the node
+ * up past less frequently used ancestors, keeping hot keys near the root.
+ * <p>
+ * Counts that rise with key order make the treap a chain, so every walk is
+ * iterative. Note that {@link #search} restructures the tree.
+ */
+public class FrequencyTreap<T extends Comparable<T>> implements ISelfBalancingBST<T> {
+    private class Node {
+        T key;
+        int count;
+        final int tie;
+        Node left, right;
+
+        Node(T key, int tie) {
+            this.key = key;
+            this.count = 1;
+            this.tie = tie;
+        }
+    }
+
+    private final Random random;
+    private Node root;
+    private int size;
+
+    public FrequencyTreap() {
+        this(new Random());
+    }
+
+    public FrequencyTreap(Random random) {
+        this.random = random;
+    }
+
+    private boolean higher(Node a, Node b) {
+        return a.count != b.count ? a.count > b.count : a.tie > b.tie;
+    }
+
+    private Node rightRotate(Node node) {
+        Node L = node.left;
+        node.left = L.right;
+        L.right = node;
+        return L;
+    }
+
+    private Node leftRotate(Node node) {
+        Node R = node.right;
+        node.right = R.left;
+        R.left = node;
+        return R;
+    }
+
+    private void replaceChild(Node parent, Node child, Node replacement) {
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    // the path from the root down to the node with the key, or to where it would hang
+    private Node descend(T key, Deque<Node> path) {
+        Node curr = root;
+        while (curr != null) {
+            int cmp = key.compareTo(curr.key);
+            if (cmp == 0) {
+                return curr;
+            }
+            path.push(curr);
+            curr = cmp < 0 ? curr.left : curr.right;
+        }
+        return null;
+    }
+
+    // rotates the node up past every ancestor on the path with a lower priority
+    private void rotateUp(Node node, Deque<Node> path) {
+        while (!path.isEmpty() && higher(node, path.peek())) {
+            Node parent = path.pop();
+            Node top = parent.left == node ? rightRotate(parent) : leftRotate(parent);
+            replaceChild(path.peek(), parent, top);
+        }
+    }
+
+    @Override
+    public boolean insert(T key) {
+        Deque<Node> path = new ArrayDeque<>();
+        if (descend(key, path) != null) {
+            return false;
+        }
+        Node node = new Node(key, random.nextInt());
+        Node parent = path.peek();
+        if (parent == null) {
+            root = node;
+        } else if (key.compareTo(parent.key) < 0) {
+            parent.left = node;
+        } else {
+            parent.right = node;
+        }
+        rotateUp(node, path);
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean delete(T key) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = descend(key, path);
+        if (node == null) {
+            return false;
+        }
+        // rotates the node down past its higher child until at most one child is left
+        Node parent = path.peek();
+        while (node.left != null && node.right != null) {
+            Node top = higher(node.left, node.right) ? rightRotate(node) : leftRotate(node);
+            replaceChild(parent, node, top);
+            parent = top;
+        }
+        replaceChild(parent, node, node.left != null ? node.left : node.right);
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean search(T key) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = descend(key, path);
+        if (node == null) {
+            return false;
+        }
+        if (node.count < Integer.MAX_VALUE) {
+            node.count++;
+        }
+        rotateUp(node, path);
+        return true;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getHeight() {
+        // iterative level-order count, skewed access counts can make the treap a chain
+        if (root == null) {
+            return 0;
+        }
+        Deque<Node> level = new ArrayDeque<>();
+        level.add(root);
+        int height = 0;
+        while (!level.isEmpty()) {
+            height++;
+            for (int i = level.size(); i > 0; i--) {
+                Node node = level.poll();
+                if (node.left != null) {
+                    level.add(node.left);
+                }
+                if (node.right != null) {
+                    level.add(node.right);
+                }
+            }
+        }
+        return height;
+    }
+
+    @Override
+    public void inOrder(Consumer<? super T> action) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Node curr = root;
+        while (curr != null || !stack.isEmpty()) {
+            while (curr != null) {
+                stack.push(curr);
+                curr = curr.left;
+            }
+            curr = stack.pop();
+            action.accept(curr.key);
+            curr = curr.right;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package trees;
 
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
 public interface ISelfBalancingBST<T extends Comparable<T>> {
   boolean insert(T key);
 
@@ -11,4 +14,19 @@ public interface ISelfBalancingBST<T extends Comparable<T>> {
 
   int getHeight();
 
+  /**
+   * Visits every key in ascending order.
+   */
+  void inOrder(Consumer<? super T> action);
+
+  /**
+   * Visits keys in ascending order like {@link #inOrder(Consumer)}, but may skip any
+   * subtree whose keys all lie strictly between {@code low} and {@code high} when
+   * {@code skipRange.test(low, high)} is true. A bound is null where the range is
+   * open. Trees without such pruning visit every key.
+   */
+  default void inOrder(BiPredicate<? super T, ? super T> skipRange, Consumer<? super T> action) {
+    inOrder(action);
+  }
+
 }
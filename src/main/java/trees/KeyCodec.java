@@ -0,0 +1,44 @@
+package trees;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts keys to and from bytes for tree shape files, see {@link AVLTree#writeTo}
+ * and {@link RedBlackTree#writeTo}.
+ */
+public interface KeyCodec<T> {
+    /** Strings as UTF-8. */
+    KeyCodec<String> UTF8 = new KeyCodec<>() {
+        @Override
+        public byte[] encode(String key) {
+            return key.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes, int offset, int length) {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+    };
+
+    /** Integers as 4 big-endian bytes. */
+    KeyCodec<Integer> INTEGER = new KeyCodec<>() {
+        @Override
+        public byte[] encode(Integer key) {
+            int value = key;
+            return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+        }
+
+        @Override
+        public Integer decode(byte[] bytes, int offset, int length) {
+            return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 | (bytes[offset + 2] & 0xFF) << 8
+                    | (bytes[offset + 3] & 0xFF);
+        }
+    };
+
+    byte[] encode(T key);
+
+    /**
+     * Decodes a key from a slice of a buffer that is reused afterwards.
+     */
+    T decode(byte[] bytes, int offset, int length);
+}
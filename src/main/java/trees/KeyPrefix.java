@@ -0,0 +1,41 @@
+package trees;
+
+/**
+ * Packs the first eight chars of a string key into a {@code long}, so that most
+ * key comparisons become one primitive compare and only ties fall back to
+ * {@link String#compareTo}. Keys of other types have no prefix.
+ */
+final class KeyPrefix {
+    static final int CHARS = 8;
+    // a key that is not a string or has a char outside Latin-1 among its first 8
+    static final long NONE = -1;
+
+    private KeyPrefix() {
+    }
+
+    /**
+     * Packs the first chars big-endian and zero padded, so that unsigned order of
+     * different prefixes agrees with {@link String#compareTo}.
+     */
+    static long of(Object key) {
+        if (!(key instanceof String word))
+            return NONE;
+        long prefix = 0;
+        for (int i = 0; i < CHARS; i++) {
+            int c = i < word.length() ? word.charAt(i) : 0;
+            if (c > 0xFF)
+                return NONE;
+            prefix = prefix << 8 | c;
+        }
+        return prefix;
+    }
+
+    /**
+     * Compares two keys, using their prefixes when both have one.
+     */
+    static <T extends Comparable<T>> int compare(T key, long prefix, T other, long otherPrefix) {
+        if (prefix != NONE && otherPrefix != NONE && prefix != otherPrefix)
+            return Long.compareUnsigned(prefix, otherPrefix);
+        return key.compareTo(other);
+    }
+}
@@ -0,0 +1,256 @@
+package trees;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free concurrent skip list (Herlihy and Shavit, "The Art of Multiprocessor
+ * Programming", chapter 14). Any number of threads may call {@link #insert},
+ * {@link #delete} and {@link #search} concurrently without locking.
+ * <p>
+ * Links are plain array slots updated by CAS. A marked link is represented by a
+ * {@code Marked} wrapper around the successor, so unmarked hops cost no extra
+ * indirection. A key is logically removed once its bottom-level link is marked, and
+ * inserted once it is linked on the bottom level; those two CAS operations are the
+ * linearization points of {@code delete} and {@code insert}. Higher levels are only
+ * an index and are fixed up lazily by {@code find}. {@code search} is wait-free.
+ * <p>
+ * {@link #getSize()} reads a striped counter and is exact only while no update is
+ * in progress. {@link #getHeight()} is the number of index levels in use, the skip
+ * list equivalent of a tree height.
+ */
+public class LockFreeSkipList<T extends Comparable<T>> implements ISelfBalancingBST<T> {
+    private static final int MAX_LEVEL = 31;
+    private static final VarHandle LINK = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final class Node<T> {
+        final T key;
+        final int topLevel;
+        // per level: the successor Node, or a Marked successor once this node is being removed
+        final Object[] next;
+
+        Node(T key, int topLevel) {
+            this.key = key;
+            this.topLevel = topLevel;
+            this.next = new Object[topLevel + 1];
+        }
+    }
+
+    private static final class Marked {
+        final Node<?> next;
+
+        Marked(Node<?> next) {
+            this.next = next;
+        }
+    }
+
+    // sentinels, their keys are never compared
+    private final Node<T> head = new Node<>(null, MAX_LEVEL);
+    private final Node<T> tail = new Node<>(null, MAX_LEVEL);
+    private final LongAdder size = new LongAdder();
+
+    public LockFreeSkipList() {
+        for (int level = 0; level <= MAX_LEVEL; level++) {
+            head.next[level] = tail;
+        }
+    }
+
+    private static Object link(Node<?> node, int level) {
+        return LINK.getAcquire(node.next, level);
+    }
+
+    @SuppressWarnings("unchecked") // generic arrays cannot be created directly
+    private static <T> Node<T>[] newLevels() {
+        return (Node<T>[]) new Node<?>[MAX_LEVEL + 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T> successor(Object link) {
+        return (Node<T>) (link instanceof Marked marked ? marked.next : link);
+    }
+
+    private static boolean cas(Node<?> node, int level, Object expected, Object value) {
+        return LINK.compareAndSet(node.next, level, expected, value);
+    }
+
+    // negative if key sorts before node, tail sorts after every key
+    private int compare(T key, Node<T> node) {
+        return node == tail ? -1 : key.compareTo(node.key);
+    }
+
+    private static int randomLevel() {
+        // level l with probability 2^-(l+1)
+        int level = Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << MAX_LEVEL));
+        return Math.min(level, MAX_LEVEL);
+    }
+
+    /**
+     * Fills preds and succs with the nodes around key on every level, unlinking
+     * marked nodes on the way.
+     *
+     * @return true if an unmarked node with the key is linked on the bottom level
+     */
+    private boolean find(T key, Node<T>[] preds, Node<T>[] succs) {
+        retry:
+        while (true) {
+            Node<T> pred = head;
+            for (int level = MAX_LEVEL; level >= 0; level--) {
+                Node<T> curr = successor(link(pred, level));
+                while (curr != tail) {
+                    Object next = link(curr, level);
+                    while (next instanceof Marked) {
+                        // physically unlink a logically removed node
+                        Node<T> succ = successor(next);
+                        if (!cas(pred, level, curr, succ)) {
+                            continue retry;
+                        }
+                        curr = succ;
+                        if (curr == tail) {
+                            break;
+                        }
+                        next = link(curr, level);
+                    }
+                    if (curr == tail || compare(key, curr) <= 0) {
+                        break;
+                    }
+                    pred = curr;
+                    curr = successor(next);
+                }
+                preds[level] = pred;
+                succs[level] = curr;
+            }
+            return succs[0] != tail && compare(key, succs[0]) == 0;
+        }
+    }
+
+    @Override
+    public boolean insert(T key) {
+        int topLevel = randomLevel();
+        Node<T>[] preds = newLevels();
+        Node<T>[] succs = newLevels();
+        while (true) {
+            if (find(key, preds, succs)) {
+                return false;
+            }
+            Node<T> node = new Node<>(key, topLevel);
+            for (int level = 0; level <= topLevel; level++) {
+                node.next[level] = succs[level];
+            }
+            // publishing on the bottom level makes the key present
+            if (!cas(preds[0], 0, succs[0], node)) {
+                continue;
+            }
+            size.increment();
+            for (int level = 1; level <= topLevel; level++) {
+                while (!cas(preds[level], level, succs[level], node)) {
+                    find(key, preds, succs);
+                    // the node was removed meanwhile => stop indexing it
+                    if (succs[0] != node) {
+                        return true;
+                    }
+                    // only swing an unmarked link, a marked one belongs to a concurrent delete
+                    Object next = link(node, level);
+                    if (next instanceof Marked) {
+                        return true;
+                    }
+                    if (next != succs[level] && !cas(node, level, next, succs[level])) {
+                        // marked meanwhile
+                        return true;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public boolean delete(T key) {
+        Node<T>[] preds = newLevels();
+        Node<T>[] succs = newLevels();
+        if (!find(key, preds, succs)) {
+            return false;
+        }
+        Node<T> victim = succs[0];
+        // mark the index levels top-down
+        for (int level = victim.topLevel; level >= 1; level--) {
+            Object next = link(victim, level);
+            while (!(next instanceof Marked)) {
+                cas(victim, level, next, new Marked((Node<?>) next));
+                next = link(victim, level);
+            }
+        }
+        // marking the bottom level removes the key, exactly one thread succeeds
+        while (true) {
+            Object next = link(victim, 0);
+            if (next instanceof Marked) {
+                return false;
+            }
+            if (cas(victim, 0, next, new Marked((Node<?>) next))) {
+                size.decrement();
+                find(key, preds, succs);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Descends like {@code find} but steps over marked nodes instead of unlinking
+     * them, and decides on the bottom level only: a removed node with the key may
+     * still be linked in front of a newer one on any level.
+     */
+    @Override
+    public boolean search(T key) {
+        Node<T> pred = head;
+        Node<T> curr = tail;
+        for (int level = MAX_LEVEL; level >= 0; level--) {
+            curr = successor(link(pred, level));
+            while (curr != tail) {
+                Object next = link(curr, level);
+                if (next instanceof Marked) {
+                    curr = successor(next);
+                    continue;
+                }
+                if (key.compareTo(curr.key) <= 0) {
+                    break;
+                }
+                pred = curr;
+                curr = successor(next);
+            }
+        }
+        return curr != tail && key.compareTo(curr.key) == 0;
+    }
+
+    @Override
+    public int getSize() {
+        return (int) size.sum();
+    }
+
+    @Override
+    public int getHeight() {
+        for (int level = MAX_LEVEL; level >= 0; level--) {
+            if (link(head, level) != tail) {
+                return level + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Weakly consistent traversal: sees every key present for the whole traversal
+     * and none removed before it started.
+     */
+    @Override
+    public void inOrder(Consumer<? super T> action) {
+        Node<T> curr = successor(link(head, 0));
+        while (curr != tail) {
+            Object next = link(curr, 0);
+            if (!(next instanceof Marked)) {
+                action.accept(curr.key);
+            }
+            curr = successor(next);
+        }
+    }
+}
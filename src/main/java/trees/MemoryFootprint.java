@@ -0,0 +1,70 @@
+package trees;
+
+/**
+ * Estimated retained heap size of a tree, see {@link MemoryLayout}. Keys are
+ * counted as if no other structure shared them.
+ */
+public class MemoryFootprint {
+    private final int entries;
+    private final long nodeBytes;
+    private final long childArrayBytes;
+    private final long keyBytes;
+    private final long metadataBytes;
+
+    /**
+     * @param entries         number of stored keys
+     * @param nodeBytes       node objects
+     * @param childArrayBytes child arrays held by nodes, 0 for trees with child fields
+     * @param keyBytes        key objects, including their backing arrays
+     * @param metadataBytes   the tree object and any auxiliary structures
+     */
+    public MemoryFootprint(int entries, long nodeBytes, long childArrayBytes, long keyBytes, long metadataBytes) {
+        this.entries = entries;
+        this.nodeBytes = nodeBytes;
+        this.childArrayBytes = childArrayBytes;
+        this.keyBytes = keyBytes;
+        this.metadataBytes = metadataBytes;
+    }
+
+    /**
+     * @return a copy with additional metadata bytes, for structures wrapping a tree
+     */
+    public MemoryFootprint plusMetadata(long bytes) {
+        return new MemoryFootprint(entries, nodeBytes, childArrayBytes, keyBytes, metadataBytes + bytes);
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public long getNodeBytes() {
+        return nodeBytes;
+    }
+
+    public long getChildArrayBytes() {
+        return childArrayBytes;
+    }
+
+    public long getKeyBytes() {
+        return keyBytes;
+    }
+
+    public long getMetadataBytes() {
+        return metadataBytes;
+    }
+
+    public long getTotalBytes() {
+        return nodeBytes + childArrayBytes + keyBytes + metadataBytes;
+    }
+
+    public double getBytesPerEntry() {
+        return entries == 0 ? 0 : (double) getTotalBytes() / entries;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d bytes for %,d entries (%.1f per entry): nodes %,d, child arrays %,d, keys %,d, "
+                + "metadata %,d", getTotalBytes(), entries, getBytesPerEntry(), nodeBytes, childArrayBytes, keyBytes,
+                metadataBytes);
+    }
+}
@@ -0,0 +1,109 @@
+package trees;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Model of the HotSpot object layout, in the spirit of JOL: an object is a header
+ * followed by its fields, padded to the object alignment; an array header also
+ * holds the length. Field packing gaps are ignored, so sizes of objects mixing
+ * long or double fields with a 12 byte header may be off by 4 bytes.
+ */
+public class MemoryLayout {
+    /** 64-bit HotSpot defaults: compressed class pointers and oops, 8 byte alignment. */
+    public static final MemoryLayout COMPRESSED = new MemoryLayout(12, 4, 8);
+
+    private static final MemoryLayout CURRENT = detect();
+
+    private final int headerSize;
+    private final int referenceSize;
+    private final int alignment;
+
+    /**
+     * @param headerSize    object header in bytes, 12 with compressed class pointers, 16 without
+     * @param referenceSize 4 with compressed oops, 8 without
+     * @param alignment     object alignment in bytes
+     */
+    public MemoryLayout(int headerSize, int referenceSize, int alignment) {
+        if (Integer.bitCount(alignment) != 1)
+            throw new IllegalArgumentException("Alignment must be a power of two: " + alignment);
+        this.headerSize = headerSize;
+        this.referenceSize = referenceSize;
+        this.alignment = alignment;
+    }
+
+    /**
+     * @return the layout of the running JVM, or {@link #COMPRESSED} if it cannot be queried
+     */
+    public static MemoryLayout current() {
+        return CURRENT;
+    }
+
+    private static MemoryLayout detect() {
+        try {
+            HotSpotDiagnosticMXBean vm = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            boolean compressedClasses = Boolean.parseBoolean(vm.getVMOption("UseCompressedClassPointers").getValue());
+            boolean compressedOops = Boolean.parseBoolean(vm.getVMOption("UseCompressedOops").getValue());
+            int alignment = Integer.parseInt(vm.getVMOption("ObjectAlignmentInBytes").getValue());
+            return new MemoryLayout(compressedClasses ? 12 : 16, compressedOops ? 4 : 8, alignment);
+        } catch (RuntimeException | LinkageError e) {
+            return COMPRESSED;
+        }
+    }
+
+    public int getReferenceSize() {
+        return referenceSize;
+    }
+
+    private long align(long bytes) {
+        return (bytes + alignment - 1) & -alignment;
+    }
+
+    /**
+     * @param references     number of reference fields, including a hidden outer instance
+     * @param primitiveBytes total size of the primitive fields
+     * @return shallow size of an instance
+     */
+    public long objectSize(int references, int primitiveBytes) {
+        return align(headerSize + (long) references * referenceSize + primitiveBytes);
+    }
+
+    /**
+     * @param elementSize bytes per element, {@link #getReferenceSize()} for object arrays
+     * @return size of an array with the given length
+     */
+    public long arraySize(int length, int elementSize) {
+        // header plus length, rounded up to 8 bytes so elements start aligned
+        long base = (headerSize + 4 + 7) & -8;
+        return align(base + (long) length * elementSize);
+    }
+
+    /**
+     * Retained size of a key. Strings include their backing array (compact strings
+     * assumed), boxed primitives are exact; other types count only their header.
+     */
+    public long keySize(Object key) {
+        if (key instanceof String s) {
+            // byte[] value, int hash, byte coder, boolean hashIsZero
+            return objectSize(1, 6) + arraySize(s.length(), isLatin1(s) ? 1 : 2);
+        }
+        if (key instanceof Long || key instanceof Double)
+            return objectSize(0, 8);
+        if (key instanceof Integer || key instanceof Float)
+            return objectSize(0, 4);
+        if (key instanceof Short || key instanceof Character)
+            return objectSize(0, 2);
+        if (key instanceof Byte || key instanceof Boolean)
+            return objectSize(0, 1);
+        return objectSize(0, 0);
+    }
+
+    private static boolean isLatin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,398 @@
+package trees;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * AVL tree whose nodes and keys live in an {@link OffHeapStore}, so the collector
+ * neither traces nor copies them however large the tree grows. Children are 32-bit
+ * store references instead of object references.
+ * <p>
+ * A node is one record: left and right references, the height, the key length and
+ * the encoded key. Keys are ordered by the unsigned bytes of their encoding; for
+ * {@link KeyCodec#UTF8} that is {@link String} order, except that characters outside
+ * the Basic Multilingual Plane sort after U+E000 to U+FFFF. The root and counters
+ * are kept in a small descriptor record, so several trees can share one store and
+ * a tree can be reattached to a reopened mapped store. Not thread-safe, but trees on
+ * different threads may share a store.
+ */
+public class OffHeapAVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
+    // node layout
+    private static final int LEFT = 0;
+    private static final int RIGHT = 4;
+    private static final int HEIGHT = 8;
+    private static final int LENGTH = 9;
+    private static final int KEY = 11;
+    public static final int MAX_KEY_BYTES = OffHeapStore.MAX_RECORD_BYTES - KEY;
+
+    // descriptor layout
+    private static final int ROOT = 0;
+    private static final int SIZE = 4;
+    private static final int BYTES = 8;
+    private static final int DESCRIPTOR_BYTES = 16;
+
+    private final OffHeapStore store;
+    private final KeyCodec<T> codec;
+    private final int descriptor;
+    private int root;
+    private int size;
+    private long rotations;
+
+    // set by the recursive updates
+    private boolean changed;
+    private int detached;
+
+    /**
+     * Creates an empty tree in the given store.
+     */
+    public OffHeapAVLTree(OffHeapStore store, KeyCodec<T> codec) {
+        this.store = store;
+        this.codec = codec;
+        this.descriptor = store.allocate(DESCRIPTOR_BYTES);
+        store.putInt(descriptor, ROOT, 0);
+        store.putInt(descriptor, SIZE, 0);
+        store.putLong(descriptor, BYTES, DESCRIPTOR_BYTES);
+    }
+
+    private OffHeapAVLTree(OffHeapStore store, KeyCodec<T> codec, int descriptor) {
+        this.store = store;
+        this.codec = codec;
+        this.descriptor = descriptor;
+        this.root = store.getInt(descriptor, ROOT);
+        this.size = store.getInt(descriptor, SIZE);
+    }
+
+    /**
+     * Reattaches a tree, e.g. after reopening a mapped store.
+     *
+     * @param descriptor the tree's {@link #getDescriptor()}
+     */
+    public static <T extends Comparable<T>> OffHeapAVLTree<T> attach(OffHeapStore store, int descriptor,
+            KeyCodec<T> codec) {
+        return new OffHeapAVLTree<>(store, codec, descriptor);
+    }
+
+    /**
+     * Opens the tree persisted in a mapped file, or creates an empty one, using the
+     * store's anchor. Close the tree's {@link #getStore()} to write it back.
+     */
+    public static <T extends Comparable<T>> OffHeapAVLTree<T> open(Path file, KeyCodec<T> codec) throws IOException {
+        OffHeapStore store = OffHeapStore.map(file, OffHeapStore.DEFAULT_CHUNK_SHIFT);
+        if (store.getAnchor() != 0)
+            return attach(store, store.getAnchor(), codec);
+        OffHeapAVLTree<T> tree = new OffHeapAVLTree<>(store, codec);
+        store.setAnchor(tree.getDescriptor());
+        return tree;
+    }
+
+    public OffHeapStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return reference of the record holding the root and counters
+     */
+    public int getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * @return store bytes taken by this tree's nodes and descriptor
+     */
+    public long getOffHeapBytes() {
+        return store.getLong(descriptor, BYTES);
+    }
+
+    private void addOffHeapBytes(long bytes) {
+        store.putLong(descriptor, BYTES, getOffHeapBytes() + bytes);
+    }
+
+    private void setRoot(int node) {
+        root = node;
+        store.putInt(descriptor, ROOT, node);
+    }
+
+    private void setSize(int size) {
+        this.size = size;
+        store.putInt(descriptor, SIZE, size);
+    }
+
+    private int left(int node) {
+        return store.getInt(node, LEFT);
+    }
+
+    private int right(int node) {
+        return store.getInt(node, RIGHT);
+    }
+
+    private int height(int node) {
+        return node == 0 ? 0 : store.getByte(node, HEIGHT);
+    }
+
+    private int keyLength(int node) {
+        return store.getShort(node, LENGTH) & 0xFFFF;
+    }
+
+    private static int recordBytes(int keyLength) {
+        return KEY + keyLength;
+    }
+
+    private int newNode(byte[] key) {
+        int node = store.allocate(recordBytes(key.length));
+        store.putInt(node, LEFT, 0);
+        store.putInt(node, RIGHT, 0);
+        store.putByte(node, HEIGHT, (byte) 1);
+        store.putShort(node, LENGTH, (short) key.length);
+        store.putBytes(node, KEY, key);
+        addOffHeapBytes(recordBytes(key.length) + 7 & ~7);
+        return node;
+    }
+
+    private void freeNode(int node) {
+        int bytes = recordBytes(keyLength(node));
+        store.free(node, bytes);
+        addOffHeapBytes(-(bytes + 7 & ~7));
+    }
+
+    /**
+     * Compares an encoded key with the key of a node, byte by byte as unsigned values.
+     */
+    private int compare(byte[] key, int node) {
+        ByteBuffer buffer = store.buffer(node);
+        int position = store.position(node, KEY);
+        int length = keyLength(node);
+        int n = Math.min(key.length, length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (key[i] & 0xFF) - (buffer.get(position + i) & 0xFF);
+            if (cmp != 0)
+                return cmp;
+        }
+        return key.length - length;
+    }
+
+    private byte[] encode(T key) {
+        byte[] bytes = codec.encode(key);
+        if (bytes.length > MAX_KEY_BYTES)
+            throw new IllegalArgumentException("Key takes " + bytes.length + " bytes, at most " + MAX_KEY_BYTES
+                    + " are supported");
+        return bytes;
+    }
+
+    private void updateHeight(int node) {
+        store.putByte(node, HEIGHT, (byte) (1 + Math.max(height(left(node)), height(right(node)))));
+    }
+
+    private int balance(int node) {
+        return height(left(node)) - height(right(node));
+    }
+
+    private int rightRotate(int node) {
+        int l = left(node);
+        store.putInt(node, LEFT, right(l));
+        store.putInt(l, RIGHT, node);
+        updateHeight(node);
+        updateHeight(l);
+        rotations++;
+        return l;
+    }
+
+    private int leftRotate(int node) {
+        int r = right(node);
+        store.putInt(node, RIGHT, left(r));
+        store.putInt(r, LEFT, node);
+        updateHeight(node);
+        updateHeight(r);
+        rotations++;
+        return r;
+    }
+
+    private int rebalance(int node) {
+        updateHeight(node);
+        int balance = balance(node);
+        if (balance > 1) {
+            if (balance(left(node)) < 0)
+                store.putInt(node, LEFT, leftRotate(left(node)));
+            return rightRotate(node);
+        }
+        if (balance < -1) {
+            if (balance(right(node)) > 0)
+                store.putInt(node, RIGHT, rightRotate(right(node)));
+            return leftRotate(node);
+        }
+        return node;
+    }
+
+    @Override
+    public boolean insert(T key) {
+        changed = false;
+        setRoot(insert(root, encode(key)));
+        if (!changed)
+            return false;
+        setSize(size + 1);
+        return true;
+    }
+
+    private int insert(int node, byte[] key) {
+        if (node == 0) {
+            changed = true;
+            return newNode(key);
+        }
+        int cmp = compare(key, node);
+        if (cmp == 0)
+            return node;
+        if (cmp < 0)
+            store.putInt(node, LEFT, insert(left(node), key));
+        else
+            store.putInt(node, RIGHT, insert(right(node), key));
+        return changed ? rebalance(node) : node;
+    }
+
+    @Override
+    public boolean delete(T key) {
+        changed = false;
+        setRoot(delete(root, encode(key)));
+        if (!changed)
+            return false;
+        setSize(size - 1);
+        return true;
+    }
+
+    private int delete(int node, byte[] key) {
+        if (node == 0)
+            return 0;
+        int cmp = compare(key, node);
+        if (cmp < 0) {
+            store.putInt(node, LEFT, delete(left(node), key));
+        } else if (cmp > 0) {
+            store.putInt(node, RIGHT, delete(right(node), key));
+        } else {
+            changed = true;
+            int l = left(node);
+            int r = right(node);
+            freeNode(node);
+            if (l == 0)
+                return r;
+            if (r == 0)
+                return l;
+            // keys differ in length, so the successor node replaces the deleted one
+            r = removeMin(r);
+            node = detached;
+            store.putInt(node, LEFT, l);
+            store.putInt(node, RIGHT, r);
+        }
+        return changed ? rebalance(node) : node;
+    }
+
+    private int removeMin(int node) {
+        int l = left(node);
+        if (l == 0) {
+            detached = node;
+            return right(node);
+        }
+        store.putInt(node, LEFT, removeMin(l));
+        return rebalance(node);
+    }
+
+    @Override
+    public boolean search(T key) {
+        byte[] bytes = encode(key);
+        int node = root;
+        while (node != 0) {
+            int cmp = compare(bytes, node);
+            if (cmp == 0)
+                return true;
+            node = cmp < 0 ? left(node) : right(node);
+        }
+        return false;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getHeight() {
+        return height(root);
+    }
+
+    /**
+     * @return rotations performed since the tree was created or attached, a double
+     *         rotation counting as two
+     */
+    public long getRotationCount() {
+        return rotations;
+    }
+
+    /**
+     * Visits the keys in the order of their encoded bytes.
+     */
+    @Override
+    public void inOrder(Consumer<? super T> action) {
+        inOrder(root, action, new byte[MAX_KEY_BYTES]);
+    }
+
+    /**
+     * Frees all nodes and the descriptor, returning their memory to the store. The
+     * tree must not be used afterwards.
+     */
+    public void release() {
+        release(root);
+        root = 0;
+        size = 0;
+        store.free(descriptor, DESCRIPTOR_BYTES);
+    }
+
+    private void release(int node) {
+        while (node != 0) {
+            release(left(node));
+            int r = right(node);
+            store.free(node, recordBytes(keyLength(node)));
+            node = r;
+        }
+    }
+
+    private void inOrder(int node, Consumer<? super T> action, byte[] buffer) {
+        while (node != 0) {
+            inOrder(left(node), action, buffer);
+            int length = keyLength(node);
+            store.getBytes(node, KEY, buffer, length);
+            action.accept(codec.decode(buffer, 0, length));
+            node = right(node);
+        }
+    }
+
+    /**
+     * Checks the structural invariants in O(n): key order, stored heights, balance
+     * factors within [-1, 1] and the size counter.
+     *
+     * @throws IllegalStateException describing the first violation found
+     */
+    public void validate() {
+        int[] count = new int[1];
+        validate(root, null, null, count);
+        if (count[0] != size)
+            throw new IllegalStateException("Size is " + size + " but the tree holds " + count[0] + " keys");
+    }
+
+    private int validate(int node, byte[] low, byte[] high, int[] count) {
+        if (node == 0)
+            return 0;
+        byte[] key = new byte[keyLength(node)];
+        store.getBytes(node, KEY, key, key.length);
+        if ((low != null && compare(low, node) >= 0) || (high != null && compare(high, node) <= 0))
+            throw new IllegalStateException("Key " + codec.decode(key, 0, key.length) + " out of order");
+        count[0]++;
+        int leftHeight = validate(left(node), low, key, count);
+        int rightHeight = validate(right(node), key, high, count);
+        int height = 1 + Math.max(leftHeight, rightHeight);
+        if (height(node) != height)
+            throw new IllegalStateException("Node " + codec.decode(key, 0, key.length) + " stores height "
+                    + height(node) + " but has height " + height);
+        if (Math.abs(leftHeight - rightHeight) > 1)
+            throw new IllegalStateException("Node " + codec.decode(key, 0, key.length) + " is unbalanced");
+        return height;
+    }
+}
@@ -0,0 +1,297 @@
+package trees;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Record allocator over memory outside the Java heap, shared by any number of
+ * {@link OffHeapAVLTree}s. The collector only sees one buffer object per chunk, no
+ * matter how many records are stored.
+ * <p>
+ * A record is addressed by a 32-bit reference: its byte offset divided by 8, read as
+ * an unsigned int, so a store holds up to 32 GB. Reference 0 is the null reference.
+ * Memory comes in chunks of {@code 1 << chunkShift} bytes, allocated on demand,
+ * and records never span chunks. Freed records are kept on per-size free lists and
+ * reused by the next allocation of the same size.
+ * <p>
+ * A store is either backed by direct buffers, released when the store becomes
+ * unreachable, or by a memory-mapped file. The allocator state lives in the store
+ * itself, so a mapped store reopens with all its records, see {@link #getAnchor()}.
+ * <p>
+ * Allocation, freeing and the anchor are synchronized, so trees used from different
+ * threads can share a store. New chunks are published by replacing a volatile array,
+ * so record accessors see them without locking. Record contents are not guarded: each
+ * tree guards its own records.
+ */
+public class OffHeapStore implements Closeable {
+    private static final int MAGIC = 0x4F485354; // "OHST"
+    private static final int VERSION = 1;
+    public static final int DEFAULT_CHUNK_SHIFT = 26;
+    private static final int MIN_CHUNK_SHIFT = 16;
+    private static final int MAX_CHUNK_SHIFT = 30;
+    /** Largest record, in bytes. */
+    public static final int MAX_RECORD_BYTES = 1 << 16;
+    private static final int MAX_UNITS = MAX_RECORD_BYTES >>> 3;
+
+    // header: magic, version, chunk shift, anchor, top and used bytes (longs), one free list head per record size
+    private static final int CHUNK_SHIFT_OFFSET = 8;
+    private static final int ANCHOR_OFFSET = 12;
+    private static final int TOP_OFFSET = 16;
+    private static final int USED_OFFSET = 24;
+    private static final int FREE_LISTS_OFFSET = 32;
+    private static final int HEADER_BYTES = FREE_LISTS_OFFSET + 4 * (MAX_UNITS + 1);
+
+    private final int chunkShift;
+    // chunk offsets in 8-byte units are ref & unitMask
+    private final int unitShift;
+    private final int unitMask;
+    private final FileChannel channel;
+    // copy-on-write: a slot is filled before the array is published, never afterwards
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    private OffHeapStore(int chunkShift, FileChannel channel) {
+        if (chunkShift < MIN_CHUNK_SHIFT || chunkShift > MAX_CHUNK_SHIFT)
+            throw new IllegalArgumentException("Chunk shift must be in [" + MIN_CHUNK_SHIFT + ", " + MAX_CHUNK_SHIFT
+                    + "]: " + chunkShift);
+        this.chunkShift = chunkShift;
+        this.unitShift = chunkShift - 3;
+        this.unitMask = (1 << unitShift) - 1;
+        this.channel = channel;
+    }
+
+    /**
+     * @return a store in direct buffers with 64 MB chunks
+     */
+    public static OffHeapStore allocateDirect() {
+        return allocateDirect(DEFAULT_CHUNK_SHIFT);
+    }
+
+    public static OffHeapStore allocateDirect(int chunkShift) {
+        OffHeapStore store = new OffHeapStore(chunkShift, null);
+        store.initialize();
+        return store;
+    }
+
+    /**
+     * Opens a store in a memory-mapped file, creating the file if it does not exist.
+     * Changes reach the file at the latest when the store is closed.
+     *
+     * @param chunkShift used for new files; existing files keep theirs
+     */
+    public static OffHeapStore map(Path file, int chunkShift) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                OffHeapStore store = new OffHeapStore(chunkShift, channel);
+                store.initialize();
+                return store;
+            }
+            ByteBuffer header = ByteBuffer.allocate(CHUNK_SHIFT_OFFSET + 4);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC)
+                throw new IOException("Not an off-heap store file");
+            if (header.getInt(4) != VERSION)
+                throw new IOException("Unsupported off-heap store version " + header.getInt(4));
+            OffHeapStore store = new OffHeapStore(header.getInt(CHUNK_SHIFT_OFFSET), channel);
+            store.chunk(0);
+            long top = store.getTop();
+            for (int i = 1; i <= (int) ((top - 1) >>> store.chunkShift); i++)
+                store.chunk(i);
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void initialize() {
+        ByteBuffer header = chunk(0);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(CHUNK_SHIFT_OFFSET, chunkShift);
+        setTop(HEADER_BYTES + 7 & ~7);
+        addUsedBytes(getTop());
+    }
+
+    private ByteBuffer chunk(int index) {
+        ByteBuffer[] current = chunks;
+        ByteBuffer chunk = index < current.length ? current[index] : null;
+        if (chunk == null) {
+            long size = 1L << chunkShift;
+            if (channel == null) {
+                chunk = ByteBuffer.allocateDirect((int) size);
+            } else {
+                try {
+                    chunk = channel.map(FileChannel.MapMode.READ_WRITE, index * size, size);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot map chunk " + index, e);
+                }
+            }
+            ByteBuffer[] grown = Arrays.copyOf(current, Math.max(index + 1, current.length));
+            grown[index] = chunk;
+            chunks = grown;
+        }
+        return chunk;
+    }
+
+    private long getTop() {
+        return chunks[0].getLong(TOP_OFFSET);
+    }
+
+    private void setTop(long top) {
+        chunks[0].putLong(TOP_OFFSET, top);
+    }
+
+    private void addUsedBytes(long bytes) {
+        chunks[0].putLong(USED_OFFSET, chunks[0].getLong(USED_OFFSET) + bytes);
+    }
+
+    /**
+     * @param bytes record size, rounded up to a multiple of 8
+     * @return reference to a record with undefined contents
+     */
+    public synchronized int allocate(int bytes) {
+        int units = units(bytes);
+        ByteBuffer header = chunks[0];
+        int freeOffset = FREE_LISTS_OFFSET + 4 * units;
+        int ref = header.getInt(freeOffset);
+        if (ref != 0) {
+            header.putInt(freeOffset, getInt(ref, 0));
+            addUsedBytes((long) units << 3);
+            return ref;
+        }
+        long size = (long) units << 3;
+        long top = getTop();
+        long chunkEnd = ((top >>> chunkShift) + 1) << chunkShift;
+        if (top + size > chunkEnd)
+            top = chunkEnd;
+        if (top + size > (1L << 35))
+            throw new IllegalStateException("Off-heap store is full");
+        chunk((int) (top >>> chunkShift));
+        setTop(top + size);
+        addUsedBytes(size);
+        return (int) (top >>> 3);
+    }
+
+    /**
+     * @param bytes the size the record was allocated with
+     */
+    public synchronized void free(int ref, int bytes) {
+        int units = units(bytes);
+        int freeOffset = FREE_LISTS_OFFSET + 4 * units;
+        putInt(ref, 0, chunks[0].getInt(freeOffset));
+        chunks[0].putInt(freeOffset, ref);
+        addUsedBytes(-((long) units << 3));
+    }
+
+    private static int units(int bytes) {
+        if (bytes <= 0 || bytes > MAX_RECORD_BYTES)
+            throw new IllegalArgumentException("Record size must be in (0, " + MAX_RECORD_BYTES + "]: " + bytes);
+        return (bytes + 7) >>> 3;
+    }
+
+    /**
+     * @return reference stored in the header, 0 if never set; lets a reopened mapped
+     *         store find its tree, see {@link OffHeapAVLTree#open}
+     */
+    public synchronized int getAnchor() {
+        return chunks[0].getInt(ANCHOR_OFFSET);
+    }
+
+    public synchronized void setAnchor(int ref) {
+        chunks[0].putInt(ANCHOR_OFFSET, ref);
+    }
+
+    /**
+     * @return bytes of live records and the header
+     */
+    public synchronized long getUsedBytes() {
+        return chunks[0].getLong(USED_OFFSET);
+    }
+
+    /**
+     * @return bytes of allocated chunks
+     */
+    public synchronized long getReservedBytes() {
+        long chunkCount = Arrays.stream(chunks).filter(chunk -> chunk != null).count();
+        return chunkCount << chunkShift;
+    }
+
+    ByteBuffer buffer(int ref) {
+        return chunks[ref >>> unitShift];
+    }
+
+    int position(int ref, int offset) {
+        return ((ref & unitMask) << 3) + offset;
+    }
+
+    public int getInt(int ref, int offset) {
+        return chunks[ref >>> unitShift].getInt(((ref & unitMask) << 3) + offset);
+    }
+
+    public void putInt(int ref, int offset, int value) {
+        chunks[ref >>> unitShift].putInt(((ref & unitMask) << 3) + offset, value);
+    }
+
+    public long getLong(int ref, int offset) {
+        return chunks[ref >>> unitShift].getLong(((ref & unitMask) << 3) + offset);
+    }
+
+    public void putLong(int ref, int offset, long value) {
+        chunks[ref >>> unitShift].putLong(((ref & unitMask) << 3) + offset, value);
+    }
+
+    public byte getByte(int ref, int offset) {
+        return chunks[ref >>> unitShift].get(((ref & unitMask) << 3) + offset);
+    }
+
+    public void putByte(int ref, int offset, byte value) {
+        chunks[ref >>> unitShift].put(((ref & unitMask) << 3) + offset, value);
+    }
+
+    public short getShort(int ref, int offset) {
+        return chunks[ref >>> unitShift].getShort(((ref & unitMask) << 3) + offset);
+    }
+
+    public void putShort(int ref, int offset, short value) {
+        chunks[ref >>> unitShift].putShort(((ref & unitMask) << 3) + offset, value);
+    }
+
+    public void getBytes(int ref, int offset, byte[] bytes, int length) {
+        chunks[ref >>> unitShift].get(((ref & unitMask) << 3) + offset, bytes, 0, length);
+    }
+
+    public void putBytes(int ref, int offset, byte[] bytes) {
+        chunks[ref >>> unitShift].put(((ref & unitMask) << 3) + offset, bytes);
+    }
+
+    /**
+     * Writes mapped chunks back to the file.
+     */
+    public void force() {
+        for (ByteBuffer chunk : chunks) {
+            if (chunk instanceof MappedByteBuffer mapped)
+                mapped.force();
+        }
+    }
+
+    /**
+     * Forces and closes a mapped store; direct buffers are released by the collector.
+     * The store must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+        }
+        chunks = new ByteBuffer[0];
+    }
+}
@@ -0,0 +1,259 @@
+package trees;
+
+import java.util.function.Consumer;
+
+/**
+ * AVL tree with immutable nodes: an update copies the path from the root to the
+ * changed node and shares every other node with the previous version, then
+ * publishes the new version with one volatile write.
+ * <p>
+ * Readers never lock. {@link #snapshot()} pins the current version, which stays
+ * searchable and iterable while writers go on; the collector reclaims a version
+ * once no snapshot or reader refers to it any more. Updates are serialized among
+ * themselves. Each update allocates O(log n) new nodes, against none for
+ * {@link AVLTree}.
+ */
+public class PersistentAVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
+
+    private static final class Node<T> {
+        final T key;
+        final Node<T> left, right;
+        final int height;
+
+        Node(T key, Node<T> left, Node<T> right) {
+            this.key = key;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+        }
+    }
+
+    /**
+     * One immutable version of the tree.
+     */
+    public static final class Snapshot<T extends Comparable<T>> {
+        private final Node<T> root;
+        private final int size;
+        private final long version;
+
+        private Snapshot(Node<T> root, int size, long version) {
+            this.root = root;
+            this.size = size;
+            this.version = version;
+        }
+
+        public boolean search(T key) {
+            Node<T> curr = root;
+            while (curr != null) {
+                int cmp = key.compareTo(curr.key);
+                if (cmp == 0)
+                    return true;
+                curr = cmp < 0 ? curr.left : curr.right;
+            }
+            return false;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getHeight() {
+            return height(root);
+        }
+
+        /**
+         * @return number of updates applied before this version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Visits every key of this version in ascending order.
+         */
+        public void inOrder(Consumer<? super T> action) {
+            inOrder(root, action);
+        }
+
+        private void inOrder(Node<T> node, Consumer<? super T> action) {
+            while (node != null) {
+                inOrder(node.left, action);
+                action.accept(node.key);
+                node = node.right;
+            }
+        }
+    }
+
+    private volatile Snapshot<T> current = new Snapshot<>(null, 0, 0);
+    // guarded by this
+    private long rotations;
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * @return the current version, unaffected by later updates
+     */
+    public Snapshot<T> snapshot() {
+        return current;
+    }
+
+    @Override
+    public synchronized boolean insert(T key) {
+        Snapshot<T> snapshot = current;
+        Node<T> root = insert(snapshot.root, key);
+        if (root == snapshot.root)
+            return false;
+        current = new Snapshot<>(root, snapshot.size + 1, snapshot.version + 1);
+        return true;
+    }
+
+    /**
+     * @return the new subtree, or the given one if the key is present
+     */
+    private Node<T> insert(Node<T> node, T key) {
+        if (node == null)
+            return new Node<>(key, null, null);
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            Node<T> left = insert(node.left, key);
+            return left == node.left ? node : balance(node.key, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<T> right = insert(node.right, key);
+            return right == node.right ? node : balance(node.key, node.left, right);
+        }
+        return node;
+    }
+
+    @Override
+    public synchronized boolean delete(T key) {
+        Snapshot<T> snapshot = current;
+        Node<T> root = delete(snapshot.root, key);
+        if (root == snapshot.root)
+            return false;
+        current = new Snapshot<>(root, snapshot.size - 1, snapshot.version + 1);
+        return true;
+    }
+
+    /**
+     * @return the new subtree, or the given one if the key is absent
+     */
+    private Node<T> delete(Node<T> node, T key) {
+        if (node == null)
+            return null;
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            Node<T> left = delete(node.left, key);
+            return left == node.left ? node : balance(node.key, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<T> right = delete(node.right, key);
+            return right == node.right ? node : balance(node.key, node.left, right);
+        }
+        if (node.left == null)
+            return node.right;
+        if (node.right == null)
+            return node.left;
+        Node<T> successor = node.right;
+        while (successor.left != null)
+            successor = successor.left;
+        return balance(successor.key, node.left, deleteMin(node.right));
+    }
+
+    private Node<T> deleteMin(Node<T> node) {
+        if (node.left == null)
+            return node.right;
+        return balance(node.key, deleteMin(node.left), node.right);
+    }
+
+    /**
+     * @return a new node for key over the given subtrees, rotated if their heights
+     *         differ by 2
+     */
+    private Node<T> balance(T key, Node<T> left, Node<T> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                rotations++;
+                return new Node<>(left.key, left.left, new Node<>(key, left.right, right));
+            }
+            Node<T> pivot = left.right;
+            rotations += 2;
+            return new Node<>(pivot.key, new Node<>(left.key, left.left, pivot.left),
+                    new Node<>(key, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                rotations++;
+                return new Node<>(right.key, new Node<>(key, left, right.left), right.right);
+            }
+            Node<T> pivot = right.left;
+            rotations += 2;
+            return new Node<>(pivot.key, new Node<>(key, left, pivot.left),
+                    new Node<>(right.key, pivot.right, right.right));
+        }
+        return new Node<>(key, left, right);
+    }
+
+    @Override
+    public boolean search(T key) {
+        return current.search(key);
+    }
+
+    @Override
+    public int getSize() {
+        return current.getSize();
+    }
+
+    @Override
+    public int getHeight() {
+        return current.getHeight();
+    }
+
+    /**
+     * @return rotations performed so far, a double rotation counting as two
+     */
+    public synchronized long getRotationCount() {
+        return rotations;
+    }
+
+    /**
+     * Visits the keys of the current version; later updates are not seen.
+     */
+    @Override
+    public void inOrder(Consumer<? super T> action) {
+        current.inOrder(action);
+    }
+
+    /**
+     * Checks the structural invariants of the current version in O(n): BST order,
+     * stored heights, balance factors within [-1, 1] and the size.
+     *
+     * @throws IllegalStateException describing the first violation found
+     */
+    public void validate() {
+        Snapshot<T> snapshot = current;
+        int[] count = new int[1];
+        validate(snapshot.root, null, null, count);
+        if (count[0] != snapshot.size)
+            throw new IllegalStateException("Size is " + snapshot.size + " but the tree holds " + count[0] + " keys");
+    }
+
+    private void validate(Node<T> node, T low, T high, int[] count) {
+        if (node == null)
+            return;
+        if ((low != null && node.key.compareTo(low) <= 0) || (high != null && node.key.compareTo(high) >= 0))
+            throw new IllegalStateException("Key " + node.key + " out of order, expected within (" + low + ", " + high
+                    + ")");
+        count[0]++;
+        if (node.height != 1 + Math.max(height(node.left), height(node.right)))
+            throw new IllegalStateException("Node " + node.key + " stores a wrong height " + node.height);
+        if (Math.abs(height(node.left) - height(node.right)) > 1)
+            throw new IllegalStateException("Node " + node.key + " is unbalanced");
+        validate(node.left, low, node.key, count);
+        validate(node.right, node.key, high, count);
+    }
+}
@@ -1,5 +1,13 @@
 package trees;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
 public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
 
     static class MagicNumbers {
@@ -12,7 +20,11 @@ public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<
     static class Node<T> {
         // Remove final to allow in-place updates during deletion
         private T data;
+        // first chars of a string key, see KeyPrefix
+        private long prefix;
         private int color;
+        // tombstone left by a lazy delete, the node still takes part in the structure
+        boolean deleted;
 
         // 0 for left child
         // 1 for right child
@@ -20,6 +32,7 @@ public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<
 
         public Node(T data, int color) {
             this.data = data;
+            this.prefix = KeyPrefix.of(data);
             this.color = color;
             this.child[0] = null;
             this.child[1] = null;
@@ -32,6 +45,7 @@ public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<
         // Add setter for data to support in-place updates
         public void setData(T data) {
             this.data = data;
+            this.prefix = KeyPrefix.of(data);
         }
 
         public boolean isRed() {
@@ -43,13 +57,48 @@ public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<
         }
     }
 
+    // compacting tiny trees is not worth a rebuild
+    private static final int MIN_COMPACTION_TOMBSTONES = 64;
+
     private Node<T> root;
     private int size;
+    private long rotations;
+    // lazy deletion, disabled while 0
+    private double maxTombstoneFraction;
+    private int tombstones;
+    // read-only copy built by freeze(), dropped by the next write
+    private EytzingerIndex<T> frozen;
 
     public RedBlackTree() {
         this.root = null;
     }
 
+    /**
+     * Builds a valid red-black tree from distinct keys in ascending order in O(n),
+     * without any comparisons or rotations. The tree has minimum height; only the
+     * nodes on the deepest level are red.
+     */
+    public static <T extends Comparable<T>> RedBlackTree<T> fromSorted(List<T> sortedKeys) {
+        RedBlackTree<T> tree = new RedBlackTree<>();
+        int n = sortedKeys.size();
+        // levels of a minimum height tree with n nodes
+        int levels = 32 - Integer.numberOfLeadingZeros(n);
+        tree.root = build(sortedKeys, 0, n - 1, 0, levels - 1);
+        tree.size = n;
+        return tree;
+    }
+
+    private static <T> Node<T> build(List<T> keys, int lo, int hi, int depth, int redDepth) {
+        if (lo > hi)
+            return null;
+        int mid = (lo + hi) >>> 1;
+        int color = depth == redDepth && depth > 0 ? MagicNumbers.RED : MagicNumbers.BLACK;
+        Node<T> node = new Node<>(keys.get(mid), color);
+        node.child[MagicNumbers.LEFT] = build(keys, lo, mid - 1, depth + 1, redDepth);
+        node.child[MagicNumbers.RIGHT] = build(keys, mid + 1, hi, depth + 1, redDepth);
+        return node;
+    }
+
     private boolean isRed(Node<T> node) {
         return node != null && node.isRed();
     }
@@ -75,6 +124,7 @@ public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<
         temp.setColor(node.color);
         node.setColor(MagicNumbers.RED);
 
+        rotations++;
         return temp;
     }
 
@@ -117,19 +167,30 @@ public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<
         return node;
     }
 
-    private Node<T> insert(Node<T> node, T key) {
+    private Node<T> insert(Node<T> node, T key, long prefix) {
         if (node == null)
             return new Node<>(key, MagicNumbers.RED);
-        int direction = key.compareTo(node.getData()) < 0 ? MagicNumbers.LEFT : MagicNumbers.RIGHT;
-        node.child[direction] = insert(node.child[direction], key);
+        int cmp = KeyPrefix.compare(key, prefix, node.getData(), node.prefix);
+        int direction = cmp < 0 ? MagicNumbers.LEFT : MagicNumbers.RIGHT;
+        node.child[direction] = insert(node.child[direction], key, prefix);
         return insertFixUp(node, direction);
     }
 
     @Override
     public boolean insert(T key) {
-        if (search(key))
-            return false;
-        root = insert(root, key);
+        Node<T> node = find(key);
+        if (node != null) {
+            if (!node.deleted)
+                return false;
+            // revive the tombstone
+            frozen = null;
+            node.deleted = false;
+            tombstones--;
+            size++;
+            return true;
+        }
+        frozen = null;
+        root = insert(root, key, KeyPrefix.of(key));
         root.setColor(MagicNumbers.BLACK);
         size++;
         return true;
@@ -218,6 +279,7 @@ public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<
             } else { // has 2 children => replace with inorder predecessor and recurse for that
                 Node<T> temp = findMax(node.child[MagicNumbers.LEFT]); // inorder predecessor: maximum value in the left subtree
                 node.setData(temp.getData());
+                node.deleted = temp.deleted;
                 key = temp.getData(); // updating with predecessor data as this is the one to delete now
             }
         }
@@ -242,10 +304,14 @@ public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<
 
     @Override
     public boolean delete(T key) {
+        if (maxTombstoneFraction > 0) {
+            return markDeleted(key);
+        }
         if (!search(key)) {
             return false;
         }
 
+        frozen = null;
         boolean[] ok = { false };
         root = deleteNode(root, key, ok);
         if (root != null) {
@@ -254,19 +320,288 @@ public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<
         size--;
         return true;
     }
+    private boolean markDeleted(T key) {
+        Node<T> node = find(key);
+        if (node == null || node.deleted)
+            return false;
+        frozen = null;
+        node.deleted = true;
+        tombstones++;
+        size--;
+        if (tombstones >= MIN_COMPACTION_TOMBSTONES && tombstones > maxTombstoneFraction * (size + tombstones))
+            compact();
+        return true;
+    }
 
+    /**
+     * Enables lazy deletion: {@link #delete} only marks the node as deleted in a
+     * single descent, without rotations or recoloring. Once tombstones exceed the given
+     * fraction of all nodes the tree is compacted with {@link #fromSorted}'s O(n) build.
+     *
+     * @param maxTombstoneFraction fraction in (0, 1), or 0 to compact and go back to eager deletion
+     */
+    public void setLazyDelete(double maxTombstoneFraction) {
+        if (maxTombstoneFraction < 0 || maxTombstoneFraction >= 1)
+            throw new IllegalArgumentException("Tombstone fraction must be in [0, 1): " + maxTombstoneFraction);
+        if (maxTombstoneFraction == 0)
+            compact();
+        this.maxTombstoneFraction = maxTombstoneFraction;
+    }
 
-    @Override
-    public boolean search(T key) {
+    /**
+     * Removes all tombstones by rebuilding the tree from the live keys in O(n).
+     */
+    public void compact() {
+        if (tombstones == 0)
+            return;
+        List<T> live = new ArrayList<>(size);
+        inOrder(live::add);
+        root = build(live, 0, live.size() - 1, 0, 31 - Integer.numberOfLeadingZeros(live.size()));
+        tombstones = 0;
+    }
+
+    /**
+     * @return true if a batch of the given size is cheaper to merge into the tree
+     *         with an O(n) rebuild than to apply key by key in O(log n) each
+     */
+    private boolean isWorthRebuilding(int batchSize) {
+        int nodes = size + tombstones;
+        return (long) batchSize * (32 - Integer.numberOfLeadingZeros(nodes)) >= nodes;
+    }
+
+    /**
+     * Inserts distinct keys in ascending order. Large batches are merged linearly
+     * with the live nodes, which are then relinked into a minimum height tree like
+     * {@link #fromSorted} builds, without any rotations or fix-ups; this also drops
+     * all tombstones. Small batches are inserted one by one.
+     *
+     * @return number of keys inserted, the others were already present
+     */
+    public int bulkInsert(List<T> sortedKeys) {
+        int inserted = 0;
+        if (!isWorthRebuilding(sortedKeys.size())) {
+            for (T key : sortedKeys)
+                if (insert(key))
+                    inserted++;
+            return inserted;
+        }
+        List<Node<T>> merged = new ArrayList<>(size + sortedKeys.size());
+        int[] next = { 0 };
+        forEachLiveNode(root, node -> {
+            while (next[0] < sortedKeys.size() && sortedKeys.get(next[0]).compareTo(node.getData()) < 0)
+                merged.add(new Node<>(sortedKeys.get(next[0]++), MagicNumbers.BLACK));
+            if (next[0] < sortedKeys.size() && sortedKeys.get(next[0]).compareTo(node.getData()) == 0)
+                next[0]++;
+            merged.add(node);
+        });
+        while (next[0] < sortedKeys.size())
+            merged.add(new Node<>(sortedKeys.get(next[0]++), MagicNumbers.BLACK));
+        inserted = merged.size() - size;
+        if (inserted > 0) {
+            frozen = null;
+            relink(merged);
+        }
+        return inserted;
+    }
+
+    /**
+     * Deletes distinct keys in ascending order, like {@link #bulkInsert}.
+     *
+     * @return number of keys deleted, the others were absent
+     */
+    public int bulkDelete(List<T> sortedKeys) {
+        int deleted = 0;
+        if (!isWorthRebuilding(sortedKeys.size())) {
+            for (T key : sortedKeys)
+                if (delete(key))
+                    deleted++;
+            return deleted;
+        }
+        List<Node<T>> kept = new ArrayList<>(size);
+        int[] next = { 0 };
+        forEachLiveNode(root, node -> {
+            while (next[0] < sortedKeys.size() && sortedKeys.get(next[0]).compareTo(node.getData()) < 0)
+                next[0]++;
+            if (next[0] < sortedKeys.size() && sortedKeys.get(next[0]).compareTo(node.getData()) == 0)
+                next[0]++;
+            else
+                kept.add(node);
+        });
+        deleted = size - kept.size();
+        if (deleted > 0) {
+            frozen = null;
+            relink(kept);
+        }
+        return deleted;
+    }
+
+    private void forEachLiveNode(Node<T> node, Consumer<Node<T>> action) {
+        while (node != null) {
+            forEachLiveNode(node.child[MagicNumbers.LEFT], action);
+            if (!node.deleted)
+                action.accept(node);
+            node = node.child[MagicNumbers.RIGHT];
+        }
+    }
+
+    private void relink(List<Node<T>> nodes) {
+        root = relink(nodes, 0, nodes.size() - 1, 0, 31 - Integer.numberOfLeadingZeros(nodes.size()));
+        size = nodes.size();
+        tombstones = 0;
+    }
+
+    /**
+     * Same shape and colors as {@link #build}, reusing the given nodes.
+     */
+    private static <T> Node<T> relink(List<Node<T>> nodes, int lo, int hi, int depth, int redDepth) {
+        if (lo > hi)
+            return null;
+        int mid = (lo + hi) >>> 1;
+        Node<T> node = nodes.get(mid);
+        node.setColor(depth == redDepth && depth > 0 ? MagicNumbers.RED : MagicNumbers.BLACK);
+        node.child[MagicNumbers.LEFT] = relink(nodes, lo, mid - 1, depth + 1, redDepth);
+        node.child[MagicNumbers.RIGHT] = relink(nodes, mid + 1, hi, depth + 1, redDepth);
+        return node;
+    }
+
+    /**
+     * Copies the live keys into an {@link EytzingerIndex} that serves all searches
+     * until the next successful insert or delete, which thaws the tree again.
+     */
+    public void freeze() {
+        if (frozen != null)
+            return;
+        List<T> live = new ArrayList<>(size);
+        inOrder(live::add);
+        frozen = EytzingerIndex.fromSorted(live);
+    }
+
+    public boolean isFrozen() {
+        return frozen != null;
+    }
+
+    public int getTombstoneCount() {
+        return tombstones;
+    }
+
+    /**
+     * @return rotations performed so far, a double rotation counting as two
+     */
+    public long getRotationCount() {
+        return rotations;
+    }
+
+    /**
+     * Writes the exact tree shape in pre-order: per node a flag byte holding its
+     * color and the length-prefixed key. Tombstones and the lazy deletion setting are
+     * kept. {@link #readFrom} rebuilds the tree without any compares or rotations.
+     */
+    public void writeTo(OutputStream out, KeyCodec<T> codec) throws IOException {
+        ShapeOutput output = new ShapeOutput(out);
+        output.writeHeader(ShapeOutput.RED_BLACK, size, tombstones, maxTombstoneFraction);
+        writeTo(root, output, codec);
+        output.flush();
+    }
+
+    private void writeTo(Node<T> node, ShapeOutput output, KeyCodec<T> codec) throws IOException {
+        while (node != null) {
+            Node<T> left = node.child[MagicNumbers.LEFT];
+            Node<T> right = node.child[MagicNumbers.RIGHT];
+            int flags = (left != null ? ShapeOutput.HAS_LEFT : 0) | (right != null ? ShapeOutput.HAS_RIGHT : 0)
+                    | (node.deleted ? ShapeOutput.DELETED : 0) | (node.isRed() ? ShapeOutput.RED : 0);
+            output.writeByte(flags);
+            output.writeKey(node.getData(), codec);
+            writeTo(left, output, codec);
+            node = right;
+        }
+    }
+
+    /**
+     * Loads a tree written by {@link #writeTo}. The shape is trusted as is, call
+     * {@link #validate()} to check files from untrusted sources.
+     *
+     * @throws IOException if the stream is not a red-black tree shape or is truncated
+     */
+    public static <T extends Comparable<T>> RedBlackTree<T> readFrom(InputStream in, KeyCodec<T> codec)
+            throws IOException {
+        ShapeInput input = new ShapeInput(in);
+        input.readHeader(ShapeOutput.RED_BLACK);
+        RedBlackTree<T> tree = new RedBlackTree<>();
+        // [0] live nodes, [1] tombstones
+        int[] count = new int[2];
+        if (input.getSize() + input.getTombstones() > 0)
+            tree.root = readNode(input, codec, 1, count);
+        input.finish(count[0], count[1]);
+        tree.size = input.getSize();
+        tree.tombstones = input.getTombstones();
+        tree.maxTombstoneFraction = input.getMaxTombstoneFraction();
+        return tree;
+    }
+
+    private static <T> Node<T> readNode(ShapeInput input, KeyCodec<T> codec, int depth, int[] count)
+            throws IOException {
+        int flags = input.readNode(depth);
+        int color = (flags & ShapeOutput.RED) != 0 ? MagicNumbers.RED : MagicNumbers.BLACK;
+        Node<T> node = new Node<>(input.readKey(codec), color);
+        node.deleted = (flags & ShapeOutput.DELETED) != 0;
+        count[node.deleted ? 1 : 0]++;
+        if ((flags & ShapeOutput.HAS_LEFT) != 0)
+            node.child[MagicNumbers.LEFT] = readNode(input, codec, depth + 1, count);
+        if ((flags & ShapeOutput.HAS_RIGHT) != 0)
+            node.child[MagicNumbers.RIGHT] = readNode(input, codec, depth + 1, count);
+        return node;
+    }
+
+    /**
+     * Estimates the retained heap size of the tree with the running JVM's layout.
+     * Tombstoned nodes and their keys are included. Every node pays for a separate
+     * two-element child array on top of the node object.
+     */
+    public MemoryFootprint memoryFootprint() {
+        return memoryFootprint(MemoryLayout.current());
+    }
+
+    public MemoryFootprint memoryFootprint(MemoryLayout layout) {
+        // data and child; long prefix, int color, boolean deleted
+        long nodeSize = layout.objectSize(2, 13);
+        long childArraySize = layout.arraySize(2, layout.getReferenceSize());
+        // root, frozen; int size, long rotations, double maxTombstoneFraction, int tombstones
+        long treeSize = layout.objectSize(2, 24);
+        if (frozen != null)
+            treeSize += frozen.memoryFootprint(layout);
+        int nodes = size + tombstones;
+        return new MemoryFootprint(size, nodes * nodeSize, nodes * childArraySize, keyBytes(root, layout), treeSize);
+    }
+
+    private long keyBytes(Node<T> node, MemoryLayout layout) {
+        long bytes = 0;
+        while (node != null) {
+            bytes += keyBytes(node.child[MagicNumbers.LEFT], layout) + layout.keySize(node.getData());
+            node = node.child[MagicNumbers.RIGHT];
+        }
+        return bytes;
+    }
+
+    private Node<T> find(T key) {
+        long prefix = KeyPrefix.of(key);
         Node<T> curr = root;
         while (curr != null) {
-            int cmp = key.compareTo(curr.getData());
+            int cmp = KeyPrefix.compare(key, prefix, curr.getData(), curr.prefix);
             if (cmp == 0) {
-                return true;
+                return curr;
             }
             curr = cmp < 0 ? curr.child[MagicNumbers.LEFT] : curr.child[MagicNumbers.RIGHT];
         }
-        return false;
+        return null;
+    }
+
+    @Override
+    public boolean search(T key) {
+        EytzingerIndex<T> index = frozen;
+        if (index != null)
+            return index.contains(key);
+        Node<T> node = find(key);
+        return node != null && !node.deleted;
     }
 
     @Override
@@ -290,4 +625,80 @@ public class RedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<
         return getHeight(root);
     }
 
+    /**
+     * Checks the structural invariants in O(n): BST order, black root, no red node
+     * with a red child, the same number of black nodes on every root-to-leaf path
+     * and the size and tombstone counters.
+     *
+     * @throws IllegalStateException describing the first violation found
+     */
+    public void validate() {
+        if (isRed(root))
+            throw new IllegalStateException("Root " + root.getData() + " is red");
+        // [0] live keys, [1] tombstones
+        int[] count = new int[2];
+        validate(root, null, null, count);
+        if (count[0] != size)
+            throw new IllegalStateException("Size is " + size + " but the tree holds " + count[0] + " keys");
+        if (count[1] != tombstones)
+            throw new IllegalStateException("Tombstone count is " + tombstones + " but the tree holds " + count[1]);
+    }
+
+    /**
+     * @return black height of the subtree
+     */
+    private int validate(Node<T> node, T low, T high, int[] count) {
+        if (node == null)
+            return 1;
+        T data = node.getData();
+        if ((low != null && data.compareTo(low) <= 0) || (high != null && data.compareTo(high) >= 0))
+            throw new IllegalStateException("Key " + data + " out of order, expected within (" + low + ", " + high + ")");
+        count[node.deleted ? 1 : 0]++;
+
+        Node<T> left = node.child[MagicNumbers.LEFT];
+        Node<T> right = node.child[MagicNumbers.RIGHT];
+        if (node.isRed() && (isRed(left) || isRed(right)))
+            throw new IllegalStateException("Red node " + data + " has a red child");
+
+        int leftBlackHeight = validate(left, low, data, count);
+        int rightBlackHeight = validate(right, data, high, count);
+        if (leftBlackHeight != rightBlackHeight)
+            throw new IllegalStateException("Node " + data + " has black heights " + leftBlackHeight + " and "
+                    + rightBlackHeight);
+        return leftBlackHeight + (node.isRed() ? 0 : 1);
+    }
+
+    @Override
+    public void inOrder(Consumer<? super T> action) {
+        inOrder(root, action);
+    }
+
+    private void inOrder(Node<T> node, Consumer<? super T> action) {
+        while (node != null) {
+            inOrder(node.child[MagicNumbers.LEFT], action);
+            if (!node.deleted)
+                action.accept(node.getData());
+            node = node.child[MagicNumbers.RIGHT];
+        }
+    }
+
+    /**
+     * Passes every subtree's bounds, taken from its ancestors' keys, to skipRange.
+     */
+    @Override
+    public void inOrder(BiPredicate<? super T, ? super T> skipRange, Consumer<? super T> action) {
+        inOrder(root, null, null, skipRange, action);
+    }
+
+    private void inOrder(Node<T> node, T low, T high, BiPredicate<? super T, ? super T> skipRange,
+            Consumer<? super T> action) {
+        while (node != null && !skipRange.test(low, high)) {
+            inOrder(node.child[MagicNumbers.LEFT], low, node.getData(), skipRange, action);
+            if (!node.deleted)
+                action.accept(node.getData());
+            low = node.getData();
+            node = node.child[MagicNumbers.RIGHT];
+        }
+    }
+
 }
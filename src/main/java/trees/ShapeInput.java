@@ -0,0 +1,140 @@
+package trees;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Buffered reader of tree shape files written by {@link ShapeOutput}. Keys are
+ * decoded straight from the read buffer.
+ */
+class ShapeInput {
+    private final InputStream in;
+    private byte[] buffer = new byte[1 << 16];
+    private int position;
+    private int limit;
+
+    private int size;
+    private int tombstones;
+    private double maxTombstoneFraction;
+    // nodes announced by the header and not read yet
+    private long remaining;
+
+    ShapeInput(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads and checks the header; the counters are available afterwards.
+     *
+     * @param kind expected {@link ShapeOutput#AVL} or {@link ShapeOutput#RED_BLACK}
+     */
+    void readHeader(int kind) throws IOException {
+        if (readInt() != ShapeOutput.MAGIC)
+            throw new IOException("Not a tree shape file");
+        int version = readByte();
+        if (version != ShapeOutput.VERSION)
+            throw new IOException("Unsupported tree shape file version " + version);
+        int fileKind = readByte();
+        if (fileKind != kind)
+            throw new IOException("File holds " + kindName(fileKind) + " tree, expected " + kindName(kind));
+        size = readVarInt();
+        tombstones = readVarInt();
+        maxTombstoneFraction = Double.longBitsToDouble((long) readInt() << 32 | (readInt() & 0xFFFFFFFFL));
+        if (size < 0 || tombstones < 0 || !(maxTombstoneFraction >= 0 && maxTombstoneFraction < 1))
+            throw new IOException("Corrupt tree shape header");
+        remaining = (long) size + tombstones;
+    }
+
+    private static String kindName(int kind) {
+        return kind == ShapeOutput.AVL ? "an AVL" : kind == ShapeOutput.RED_BLACK ? "a Red-Black" : "an unknown";
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    int getTombstones() {
+        return tombstones;
+    }
+
+    double getMaxTombstoneFraction() {
+        return maxTombstoneFraction;
+    }
+
+    /**
+     * @return the flags of the next node
+     */
+    int readNode(int depth) throws IOException {
+        if (--remaining < 0)
+            throw new IOException("More nodes than announced in the header");
+        if (depth > ShapeOutput.MAX_DEPTH)
+            throw new IOException("Tree deeper than " + ShapeOutput.MAX_DEPTH + " levels");
+        return readByte();
+    }
+
+    /**
+     * Checks that every announced node was read and no live or deleted node is missing.
+     */
+    void finish(int liveNodes, int deletedNodes) throws IOException {
+        if (remaining != 0 || liveNodes != size || deletedNodes != tombstones)
+            throw new IOException("Node count does not match the header");
+    }
+
+    int readByte() throws IOException {
+        if (position == limit && !fill(1))
+            throw new EOFException("Truncated tree shape file");
+        return buffer[position++] & 0xFF;
+    }
+
+    private int readInt() throws IOException {
+        return readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+    }
+
+    int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if (b < 0x80)
+                return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    <T> T readKey(KeyCodec<T> codec) throws IOException {
+        int length = readVarInt();
+        if (length < 0)
+            throw new IOException("Malformed key length");
+        if (limit - position < length && !fill(length))
+            throw new EOFException("Truncated tree shape file");
+        T key = codec.decode(buffer, position, length);
+        position += length;
+        return key;
+    }
+
+    /**
+     * Makes at least n bytes available, growing the buffer for oversized keys.
+     *
+     * @return false on end of stream
+     */
+    private boolean fill(int n) throws IOException {
+        int available = limit - position;
+        if (n > buffer.length) {
+            byte[] grown = new byte[n];
+            System.arraycopy(buffer, position, grown, 0, available);
+            buffer = grown;
+        } else {
+            System.arraycopy(buffer, position, buffer, 0, available);
+        }
+        position = 0;
+        limit = available;
+        while (limit < n) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0)
+                return false;
+            limit += read;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package trees;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Buffered writer of tree shape files. A file is a header followed by the nodes
+ * in pre-order, each a flag byte, tree specific metadata and the length-prefixed
+ * key. Lengths and counts are unsigned LEB128 varints.
+ */
+class ShapeOutput {
+    static final int MAGIC = 0x42535453; // "BSTS"
+    static final int VERSION = 1;
+    static final int AVL = 1;
+    static final int RED_BLACK = 2;
+
+    // node flags
+    static final int HAS_LEFT = 1;
+    static final int HAS_RIGHT = 1 << 1;
+    static final int DELETED = 1 << 2;
+    static final int RED = 1 << 3;
+
+    // deeper than any balanced tree of 2^31 nodes, guards the recursive loader
+    static final int MAX_DEPTH = 128;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[1 << 16];
+    private int position;
+
+    ShapeOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * @param kind                 {@link #AVL} or {@link #RED_BLACK}
+     * @param maxTombstoneFraction lazy deletion setting, restored on load
+     */
+    void writeHeader(int kind, int size, int tombstones, double maxTombstoneFraction) throws IOException {
+        writeInt(MAGIC);
+        writeByte(VERSION);
+        writeByte(kind);
+        writeVarInt(size);
+        writeVarInt(tombstones);
+        long bits = Double.doubleToLongBits(maxTombstoneFraction);
+        writeInt((int) (bits >>> 32));
+        writeInt((int) bits);
+    }
+
+    void writeByte(int value) throws IOException {
+        if (position == buffer.length)
+            flush();
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeInt(int value) throws IOException {
+        writeByte(value >>> 24);
+        writeByte(value >>> 16);
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    <T> void writeKey(T key, KeyCodec<T> codec) throws IOException {
+        byte[] bytes = codec.encode(key);
+        writeVarInt(bytes.length);
+        if (bytes.length > buffer.length - position)
+            flush();
+        if (bytes.length > buffer.length) {
+            out.write(bytes);
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
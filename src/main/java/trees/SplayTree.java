@@ -0,0 +1,193 @@
+package trees;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Self-adjusting binary search tree. Every access splays the key (or the last node
+ * on its search path) to the root, so frequently used keys stay near the top and
+ * skewed workloads need far fewer comparisons than in a height-balanced tree.
+ * Operations are O(log n) amortized; a single operation may take O(n).
+ * <p>
+ * Note that {@link #search} restructures the tree.
+ */
+public class SplayTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
+    private class Node {
+        T key;
+        Node left, right;
+
+        Node(T key) {
+            this.key = key;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    /**
+     * Top-down splay: moves the node holding key, or the last node on its search
+     * path, to the root.
+     */
+    private void splay(T key) {
+        if (root == null) {
+            return;
+        }
+        Node header = new Node(null);
+        Node leftMax = header;  // right-most node of the tree of smaller keys
+        Node rightMin = header; // left-most node of the tree of greater keys
+        Node curr = root;
+
+        while (true) {
+            int cmp = key.compareTo(curr.key);
+            if (cmp < 0) {
+                if (curr.left == null) {
+                    break;
+                }
+                if (key.compareTo(curr.left.key) < 0) {
+                    // zig-zig => rotate right
+                    Node L = curr.left;
+                    curr.left = L.right;
+                    L.right = curr;
+                    curr = L;
+                    if (curr.left == null) {
+                        break;
+                    }
+                }
+                // link right
+                rightMin.left = curr;
+                rightMin = curr;
+                curr = curr.left;
+            } else if (cmp > 0) {
+                if (curr.right == null) {
+                    break;
+                }
+                if (key.compareTo(curr.right.key) > 0) {
+                    // zag-zag => rotate left
+                    Node R = curr.right;
+                    curr.right = R.left;
+                    R.left = curr;
+                    curr = R;
+                    if (curr.right == null) {
+                        break;
+                    }
+                }
+                // link left
+                leftMax.right = curr;
+                leftMax = curr;
+                curr = curr.right;
+            } else {
+                break;
+            }
+        }
+
+        // assemble
+        leftMax.right = curr.left;
+        rightMin.left = curr.right;
+        curr.left = header.right;
+        curr.right = header.left;
+        root = curr;
+    }
+
+    @Override
+    public boolean insert(T key) {
+        if (root == null) {
+            root = new Node(key);
+            size++;
+            return true;
+        }
+        splay(key);
+        int cmp = key.compareTo(root.key);
+        if (cmp == 0) {
+            return false;
+        }
+        Node node = new Node(key);
+        if (cmp < 0) {
+            node.left = root.left;
+            node.right = root;
+            root.left = null;
+        } else {
+            node.right = root.right;
+            node.left = root;
+            root.right = null;
+        }
+        root = node;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean delete(T key) {
+        if (root == null) {
+            return false;
+        }
+        splay(key);
+        if (key.compareTo(root.key) != 0) {
+            return false;
+        }
+        if (root.left == null) {
+            root = root.right;
+        } else {
+            Node right = root.right;
+            root = root.left;
+            // the maximum of the left tree becomes the root and has no right child
+            splay(key);
+            root.right = right;
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean search(T key) {
+        if (root == null) {
+            return false;
+        }
+        splay(key);
+        return key.compareTo(root.key) == 0;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getHeight() {
+        // iterative level-order count, a splay tree may be as deep as it is large
+        if (root == null) {
+            return 0;
+        }
+        Deque<Node> level = new ArrayDeque<>();
+        level.add(root);
+        int height = 0;
+        while (!level.isEmpty()) {
+            height++;
+            for (int i = level.size(); i > 0; i--) {
+                Node node = level.poll();
+                if (node.left != null) {
+                    level.add(node.left);
+                }
+                if (node.right != null) {
+                    level.add(node.right);
+                }
+            }
+        }
+        return height;
+    }
+
+    @Override
+    public void inOrder(Consumer<? super T> action) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Node curr = root;
+        while (curr != null || !stack.isEmpty()) {
+            while (curr != null) {
+                stack.push(curr);
+                curr = curr.left;
+            }
+            curr = stack.pop();
+            action.accept(curr.key);
+            curr = curr.right;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package trees;
+
+import java.util.function.Consumer;
+
+/**
+ * Red-black tree with single-pass top-down insertion and deletion (Guibas and
+ * Sedgewick; formulation after Julienne Walker). Color flips and rotations are done
+ * on the way down, so both operations finish in one descent without recursion or
+ * parent pointers, using O(1) extra space.
+ * <p>
+ * Insertion splits 4-nodes (black nodes with two red children) before stepping
+ * into them, so the new red leaf can always be attached with at most one rotation
+ * above it. Deletion pushes a red node down the search path, so the node finally
+ * removed is red and removing it never changes a black height. A node with two
+ * children is replaced by its in-order predecessor, like in {@link RedBlackTree}.
+ */
+public class TopDownRedBlackTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+
+    private static final class Node<T> {
+        T data;
+        boolean red;
+        @SuppressWarnings("unchecked") // generic arrays cannot be created directly
+        final Node<T>[] child = (Node<T>[]) new Node<?>[2];
+
+        Node(T data) {
+            this.data = data;
+            this.red = true;
+        }
+    }
+
+    private Node<T> root;
+    private int size;
+
+    private static boolean isRed(Node<?> node) {
+        return node != null && node.red;
+    }
+
+    /**
+     * Rotates in the given direction; the new subtree root becomes black and the
+     * old one red.
+     */
+    private static <T> Node<T> rotate(Node<T> node, int direction) {
+        Node<T> temp = node.child[1 - direction];
+        node.child[1 - direction] = temp.child[direction];
+        temp.child[direction] = node;
+        node.red = true;
+        temp.red = false;
+        return temp;
+    }
+
+    private static <T> Node<T> doubleRotate(Node<T> node, int direction) {
+        node.child[1 - direction] = rotate(node.child[1 - direction], 1 - direction);
+        return rotate(node, direction);
+    }
+
+    @Override
+    public boolean insert(T key) {
+        if (root == null) {
+            root = new Node<>(key);
+            root.red = false;
+            size++;
+            return true;
+        }
+
+        // false root, so rotations at the real root need no special case
+        Node<T> head = new Node<>(null);
+        head.red = false;
+        head.child[RIGHT] = root;
+
+        // great-grandparent, grandparent, parent and current node
+        Node<T> great = head;
+        Node<T> grand = null;
+        Node<T> parent = null;
+        Node<T> node = root;
+        int direction = LEFT;
+        int last = LEFT;
+        boolean inserted = false;
+
+        while (true) {
+            if (node == null) {
+                node = new Node<>(key);
+                parent.child[direction] = node;
+                inserted = true;
+            } else if (isRed(node.child[LEFT]) && isRed(node.child[RIGHT])) {
+                // split the 4-node
+                node.red = true;
+                node.child[LEFT].red = false;
+                node.child[RIGHT].red = false;
+            }
+
+            // the insertion or the flip created two reds in a row => rotate at the grandparent
+            if (isRed(node) && isRed(parent)) {
+                int side = great.child[RIGHT] == grand ? RIGHT : LEFT;
+                if (node == parent.child[last])
+                    great.child[side] = rotate(grand, 1 - last);
+                else
+                    great.child[side] = doubleRotate(grand, 1 - last);
+            }
+
+            int cmp = key.compareTo(node.data);
+            if (cmp == 0)
+                break;
+            last = direction;
+            direction = cmp < 0 ? LEFT : RIGHT;
+            if (grand != null)
+                great = grand;
+            grand = parent;
+            parent = node;
+            node = node.child[direction];
+        }
+
+        root = head.child[RIGHT];
+        root.red = false;
+        if (inserted)
+            size++;
+        return inserted;
+    }
+
+    @Override
+    public boolean delete(T key) {
+        if (root == null)
+            return false;
+
+        Node<T> head = new Node<>(null);
+        head.red = false;
+        head.child[RIGHT] = root;
+
+        Node<T> grand = null;
+        Node<T> parent = null;
+        Node<T> node = head;
+        Node<T> found = null;
+        int direction = RIGHT;
+
+        // walk down to the in-order predecessor of the key (or the key itself when it
+        // has at most one child), keeping the current node red
+        while (node.child[direction] != null) {
+            int last = direction;
+            grand = parent;
+            parent = node;
+            node = node.child[direction];
+            int cmp = key.compareTo(node.data);
+            direction = cmp > 0 ? RIGHT : LEFT;
+            if (cmp == 0)
+                found = node;
+
+            if (isRed(node) || isRed(node.child[direction]))
+                continue;
+            if (isRed(node.child[1 - direction])) {
+                // red sibling below => rotate it up, the current node becomes red
+                parent.child[last] = rotate(node, direction);
+                parent = parent.child[last];
+                continue;
+            }
+            Node<T> sibling = parent.child[1 - last];
+            if (sibling == null)
+                continue;
+            if (!isRed(sibling.child[LEFT]) && !isRed(sibling.child[RIGHT])) {
+                // merge into a 4-node
+                parent.red = false;
+                sibling.red = true;
+                node.red = true;
+            } else {
+                // borrow from the sibling
+                int side = grand.child[RIGHT] == parent ? RIGHT : LEFT;
+                if (isRed(sibling.child[last]))
+                    grand.child[side] = doubleRotate(parent, last);
+                else
+                    grand.child[side] = rotate(parent, last);
+                Node<T> top = grand.child[side];
+                node.red = true;
+                top.red = true;
+                top.child[LEFT].red = false;
+                top.child[RIGHT].red = false;
+            }
+        }
+
+        if (found != null) {
+            // node is the predecessor (or found itself) and has at most one child
+            found.data = node.data;
+            int side = parent.child[RIGHT] == node ? RIGHT : LEFT;
+            parent.child[side] = node.child[node.child[LEFT] == null ? RIGHT : LEFT];
+            size--;
+        }
+
+        root = head.child[RIGHT];
+        if (root != null)
+            root.red = false;
+        return found != null;
+    }
+
+    @Override
+    public boolean search(T key) {
+        Node<T> curr = root;
+        while (curr != null) {
+            int cmp = key.compareTo(curr.data);
+            if (cmp == 0) {
+                return true;
+            }
+            curr = cmp < 0 ? curr.child[LEFT] : curr.child[RIGHT];
+        }
+        return false;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    private int getHeight(Node<T> node) {
+        if (node == null) {
+            return 0;
+        }
+        return 1 + Math.max(getHeight(node.child[LEFT]), getHeight(node.child[RIGHT]));
+    }
+
+    @Override
+    public int getHeight() {
+        return getHeight(root);
+    }
+
+    /**
+     * Checks the structural invariants in O(n): BST order, black root, no red node
+     * with a red child, the same number of black nodes on every root-to-leaf path
+     * and the size counter.
+     *
+     * @throws IllegalStateException describing the first violation found
+     */
+    public void validate() {
+        if (isRed(root))
+            throw new IllegalStateException("Root " + root.data + " is red");
+        int[] count = new int[1];
+        validate(root, null, null, count);
+        if (count[0] != size)
+            throw new IllegalStateException("Size is " + size + " but the tree holds " + count[0] + " keys");
+    }
+
+    /**
+     * @return black height of the subtree
+     */
+    private int validate(Node<T> node, T low, T high, int[] count) {
+        if (node == null)
+            return 1;
+        T data = node.data;
+        if ((low != null && data.compareTo(low) <= 0) || (high != null && data.compareTo(high) >= 0))
+            throw new IllegalStateException("Key " + data + " out of order, expected within (" + low + ", " + high + ")");
+        count[0]++;
+
+        Node<T> left = node.child[LEFT];
+        Node<T> right = node.child[RIGHT];
+        if (node.red && (isRed(left) || isRed(right)))
+            throw new IllegalStateException("Red node " + data + " has a red child");
+
+        int leftBlackHeight = validate(left, low, data, count);
+        int rightBlackHeight = validate(right, data, high, count);
+        if (leftBlackHeight != rightBlackHeight)
+            throw new IllegalStateException("Node " + data + " has black heights " + leftBlackHeight + " and "
+                    + rightBlackHeight);
+        return leftBlackHeight + (node.red ? 0 : 1);
+    }
+
+    @Override
+    public void inOrder(Consumer<? super T> action) {
+        inOrder(root, action);
+    }
+
+    private void inOrder(Node<T> node, Consumer<? super T> action) {
+        while (node != null) {
+            inOrder(node.child[LEFT], action);
+            action.accept(node.data);
+            node = node.child[RIGHT];
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package trees;
+
+import java.util.function.Consumer;
+
+/**
+ * Weak AVL tree (Haeupler, Sen and Tarjan, "Rank-Balanced Trees"). Every node has
+ * a rank; the rank difference to each child is 1 or 2, a missing child has rank -1
+ * and leaves have rank 0.
+ * <p>
+ * Insertion rebalances exactly like an AVL tree, so a tree built by insertions alone
+ * is an AVL tree. Deletion only demotes ranks on the way up and ends with at most
+ * two rotations, instead of possibly rotating at every level like
+ * {@link AVLTree#delete}. Rebalancing takes O(1) amortized rank changes and at most
+ * two rotations per update; the height stays below 2 log2 n.
+ */
+public class WAVLTree<T extends Comparable<T>> implements ISelfBalancingBST<T> {
+
+    private class Node {
+        T key;
+        int rank;
+        Node left, right;
+
+        Node(T key) {
+            this.key = key;
+        }
+    }
+
+    private Node root;
+    private int size;
+    private long rotations;
+
+    private int rank(Node node) {
+        return node == null ? -1 : node.rank;
+    }
+
+    private Node leftRotate(Node node) {
+        Node R = node.right;
+        node.right = R.left;
+        R.left = node;
+        rotations++;
+        return R;
+    }
+
+    private Node rightRotate(Node node) {
+        Node L = node.left;
+        node.left = L.right;
+        L.right = node;
+        rotations++;
+        return L;
+    }
+
+    @Override
+    public boolean insert(T key) {
+        if (search(key)) {
+            return false;
+        }
+        root = insert(root, key);
+        size++;
+        return true;
+    }
+
+    private Node insert(Node node, T key) {
+        if (node == null) {
+            return new Node(key);
+        }
+        if (key.compareTo(node.key) < 0) {
+            node.left = insert(node.left, key);
+            return rebalanceInsertLeft(node);
+        }
+        node.right = insert(node.right, key);
+        return rebalanceInsertRight(node);
+    }
+
+    // the left child may have become a 0-child
+    private Node rebalanceInsertLeft(Node node) {
+        Node x = node.left;
+        if (x.rank != node.rank) {
+            return node;
+        }
+        if (node.rank - rank(node.right) == 1) {
+            // 0,1 node => promote and let the parent check
+            node.rank++;
+            return node;
+        }
+        node.rank--;
+        if (x.rank - rank(x.right) == 2) {
+            return rightRotate(node);
+        }
+        Node y = x.right;
+        x.rank--;
+        y.rank++;
+        node.left = leftRotate(x);
+        return rightRotate(node);
+    }
+
+    private Node rebalanceInsertRight(Node node) {
+        Node x = node.right;
+        if (x.rank != node.rank) {
+            return node;
+        }
+        if (node.rank - rank(node.left) == 1) {
+            node.rank++;
+            return node;
+        }
+        node.rank--;
+        if (x.rank - rank(x.left) == 2) {
+            return leftRotate(node);
+        }
+        Node y = x.left;
+        x.rank--;
+        y.rank++;
+        node.right = rightRotate(x);
+        return leftRotate(node);
+    }
+
+    @Override
+    public boolean delete(T key) {
+        if (!search(key)) {
+            return false;
+        }
+        root = delete(root, key);
+        size--;
+        return true;
+    }
+
+    private Node delete(Node node, T key) {
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            node.left = delete(node.left, key);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, key);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else {
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.key = successor.key;
+            node.right = delete(node.right, successor.key);
+        }
+        return rebalanceDelete(node);
+    }
+
+    private Node rebalanceDelete(Node node) {
+        if (node.left == null && node.right == null) {
+            // 2,2 leaf => demote
+            node.rank = 0;
+            return node;
+        }
+        if (node.rank - rank(node.left) == 3) {
+            return fixThreeChild(node, true);
+        }
+        if (node.rank - rank(node.right) == 3) {
+            return fixThreeChild(node, false);
+        }
+        return node;
+    }
+
+    /**
+     * Fixes a 3-child. Demotions leave a possible 3-child one level up for the
+     * parent to fix; a rotation ends the rebalancing.
+     */
+    private Node fixThreeChild(Node node, boolean leftIsShort) {
+        Node y = leftIsShort ? node.right : node.left;
+        if (node.rank - y.rank == 2) {
+            node.rank--;
+            return node;
+        }
+        Node outer = leftIsShort ? y.right : y.left;
+        Node inner = leftIsShort ? y.left : y.right;
+        if (y.rank - rank(outer) == 2 && y.rank - rank(inner) == 2) {
+            node.rank--;
+            y.rank--;
+            return node;
+        }
+        if (y.rank - rank(outer) == 1) {
+            Node top = leftIsShort ? leftRotate(node) : rightRotate(node);
+            y.rank++;
+            node.rank--;
+            if (node.left == null && node.right == null) {
+                node.rank--;
+            }
+            return top;
+        }
+        inner.rank += 2;
+        y.rank--;
+        node.rank -= 2;
+        if (leftIsShort) {
+            node.right = rightRotate(y);
+            return leftRotate(node);
+        }
+        node.left = leftRotate(y);
+        return rightRotate(node);
+    }
+
+    @Override
+    public boolean search(T key) {
+        Node curr = root;
+        while (curr != null) {
+            int cmp = key.compareTo(curr.key);
+            if (cmp == 0) {
+                return true;
+            }
+            curr = cmp < 0 ? curr.left : curr.right;
+        }
+        return false;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    private int getHeight(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        return 1 + Math.max(getHeight(node.left), getHeight(node.right));
+    }
+
+    @Override
+    public int getHeight() {
+        return getHeight(root);
+    }
+
+    /**
+     * @return rotations performed so far, a double rotation counting as two
+     */
+    public long getRotationCount() {
+        return rotations;
+    }
+
+    /**
+     * Checks the structural invariants in O(n): BST order, rank differences of 1 or
+     * 2, rank 0 at leaves and the size counter.
+     *
+     * @throws IllegalStateException describing the first violation found
+     */
+    public void validate() {
+        int[] count = new int[1];
+        validate(root, null, null, count);
+        if (count[0] != size) {
+            throw new IllegalStateException("Size is " + size + " but the tree holds " + count[0] + " keys");
+        }
+    }
+
+    private void validate(Node node, T low, T high, int[] count) {
+        if (node == null) {
+            return;
+        }
+        if ((low != null && node.key.compareTo(low) <= 0) || (high != null && node.key.compareTo(high) >= 0)) {
+            throw new IllegalStateException("Key " + node.key + " out of order, expected within (" + low + ", " + high
+                    + ")");
+        }
+        count[0]++;
+        int leftDiff = node.rank - rank(node.left);
+        int rightDiff = node.rank - rank(node.right);
+        if (leftDiff < 1 || leftDiff > 2 || rightDiff < 1 || rightDiff > 2) {
+            throw new IllegalStateException("Node " + node.key + " has rank differences " + leftDiff + "," + rightDiff);
+        }
+        if (node.left == null && node.right == null && node.rank != 0) {
+            throw new IllegalStateException("Leaf " + node.key + " has rank " + node.rank);
+        }
+        validate(node.left, low, node.key, count);
+        validate(node.right, node.key, high, count);
+    }
+
+    @Override
+    public void inOrder(Consumer<? super T> action) {
+        inOrder(root, action);
+    }
+
+    private void inOrder(Node node, Consumer<? super T> action) {
+        while (node != null) {
+            inOrder(node.left, action);
+            action.accept(node.key);
+            node = node.right;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dictionary.EnglishDictionary;
+import dictionary.Trace;
+
+public class ScriptRunnerTest {
+
+    private static String run(EnglishDictionary dictionary, String script) throws IOException {
+        StringWriter out = new StringWriter();
+        new ScriptRunner(dictionary, new BufferedReader(new StringReader(script)), out).run();
+        return out.toString();
+    }
+
+    @Test
+    public void testCommands() throws IOException {
+        String script = "# comment\n"
+                + "insert apple\n"
+                + "INSERT banana\n"
+                + "  insert   apple  \n"
+                + "\n"
+                + "search apple\n"
+                + "search cherry\n"
+                + "Search banana\n"
+                + "delete apple\n"
+                + "search apple\n"
+                + "size\n"
+                + "height\n"
+                + "frobnicate\n"
+                + "insert\n";
+        assertEquals("1\n1\n0\n1\n0\n1\n1\n0\n1\n1\nERR Unknown command: frobnicate\nERR Missing argument\n",
+                run(new EnglishDictionary("Red-Black"), script));
+    }
+
+    @Test
+    public void testExitStopsScript() throws IOException {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        assertEquals("1\n1\n", run(dictionary, "insert apple\nsearch apple\nexit\ninsert banana\n"));
+        assertEquals(1, dictionary.getSize());
+    }
+
+    @Test
+    public void testFilterStats() throws IOException {
+        assertEquals("disabled\n", run(DictionaryCommandLine.createDictionary("AVL", 0, false, null, 0, 0), "stats\n"));
+
+        EnglishDictionary dictionary = DictionaryCommandLine.createDictionary("AVL", 0, false, null, 1_000, 16);
+        String output = run(dictionary, "insert apple\nsearch apple\nsearch apple\nsearch cherry\nstats\n");
+        assertEquals("1\n1\n1\n0\n" + dictionary.getLookupStats() + "\n", output);
+        assertEquals(3, dictionary.getLookupStats().getLookups());
+        assertTrue(dictionary.getLookupStats().getCacheHits() > 0);
+    }
+
+    @Test
+    public void testSuggest() throws IOException {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        assertEquals("1\n1\n1\nappeal apple apply\n\nERR Missing argument\n",
+                run(dictionary, "insert apple\ninsert apply\ninsert appeal\nsuggest appel\nsuggest cherry\nsuggest\n"));
+    }
+
+    @Test
+    public void testFreeze() throws IOException {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        assertEquals("1\n1\n2\n1\n0\n", run(dictionary, "insert apple\ninsert banana\nfreeze\nsearch apple\nsearch cherry\n"));
+        assertTrue(dictionary.isFrozen());
+        assertEquals("1\n", run(dictionary, "insert cherry\n"));
+        assertFalse(dictionary.isFrozen());
+        assertTrue(run(new EnglishDictionary("Splay"), "freeze\n").startsWith("ERR "));
+    }
+
+    @Test
+    public void testTrace(@TempDir Path dir) throws IOException {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        Path file = dir.resolve("ops.trace");
+        String script = "insert apple\n"
+                + "trace " + file + "\n"
+                + "insert banana\n"
+                + "search apple\n"
+                + "trace stop\n"
+                + "trace stop\n"
+                + "trace\n";
+        assertEquals("1\n1\n1\n1\n2\nERR No trace is being recorded\nERR Missing argument\n", run(dictionary, script));
+        assertFalse(dictionary.isTracing());
+
+        Trace trace = Trace.read(file.toString());
+        assertEquals(List.of("apple"), trace.getSnapshot());
+        assertEquals(2, trace.size());
+        assertEquals(Trace.SEARCH, trace.getOperation(1));
+    }
+
+    @Test
+    public void testMemory() throws IOException {
+        EnglishDictionary dictionary = new EnglishDictionary("Red-Black");
+        dictionary.insert("apple");
+        assertEquals(dictionary.memoryFootprint().getTotalBytes() + "\n", run(dictionary, "memory\n"));
+        assertTrue(run(new EnglishDictionary("Splay"), "memory\n").startsWith("ERR "));
+    }
+
+    @Test
+    public void testBulkBatches(@TempDir Path dir) throws IOException {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 1_023; i++)
+            words.add(String.format("word%04d", i));
+        Path file = dir.resolve("words.txt");
+        Files.write(file, words);
+        String script = "batch-insert " + file + "\nheight\n";
+
+        // inserting sorted words one by one leaves a red-black tree well above minimum height
+        String wordByWord = run(new EnglishDictionary("Red-Black"), script);
+        assertTrue(wordByWord.startsWith("1023 0\n"));
+        assertTrue(Integer.parseInt(wordByWord.split("\n")[1]) > 10);
+
+        // the bulk update builds it with minimum height
+        EnglishDictionary bulk = new EnglishDictionary("Red-Black");
+        bulk.enableBulkBatches();
+        assertEquals("1023 0\n10\n", run(bulk, script));
+        assertEquals("0 1023\n", run(bulk, "batch-insert " + dir.resolve("*.txt") + "\n"));
+        assertEquals("1023 0\n0\n", run(bulk, "batch-delete " + file + "\nsize\n"));
+    }
+}
@@ -0,0 +1,139 @@
+package dictionary;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AsyncDictionaryTest {
+
+    @Test
+    public void testConcurrentCallers() {
+        try (AsyncDictionary dictionary = new AsyncDictionary(new EnglishDictionary("AVL"))) {
+            List<CompletableFuture<Boolean>> inserts = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++)
+                inserts.add(dictionary.insertAsync("word" + (i % 5_000)));
+
+            int inserted = 0;
+            for (CompletableFuture<Boolean> insert : inserts)
+                inserted += insert.join() ? 1 : 0;
+            assertEquals(5_000, inserted);
+
+            List<CompletableFuture<Boolean>> searches = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++)
+                searches.add(dictionary.searchAsync("word" + i));
+            for (int i = 0; i < 10_000; i++)
+                assertEquals(i < 5_000, searches.get(i).join());
+            assertEquals(5_000, dictionary.getSize());
+        }
+    }
+
+    @Test
+    public void testRepeatedMutationsKeepOrder() {
+        try (AsyncDictionary dictionary = new AsyncDictionary(new EnglishDictionary("Red-Black"))) {
+            CompletableFuture<Boolean> first = dictionary.insertAsync("apple");
+            CompletableFuture<Boolean> second = dictionary.insertAsync("apple");
+            CompletableFuture<Boolean> delete = dictionary.deleteAsync("apple");
+            CompletableFuture<Boolean> third = dictionary.insertAsync("apple");
+            assertTrue(first.join());
+            assertFalse(second.join());
+            assertTrue(delete.join());
+            assertTrue(third.join());
+            assertTrue(dictionary.searchAsync("apple").join());
+        }
+    }
+
+    @Test
+    public void testBatchInsertProgress(@TempDir Path dir) throws IOException {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < 20_000; i++)
+            words.append("word").append(i % 15_000).append('\n');
+        Path file = dir.resolve("words.txt");
+        Files.writeString(file, words, StandardCharsets.UTF_8);
+
+        try (AsyncDictionary dictionary = new AsyncDictionary(new EnglishDictionary("AVL", 20_000, 100))) {
+            AtomicInteger lastProcessed = new AtomicInteger();
+            int[] result = dictionary.batchInsertAsync(file.toString(),
+                    (processed, inserted, duplicates) -> lastProcessed.set(processed)).join();
+            assertArrayEquals(new int[] { 15_000, 5_000 }, result);
+            assertEquals(20_000, lastProcessed.get());
+            assertTrue(dictionary.search("word14999"));
+        }
+    }
+
+    @Test
+    public void testBatchInterleavesWithWrites(@TempDir Path dir) throws IOException {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < 100_000; i++)
+            words.append("word").append(i).append('\n');
+        Path file = dir.resolve("words.txt");
+        Files.writeString(file, words, StandardCharsets.UTF_8);
+
+        try (AsyncDictionary dictionary = new AsyncDictionary(new EnglishDictionary("AVL"))) {
+            List<CompletableFuture<Boolean>> insert = new ArrayList<>();
+            AtomicInteger processedWhenInserted = new AtomicInteger(-1);
+            int[] result = dictionary.batchInsertAsync(file.toString(), (processed, inserted, duplicates) -> {
+                if (insert.isEmpty()) {
+                    // give the reader time to run ahead of the writer
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    insert.add(dictionary.insertAsync("interleaved"));
+                } else if (insert.get(0).isDone() && processedWhenInserted.get() < 0)
+                    processedWhenInserted.set(processed);
+            }).join();
+            assertArrayEquals(new int[] { 100_000, 0 }, result);
+            assertTrue(insert.get(0).join());
+            // the reader only queues a few chunks ahead, so the insert does not wait for the whole file
+            assertTrue(processedWhenInserted.get() > 0 && processedWhenInserted.get() < 100_000,
+                    "applied after " + processedWhenInserted.get() + " words");
+        }
+    }
+
+    @Test
+    public void testCloseCompletesEveryAcceptedMutation() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            AsyncDictionary dictionary = new AsyncDictionary(new EnglishDictionary("AVL"));
+            List<CompletableFuture<Boolean>> accepted = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> callers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int caller = t;
+                callers.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        try {
+                            accepted.add(dictionary.insertAsync("word" + caller + "-" + i));
+                        } catch (IllegalStateException e) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            dictionary.close();
+            for (Thread caller : callers)
+                caller.join();
+            // a mutation accepted before close is applied, none is left pending
+            for (CompletableFuture<Boolean> future : accepted)
+                assertTrue(future.isDone());
+        }
+    }
+
+    @Test
+    public void testMissingBatchFile(@TempDir Path dir) {
+        try (AsyncDictionary dictionary = new AsyncDictionary(new EnglishDictionary("AVL"))) {
+            CompletableFuture<int[]> result = dictionary.batchInsertAsync(dir.resolve("missing.txt").toString());
+            assertTrue(assertThrows(Exception.class, result::join).getCause() instanceof IOException);
+        }
+    }
+}
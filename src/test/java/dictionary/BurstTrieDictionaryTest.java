@@ -0,0 +1,115 @@
+package dictionary;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+public class BurstTrieDictionaryTest {
+
+    private static String randomWord(Random random) {
+        // small alphabet and short words => many shared prefixes and bursts
+        String alphabet = "abcdeé中";
+        char[] chars = new char[random.nextInt(7)];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        return new String(chars);
+    }
+
+    @Test
+    public void testInsertDeleteSearch() {
+        BurstTrieDictionary dictionary = new BurstTrieDictionary();
+        assertEquals(0, dictionary.getHight());
+        assertTrue(dictionary.insert("apple"));
+        assertTrue(dictionary.insert("app"));
+        assertTrue(dictionary.insert(""));
+        assertFalse(dictionary.insert("apple"));
+        assertEquals(3, dictionary.getSize());
+
+        assertTrue(dictionary.search("app"));
+        assertTrue(dictionary.search(""));
+        assertFalse(dictionary.search("ap"));
+        assertFalse(dictionary.search("apples"));
+        assertTrue(dictionary.delete("app"));
+        assertFalse(dictionary.delete("app"));
+        assertFalse(dictionary.search("app"));
+        assertTrue(dictionary.search("apple"));
+        assertEquals(2, dictionary.getSize());
+
+        assertTrue(dictionary.delete("apple"));
+        assertTrue(dictionary.delete(""));
+        assertEquals(0, dictionary.getHight());
+    }
+
+    @Test
+    public void testRandomOperationsAgainstTreeSet() {
+        for (String containerType : new String[] { "AVL", "Red-Black" }) {
+            Random random = new Random(3);
+            BurstTrieDictionary dictionary = new BurstTrieDictionary(containerType, 4);
+            TreeSet<String> expected = new TreeSet<>();
+            for (int i = 0; i < 50_000; i++) {
+                String word = randomWord(random);
+                int op = random.nextInt(10);
+                if (op < 5)
+                    assertEquals(expected.add(word), dictionary.insert(word), "insert " + word);
+                else if (op < 7)
+                    assertEquals(expected.remove(word), dictionary.delete(word), "delete " + word);
+                else
+                    assertEquals(expected.contains(word), dictionary.search(word), "search " + word);
+            }
+            assertEquals(expected.size(), dictionary.getSize());
+            assertTrue(dictionary.getBurstCount() > 0);
+
+            List<String> all = new ArrayList<>();
+            dictionary.forEachWithPrefix("", all::add);
+            assertEquals(new ArrayList<>(expected), all);
+            for (String prefix : new String[] { "a", "ab", "é中", "abcde", "zz" }) {
+                List<String> words = new ArrayList<>();
+                dictionary.forEachWithPrefix(prefix, words::add);
+                assertEquals(new ArrayList<>(expected.subSet(prefix, prefix + Character.MAX_VALUE)), words, prefix);
+            }
+        }
+    }
+
+    @Test
+    public void testWordsWithPrefix() {
+        BurstTrieDictionary dictionary = new BurstTrieDictionary("AVL", 2);
+        for (String word : new String[] { "car", "card", "care", "cart", "cat", "dog" })
+            dictionary.insert(word);
+        assertEquals(List.of("car", "card", "care"), dictionary.wordsWithPrefix("car", 3));
+        assertEquals(List.of("car", "card", "care", "cart"), dictionary.wordsWithPrefix("car", 10));
+        assertEquals(List.of(), dictionary.wordsWithPrefix("x", 10));
+        assertEquals(List.of(), dictionary.wordsWithPrefix("c", 0));
+    }
+
+    @Test
+    public void testWordsWithPrefixStopsInsideContainers() {
+        for (String type : new String[] { "AVL", "Red-Black" }) {
+            // one container under 'w' holds every word
+            BurstTrieDictionary dictionary = new BurstTrieDictionary(type, 1_000);
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                dictionary.insert(String.format("word%03d", i));
+                if (i < 5)
+                    expected.add(String.format("word%03d", i));
+            }
+            assertEquals(expected, dictionary.wordsWithPrefix("w", 5), type);
+            assertEquals(List.of("word120", "word121"), dictionary.wordsWithPrefix("word12", 2), type);
+            assertEquals(500, dictionary.wordsWithPrefix("", Integer.MAX_VALUE).size(), type);
+        }
+    }
+
+    @Test
+    public void testMemoryFootprint() {
+        BurstTrieDictionary dictionary = new BurstTrieDictionary("AVL", 8);
+        Random random = new Random(5);
+        for (int i = 0; i < 1_000; i++)
+            dictionary.insert(randomWord(random));
+        assertEquals(dictionary.getSize(), dictionary.memoryFootprint().getEntries());
+        assertTrue(dictionary.memoryFootprint().getTotalBytes() > 0);
+    }
+}
@@ -0,0 +1,106 @@
+package dictionary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import trees.MemoryFootprint;
+
+/**
+ * Compares {@link BurstTrieDictionary} with the tree backed {@link EnglishDictionary}
+ * on English-like words built from common prefixes, stems and suffixes, so that
+ * words share long prefixes like a real word list does.
+ */
+public class BurstTriePerformanceTest {
+    private static final String[] PREFIXES = { "", "", "", "un", "re", "in", "dis", "over", "pre", "mis", "non",
+            "inter", "trans", "sub", "super", "counter" };
+    private static final String[] SUFFIXES = { "", "s", "ed", "ing", "er", "ers", "ly", "ness", "ment", "ments",
+            "ation", "ations", "able", "ible", "ful", "less", "ist", "ism" };
+    private static final String CONSONANTS = "bcdfghjklmnprstvwz";
+    private static final String VOWELS = "aeiou";
+    private static final int WORDS = 500_000;
+    private static final int LOOKUPS = 2_000_000;
+
+    private static List<String> generateWords(Random random) {
+        List<String> stems = new ArrayList<>();
+        while (stems.size() < WORDS / 40) {
+            StringBuilder stem = new StringBuilder();
+            for (int syllables = 1 + random.nextInt(3); syllables > 0; syllables--) {
+                stem.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+                stem.append(VOWELS.charAt(random.nextInt(VOWELS.length())));
+                if (random.nextBoolean())
+                    stem.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+            }
+            stems.add(stem.toString());
+        }
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < WORDS) {
+            words.add(PREFIXES[random.nextInt(PREFIXES.length)] + stems.get(random.nextInt(stems.size()))
+                    + SUFFIXES[random.nextInt(SUFFIXES.length)]);
+        }
+        List<String> list = new ArrayList<>(words);
+        Collections.shuffle(list, random);
+        return list;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("===== Burst Trie vs Tree Dictionary (" + WORDS + " words) =====");
+        Random random = new Random(42);
+        List<String> words = generateWords(random);
+        List<String> lookups = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            // every other lookup misses by its last character
+            lookups.add(i % 2 == 0 ? word : word.substring(0, word.length() - 1) + "#");
+        }
+
+        // the first pass only warms the JIT up
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            run("AVL", new EnglishDictionary("AVL"), words, lookups, report);
+            run("Red-Black", new EnglishDictionary("Red-Black"), words, lookups, report);
+            for (int threshold : new int[] { 32, 128, 512 }) {
+                run("Burst/AVL " + threshold, new BurstTrieDictionary("AVL", threshold), words, lookups, report);
+            }
+            run("Burst/RB 128", new BurstTrieDictionary("Red-Black", 128), words, lookups, report);
+        }
+
+        BurstTrieDictionary trie = new BurstTrieDictionary();
+        for (String word : words)
+            trie.insert(word);
+        String prefix = words.get(0).substring(0, Math.min(4, words.get(0).length()));
+        long startTime = System.nanoTime();
+        List<String> matches = trie.wordsWithPrefix(prefix, Integer.MAX_VALUE);
+        System.out.println(String.format("\nPrefix \"%s\": %d words in %.2f ms", prefix, matches.size(),
+                (System.nanoTime() - startTime) / 1e6));
+    }
+
+    private static void run(String name, IDictionary dictionary, List<String> words, List<String> lookups,
+            boolean report) {
+        long startTime = System.currentTimeMillis();
+        for (String word : words)
+            dictionary.insert(word);
+        long insertTime = System.currentTimeMillis() - startTime;
+
+        startTime = System.currentTimeMillis();
+        int found = 0;
+        for (String word : lookups) {
+            if (dictionary.search(word))
+                found++;
+        }
+        long searchTime = System.currentTimeMillis() - startTime;
+        if (found != lookups.size() / 2)
+            throw new IllegalStateException(name + " found " + found + " of " + lookups.size() / 2 + " words");
+
+        MemoryFootprint footprint = dictionary instanceof BurstTrieDictionary trie ? trie.memoryFootprint()
+                : ((EnglishDictionary) dictionary).memoryFootprint();
+        if (report) {
+            System.out.println(String.format("%-15s insert %5d ms, %d lookups %5d ms, %5.1f bytes/word, height %d",
+                    name, insertTime, lookups.size(), searchTime, footprint.getBytesPerEntry(),
+                    dictionary.getHight()));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package dictionary;
+
+/**
+ * Keeps a replica of a 500,000 word dictionary up to date after rounds of 1,000
+ * changes, once by copying a snapshot after every round and once by applying the
+ * change feed.
+ */
+public class ChangeFeedPerformanceTest {
+    private static final int WORDS = 500_000;
+    private static final int CHANGES_PER_ROUND = 1_000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        System.out.println("===== Replica Sync (Words: " + WORDS + ", Changes per round: " + CHANGES_PER_ROUND + ") =====");
+        EnglishDictionary primary = new EnglishDictionary("AVL");
+        for (int i = 0; i < WORDS; i++)
+            primary.insert("word" + i);
+        primary.enableChangeFeed(4 * CHANGES_PER_ROUND, false);
+
+        DictionaryReplica copied = new DictionaryReplica("AVL");
+        DictionaryReplica followed = new DictionaryReplica("AVL");
+        followed.follow(primary);
+        long copyTime = 0;
+        long feedTime = 0;
+        int next = WORDS;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < CHANGES_PER_ROUND / 2; i++) {
+                primary.insert("word" + next);
+                primary.delete("word" + (next - WORDS));
+                next++;
+            }
+            long startTime = System.nanoTime();
+            copied.apply(primary.changeSnapshot());
+            copyTime += System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            followed.catchUp();
+            feedTime += System.nanoTime() - startTime;
+        }
+        if (copied.getDictionary().getSize() != followed.getDictionary().getSize())
+            throw new AssertionError("Replicas differ");
+        System.out.println(String.format("Snapshot copy: %,8.2f ms/round", copyTime / 1e6 / ROUNDS));
+        System.out.println(String.format("Change feed:   %,8.2f ms/round", feedTime / 1e6 / ROUNDS));
+        System.out.println(String.format("Speed-up: %.0fx", (double) copyTime / feedTime));
+    }
+}
@@ -0,0 +1,180 @@
+package dictionary;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class ChangeFeedTest {
+
+    private static void assertSameWords(EnglishDictionary primary, EnglishDictionary replica) {
+        ChangeFrame snapshot = primary.changeSnapshot();
+        assertEquals(snapshot.size(), replica.getSize());
+        for (int i = 0; i < snapshot.size(); i++)
+            assertTrue(replica.search(snapshot.getWord(i)));
+    }
+
+    @Test
+    public void testPublishAndPoll() {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        ChangeFeed feed = dictionary.enableChangeFeed(100, false);
+        ChangeFeed.Subscription subscription = feed.subscribe(0);
+        assertNull(subscription.poll(10));
+
+        dictionary.insert("apple");
+        dictionary.insert("apple");
+        dictionary.insert("banana");
+        dictionary.delete("cherry");
+        dictionary.delete("apple");
+        dictionary.search("banana");
+        assertEquals(3, feed.getSequence());
+        assertEquals(3, subscription.getLag());
+
+        ChangeFrame frame = subscription.poll(2);
+        assertFalse(frame.isSnapshot());
+        assertEquals(1, frame.getFirstSequence());
+        assertEquals(2, frame.getLastSequence());
+        assertEquals(ChangeFrame.INSERT, frame.getOperation(0));
+        assertEquals("apple", frame.getWord(0));
+        assertEquals("banana", frame.getWord(1));
+        frame = subscription.poll(10);
+        assertEquals(ChangeFrame.DELETE, frame.getOperation(0));
+        assertEquals(3, frame.getLastSequence());
+        assertNull(subscription.poll(10));
+
+        subscription.close();
+        assertEquals(0, feed.getSubscriberCount());
+        assertThrows(IllegalStateException.class, () -> subscription.poll(10));
+        assertThrows(IllegalStateException.class, () -> dictionary.enableChangeFeed(100, false));
+    }
+
+    @Test
+    public void testFrameRoundTrip() throws IOException {
+        ChangeFrame frame = new ChangeFrame(false, 300, new byte[] { ChangeFrame.INSERT, ChangeFrame.DELETE },
+                new String[] { "café", "" });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        frame.writeTo(out);
+        ChangeFrame.snapshot(7, List.of("a", "b")).writeTo(out);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        ChangeFrame read = ChangeFrame.readFrom(in);
+        assertEquals(300, read.getFirstSequence());
+        assertEquals(301, read.getLastSequence());
+        assertEquals("café", read.getWord(0));
+        assertEquals(ChangeFrame.DELETE, read.getOperation(1));
+        assertEquals("", read.getWord(1));
+        read = ChangeFrame.readFrom(in);
+        assertTrue(read.isSnapshot());
+        assertEquals(7, read.getLastSequence());
+        assertEquals(2, read.size());
+        assertNull(ChangeFrame.readFrom(in));
+
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), 5);
+        assertThrows(IOException.class, () -> ChangeFrame.readFrom(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    public void testSubscribeOutsideRetainedChanges() {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        ChangeFeed feed = dictionary.enableChangeFeed(4, false);
+        for (int i = 0; i < 10; i++)
+            dictionary.insert("word" + i);
+        assertThrows(IllegalArgumentException.class, () -> feed.subscribe(5));
+        assertThrows(IllegalArgumentException.class, () -> feed.subscribe(11));
+        assertEquals(4, feed.subscribe(6).poll(10).size());
+    }
+
+    @Test
+    public void testSlowSubscriberFallsBehind() {
+        EnglishDictionary dictionary = new EnglishDictionary("Red-Black");
+        ChangeFeed feed = dictionary.enableChangeFeed(4, false);
+        ChangeFeed.Subscription subscription = feed.subscribe(0);
+        for (int i = 0; i < 5; i++)
+            dictionary.insert("word" + i);
+        assertThrows(IllegalStateException.class, () -> subscription.poll(10));
+    }
+
+    @Test
+    public void testBlockingFeedWaitsForSubscriber() throws Exception {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        ChangeFeed feed = dictionary.enableChangeFeed(4, true);
+        ChangeFeed.Subscription subscription = feed.subscribe(0);
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 100; i++)
+                dictionary.insert("word" + i);
+        });
+        int received = 0;
+        while (received < 100) {
+            ChangeFrame frame = subscription.take(10, 10, TimeUnit.SECONDS);
+            assertNotNull(frame);
+            assertTrue(frame.size() <= 4);
+            assertEquals(received + 1, frame.getFirstSequence());
+            received += frame.size();
+        }
+        writer.join();
+        assertEquals(100, dictionary.getSize());
+        assertNull(subscription.take(10, 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testReplicaCatchesUp() {
+        EnglishDictionary primary = new EnglishDictionary("AVL");
+        primary.insert("existing");
+        primary.enableChangeFeed(8, false);
+        DictionaryReplica replica = new DictionaryReplica("Red-Black");
+        EnglishDictionary replicated = replica.getDictionary();
+        replica.follow(primary);
+        assertSameWords(primary, replica.getDictionary());
+
+        primary.insert("apple");
+        primary.delete("existing");
+        assertEquals(2, replica.catchUp());
+        assertEquals(0, replica.catchUp());
+        assertEquals(2, replica.getSequence());
+        assertTrue(replica.getDictionary().search("apple"));
+        assertFalse(replica.getDictionary().search("existing"));
+
+        // more changes than the feed keeps => resync from a snapshot
+        for (int i = 0; i < 20; i++)
+            primary.insert("word" + i);
+        replica.catchUp();
+        assertEquals(1, replica.getResyncs());
+        assertSameWords(primary, replica.getDictionary());
+        // a reference taken before the resync keeps following
+        assertSame(replicated, replica.getDictionary());
+        assertTrue(replicated.search("word19"));
+        assertEquals(primary.getChangeFeed().getSequence(), replica.getSequence());
+
+        replica.stopFollowing();
+        assertEquals(0, primary.getChangeFeed().getSubscriberCount());
+        assertThrows(IllegalStateException.class, replica::catchUp);
+    }
+
+    @Test
+    public void testReplicaRejectsGaps() {
+        DictionaryReplica replica = new DictionaryReplica("AVL");
+        ChangeFrame first = new ChangeFrame(false, 1, new byte[] { ChangeFrame.INSERT, ChangeFrame.INSERT },
+                new String[] { "a", "b" });
+        ChangeFrame overlapping = new ChangeFrame(false, 2, new byte[] { ChangeFrame.INSERT, ChangeFrame.DELETE },
+                new String[] { "b", "a" });
+        assertEquals(2, replica.apply(first));
+        assertEquals(1, replica.apply(overlapping));
+        assertEquals(3, replica.getSequence());
+        assertThrows(IllegalStateException.class,
+                () -> replica.apply(new ChangeFrame(false, 5, new byte[1], new String[] { "c" })));
+        assertEquals(1, replica.getDictionary().getSize());
+    }
+
+    @Test
+    public void testLoadWhileFeedEnabled() {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        dictionary.enableChangeFeed(8, false);
+        assertThrows(IllegalStateException.class, () -> dictionary.load("any.tree"));
+    }
+}
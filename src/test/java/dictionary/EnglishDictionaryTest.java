@@ -0,0 +1,274 @@
+package dictionary;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import trees.AVLTree;
+import trees.MemoryLayout;
+
+public class EnglishDictionaryTest {
+
+    @Test
+    public void testUnknownTreeType() {
+        assertThrows(IllegalArgumentException.class, () -> new EnglishDictionary("B-Tree"));
+    }
+
+    @Test
+    public void testLookupFilterDisabledByDefault() {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        assertFalse(dictionary.hasLookupFilter());
+        assertNull(dictionary.getLookupStats());
+    }
+
+    @Test
+    public void testLookupFilterAfterDelete() {
+        EnglishDictionary dictionary = new EnglishDictionary("Red-Black", 1_000, 16);
+        assertTrue(dictionary.insert("apple"));
+        assertTrue(dictionary.insert("banana"));
+
+        assertTrue(dictionary.search("apple"));
+        assertTrue(dictionary.search("apple")); // served by the hot-key cache
+        assertTrue(dictionary.delete("apple"));
+        assertFalse(dictionary.search("apple"));
+        assertTrue(dictionary.search("banana"));
+
+        assertTrue(dictionary.insert("apple"));
+        assertTrue(dictionary.search("apple"));
+        assertEquals(2, dictionary.getSize());
+    }
+
+    @Test
+    public void testLookupStats() {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL", 10_000, 100);
+        for (int i = 0; i < 1_000; i++)
+            dictionary.insert("word" + i);
+
+        for (int i = 0; i < 1_000; i++)
+            assertFalse(dictionary.search("missing" + i));
+        for (int i = 0; i < 10; i++)
+            assertTrue(dictionary.search("word7"));
+
+        LookupStats stats = dictionary.getLookupStats();
+        assertEquals(1_010, stats.getLookups());
+        assertEquals(1_000, stats.getFilterRejections() + stats.getFilterFalsePositives());
+        assertTrue(stats.getFalsePositiveRate() < 0.05);
+        assertEquals(9, stats.getCacheHits());
+    }
+
+    @Test
+    public void testBatchInsertAndDelete(@TempDir Path dir) throws IOException {
+        Path words = dir.resolve("words.txt");
+        Files.writeString(words, "  apple \r\nbanana\n\n\tcherry\napple\nnaïve\nlast-line-without-newline",
+                StandardCharsets.UTF_8);
+
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        assertArrayEquals(new int[] { 5, 1 }, dictionary.batchInsert(words.toString()));
+        assertTrue(dictionary.search("apple"));
+        assertTrue(dictionary.search("cherry"));
+        assertTrue(dictionary.search("naïve"));
+        assertTrue(dictionary.search("last-line-without-newline"));
+
+        Path remove = dir.resolve("remove.txt");
+        Files.writeString(remove, "apple\nmissing\n", StandardCharsets.UTF_8);
+        assertArrayEquals(new int[] { 1, 1 }, dictionary.batchDelete(remove.toString()));
+        assertFalse(dictionary.search("apple"));
+        assertEquals(4, dictionary.getSize());
+    }
+
+    @Test
+    public void testBulkBatches(@TempDir Path dir) throws IOException {
+        Path words = dir.resolve("words.txt");
+        Files.writeString(words, "cherry\napple\nbanana\napple\n", StandardCharsets.UTF_8);
+        Path remove = dir.resolve("remove.txt");
+        Files.writeString(remove, "apple\nmissing\n", StandardCharsets.UTF_8);
+
+        for (String type : new String[] { "AVL", "Red-Black" }) {
+            EnglishDictionary dictionary = new EnglishDictionary(type);
+            dictionary.enableBulkBatches();
+            dictionary.insert("banana");
+            assertArrayEquals(new int[] { 2, 2 }, dictionary.batchInsert(words.toString()));
+            assertTrue(dictionary.search("apple"));
+            assertTrue(dictionary.search("cherry"));
+            assertArrayEquals(new int[] { 1, 1 }, dictionary.batchDelete(remove.toString()));
+            assertFalse(dictionary.search("apple"));
+            assertEquals(2, dictionary.getSize());
+        }
+        assertThrows(UnsupportedOperationException.class, () -> new EnglishDictionary("Splay").enableBulkBatches());
+    }
+
+    @Test
+    public void testBatchInsertShards(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("part-0.txt"), "alpha\nbeta\n", StandardCharsets.UTF_8);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(dir.resolve("part-1.gz")))) {
+            StringBuilder words = new StringBuilder();
+            for (int i = 0; i < 10_000; i++)
+                words.append("word").append(i).append('\n');
+            words.append("alpha\n");
+            out.write(words.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        Files.writeString(dir.resolve("ignored.csv"), "gamma\n", StandardCharsets.UTF_8);
+
+        EnglishDictionary dictionary = new EnglishDictionary("Red-Black");
+        BatchResult result = dictionary.batchInsertAll(dir.resolve("part-*").toString());
+        assertEquals(2, result.getPerFile().size());
+        assertArrayEquals(new int[] { 10_002, 1 }, result.toArray());
+        assertEquals(10_002, dictionary.getSize());
+        assertFalse(dictionary.search("gamma"));
+
+        result = dictionary.batchDeleteAll(dir.toString());
+        assertEquals(3, result.getPerFile().size());
+        assertArrayEquals(new int[] { 0, 1 }, result.getPerFile().get(dir.resolve("ignored.csv").toString()));
+        assertEquals(0, dictionary.getSize());
+    }
+
+    @Test
+    public void testSaveAndLoad(@TempDir Path dir) throws IOException {
+        EnglishDictionary dictionary = new EnglishDictionary("Red-Black", 1_000, 16);
+        for (String word : new String[] { "apple", "banana", "cherry", "date" })
+            dictionary.insert(word);
+        String file = dir.resolve("words.tree").toString();
+        dictionary.save(file);
+
+        EnglishDictionary restored = new EnglishDictionary("Red-Black", 1_000, 16);
+        restored.insert("elderberry");
+        restored.load(file);
+        assertEquals(4, restored.getSize());
+        assertTrue(restored.search("cherry"));
+        // the lookup filter is rebuilt from the loaded words
+        assertFalse(restored.search("elderberry"));
+        assertTrue(restored.delete("apple"));
+        assertFalse(restored.search("apple"));
+
+        IOException wrongType = assertThrows(IOException.class, () -> new EnglishDictionary("AVL").load(file));
+        assertTrue(wrongType.getMessage().contains("Red-Black"));
+        assertThrows(UnsupportedOperationException.class, () -> new EnglishDictionary("Splay").save(file));
+    }
+
+    @Test
+    public void testFreeze() {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        dictionary.insert("apple");
+        dictionary.insert("cherry");
+        dictionary.freeze();
+        assertTrue(dictionary.isFrozen());
+        assertTrue(dictionary.search("apple"));
+        assertFalse(dictionary.search("banana"));
+
+        // a write thaws the dictionary
+        assertTrue(dictionary.insert("banana"));
+        assertFalse(dictionary.isFrozen());
+        assertTrue(dictionary.search("banana"));
+        assertThrows(UnsupportedOperationException.class, () -> new EnglishDictionary("Treap").freeze());
+    }
+
+    @Test
+    public void testSnapshot() {
+        EnglishDictionary dictionary = new EnglishDictionary("MVCC");
+        dictionary.insert("apple");
+        assertTrue(dictionary.isSearchLockFree());
+        var snapshot = dictionary.snapshot();
+        dictionary.insert("banana");
+        assertEquals(1, snapshot.getSize());
+        assertFalse(snapshot.search("banana"));
+        assertTrue(dictionary.search("banana"));
+
+        assertFalse(new EnglishDictionary("MVCC", 100, 10).isSearchLockFree());
+        assertThrows(UnsupportedOperationException.class, () -> new EnglishDictionary("AVL").snapshot());
+    }
+
+    @Test
+    public void testMemoryFootprint() {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        AVLTree<String> tree = new AVLTree<>();
+        for (int i = 0; i < 100; i++) {
+            dictionary.insert("word" + i);
+            tree.insert("word" + i);
+        }
+        MemoryLayout layout = MemoryLayout.current();
+        // five references, four lookup counters and the bulk batch flag on top of the tree
+        assertEquals(tree.memoryFootprint(layout).getTotalBytes() + layout.objectSize(5, 33),
+                dictionary.memoryFootprint().getTotalBytes());
+        assertThrows(UnsupportedOperationException.class, () -> new EnglishDictionary("Splay").memoryFootprint());
+    }
+
+    @Test
+    public void testSuggest() {
+        EnglishDictionary dictionary = new EnglishDictionary("AVL");
+        for (String word : List.of("apple", "apply", "ample", "maple", "apples", "banana", "bandana", "appeal"))
+            dictionary.insert(word);
+        // appeal is one edit away; apple, apples and apply two, sharing "app"; ample and maple three
+        assertEquals(List.of("appeal", "apple", "apples", "apply"), dictionary.suggest("appel", 2, 10));
+        assertEquals(List.of("appeal", "apple"), dictionary.suggest("appel", 2, 2));
+        assertEquals(List.of("apple"), dictionary.suggest("apple", 0, 10));
+        assertEquals(List.of("banana", "bandana"), dictionary.suggest("banan", 2, 10));
+        assertEquals(List.of(), dictionary.suggest("cherry", 2, 10));
+        assertEquals(List.of(), dictionary.suggest("appel", 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.suggest("appel", -1, 10));
+    }
+
+    @Test
+    public void testSuggestWithUnboundedDistance() {
+        EnglishDictionary dictionary = new EnglishDictionary("Red-Black");
+        String longWord = "b".repeat(200);
+        for (String word : List.of("a", "ab", "abc", longWord))
+            dictionary.insert(word);
+        // every word is within reach, however far; rows grow with the keys, not the distance
+        assertEquals(List.of("a", "ab", "abc", longWord), dictionary.suggest("a", Integer.MAX_VALUE, 10));
+        assertEquals(List.of("ab", "abc", "a", longWord), dictionary.suggest("ab", 1_000_000_000, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testSuggestMatchesBruteForce() {
+        Random random = new Random(7);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            char[] chars = new char[1 + random.nextInt(8)];
+            for (int j = 0; j < chars.length; j++)
+                chars[j] = (char) ('a' + random.nextInt(4));
+            words.add(new String(chars));
+        }
+        for (String type : List.of("AVL", "Red-Black", "Treap", "MVCC")) {
+            EnglishDictionary dictionary = new EnglishDictionary(type);
+            words.forEach(dictionary::insert);
+            for (int i = 0; i < 200; i += 2)
+                dictionary.delete(words.get(i));
+            for (int q = 0; q < 50; q++) {
+                String query = words.get(random.nextInt(words.size())) + (q % 3 == 0 ? "x" : "");
+                int maxDistance = q % 3;
+                Set<String> expected = new TreeSet<>();
+                for (int i = 0; i < words.size(); i++)
+                    if (dictionary.search(words.get(i)) && levenshtein(query, words.get(i)) <= maxDistance)
+                        expected.add(words.get(i));
+                assertEquals(expected, new TreeSet<>(dictionary.suggest(query, maxDistance, Integer.MAX_VALUE)), type);
+            }
+        }
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] table = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0)
+                    table[i][j] = i + j;
+                else
+                    table[i][j] = Math.min(Math.min(table[i - 1][j], table[i][j - 1]) + 1,
+                            table[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+            }
+        }
+        return table[a.length()][b.length()];
+    }
+}
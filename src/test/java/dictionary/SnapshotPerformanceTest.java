@@ -0,0 +1,71 @@
+package dictionary;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures read throughput while a batch insert runs: an AVL dictionary whose
+ * readers share a lock with the writer, through {@link AsyncDictionary}, against
+ * an MVCC dictionary whose readers search the current version without locking.
+ */
+public class SnapshotPerformanceTest {
+    private static final int PREFILLED = 200_000;
+    private static final int BATCH = 1_000_000;
+    private static final int READERS = 4;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("===== Reads During Batch Insert (Readers: " + READERS + ") =====");
+        Path file = Files.createTempFile("batch", ".txt");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                for (int i = 0; i < BATCH; i++) {
+                    writer.write("word" + (PREFILLED + i));
+                    writer.newLine();
+                }
+            }
+            run("AVL", file);
+            run("MVCC", file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void run(String type, Path file) throws Exception {
+        EnglishDictionary dictionary = new EnglishDictionary(type);
+        for (int i = 0; i < PREFILLED; i++)
+            dictionary.insert("word" + i);
+
+        try (AsyncDictionary async = new AsyncDictionary(dictionary)) {
+            LongAdder reads = new LongAdder();
+            long startTime = System.nanoTime();
+            CompletableFuture<int[]> batch = async.batchInsertAsync(file.toString());
+            List<Thread> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                long seed = r;
+                readers.add(Thread.ofPlatform().start(() -> {
+                    Random random = new Random(seed);
+                    while (!batch.isDone()) {
+                        // one size check per 64 searches, like a monitoring client would
+                        for (int i = 0; i < 64; i++)
+                            async.search("word" + random.nextInt(PREFILLED + BATCH));
+                        async.getSize();
+                        reads.add(65);
+                    }
+                }));
+            }
+            batch.join();
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            for (Thread reader : readers)
+                reader.join();
+
+            System.out.println(String.format("%-5s batch of %,d words in %.2f s, %,.0f reads/sec, final size %,d", type,
+                    BATCH, seconds, reads.sum() / seconds, async.getSize()));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package dictionary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares two ways of finding the stored words within two edits of a misspelling:
+ * generating every candidate one and two edits away and searching each, and
+ * {@link EnglishDictionary#suggest}, which walks the tree once.
+ * <p>
+ * Pass a word list with one word per line, such as {@code /usr/share/dict/words};
+ * without one, pronounceable words are generated.
+ */
+public class SuggestPerformanceTest {
+    private static final String[] SYLLABLES = { "ab", "ac", "al", "an", "ar", "be", "ca", "ce", "co", "de", "di",
+            "en", "er", "es", "in", "io", "la", "le", "li", "ma", "me", "mo", "na", "ne", "no", "or", "pa", "pe",
+            "ra", "re", "ri", "ro", "sa", "se", "si", "ta", "te", "ti", "to", "un", "ur", "ve" };
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+    private static final int MISSES = 200;
+    private static final int MAX_DISTANCE = 2;
+    private static final int LIMIT = 10;
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(42);
+        List<String> words = args.length > 0 ? readWords(Path.of(args[0])) : generateWords(random, 200_000);
+        System.out.println("===== Spell Suggestions (" + words.size() + " words, " + MISSES + " misses) =====");
+
+        List<String> misses = new ArrayList<>(MISSES);
+        for (int i = 0; i < MISSES; i++)
+            misses.add(misspell(words.get(random.nextInt(words.size())), random));
+
+        for (String type : new String[] { "AVL", "Red-Black" }) {
+            EnglishDictionary dictionary = new EnglishDictionary(type);
+            words.forEach(dictionary::insert);
+            for (int round = 0; round < 3; round++) {
+                long found = 0;
+                long startTime = System.nanoTime();
+                for (String miss : misses)
+                    found += candidates(dictionary, miss);
+                long candidateTime = System.nanoTime() - startTime;
+
+                long suggested = 0;
+                startTime = System.nanoTime();
+                for (String miss : misses)
+                    suggested += dictionary.suggest(miss, MAX_DISTANCE, Integer.MAX_VALUE).size();
+                long suggestTime = System.nanoTime() - startTime;
+                if (found != suggested)
+                    throw new IllegalStateException("Candidates found " + found + " words, suggest " + suggested);
+
+                startTime = System.nanoTime();
+                for (String miss : misses)
+                    dictionary.suggest(miss, MAX_DISTANCE, LIMIT);
+                long limitedTime = System.nanoTime() - startTime;
+                System.out.println(String.format(
+                        "%-9s round %d: candidates %,7.3f ms/miss, suggest %,7.3f ms/miss, top %d %,7.3f ms/miss",
+                        type, round, candidateTime / 1e6 / MISSES, suggestTime / 1e6 / MISSES, LIMIT,
+                        limitedTime / 1e6 / MISSES));
+            }
+        }
+    }
+
+    /**
+     * @return number of stored words among all candidates one and two edits away
+     */
+    private static int candidates(EnglishDictionary dictionary, String word) {
+        Set<String> candidates = new HashSet<>();
+        candidates.add(word);
+        for (String edit : edits(word)) {
+            candidates.add(edit);
+            candidates.addAll(edits(edit));
+        }
+        int found = 0;
+        for (String candidate : candidates)
+            if (dictionary.search(candidate))
+                found++;
+        return found;
+    }
+
+    private static List<String> edits(String word) {
+        List<String> edits = new ArrayList<>();
+        for (int i = 0; i <= word.length(); i++) {
+            String head = word.substring(0, i);
+            String tail = word.substring(i);
+            if (!tail.isEmpty())
+                edits.add(head + tail.substring(1));
+            for (int c = 0; c < ALPHABET.length(); c++) {
+                edits.add(head + ALPHABET.charAt(c) + tail);
+                if (!tail.isEmpty())
+                    edits.add(head + ALPHABET.charAt(c) + tail.substring(1));
+            }
+        }
+        return edits;
+    }
+
+    private static String misspell(String word, Random random) {
+        StringBuilder misspelled = new StringBuilder(word);
+        for (int edits = 1 + random.nextInt(MAX_DISTANCE); edits > 0; edits--) {
+            int at = random.nextInt(misspelled.length() + 1);
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            if (at == misspelled.length() || random.nextBoolean())
+                misspelled.insert(at, c);
+            else
+                misspelled.setCharAt(at, c);
+        }
+        return misspelled.toString();
+    }
+
+    private static List<String> readWords(Path path) throws IOException {
+        List<String> words = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String word = line.trim();
+            if (!word.isEmpty())
+                words.add(word);
+        }
+        return words;
+    }
+
+    private static List<String> generateWords(Random random, int count) {
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < count) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(4); syllables > 0; syllables--)
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            words.add(word.toString());
+        }
+        return new ArrayList<>(words);
+    }
+}
@@ -0,0 +1,112 @@
+package dictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Hosts 10,000 small tenants, once in a {@link TenantRegistry} and once as separate
+ * {@link EnglishDictionary} instances, and compares heap per tenant and the
+ * throughput of threads that each work on their own tenants.
+ */
+public class TenantRegistryPerformanceTest {
+    private static final int TENANTS = 10_000;
+    private static final int WORDS_PER_TENANT = 200;
+    private static final int OPS_PER_THREAD = 2_000_000;
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8 };
+
+    // the only reference to the measured tenants
+    private static Object retained;
+
+    private interface Operations {
+        boolean insert(int tenant, String word);
+
+        boolean delete(int tenant, String word);
+
+        boolean search(int tenant, String word);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("===== Multi-Tenant Dictionaries (Tenants: " + TENANTS + ") =====");
+        long heapBefore = usedHeap();
+        TenantRegistry registry = new TenantRegistry();
+        List<TenantRegistry.Tenant> tenants = new ArrayList<>(TENANTS);
+        for (int t = 0; t < TENANTS; t++) {
+            TenantRegistry.Tenant tenant = registry.create("tenant" + t, 10 * WORDS_PER_TENANT, 1 << 20);
+            for (int i = 0; i < WORDS_PER_TENANT; i++)
+                tenant.insert("word" + i);
+            tenants.add(tenant);
+        }
+        retained = registry;
+        long registryHeap = usedHeap() - heapBefore;
+        System.out.println(String.format("TenantRegistry:    %,6d heap bytes/tenant, %,6d off-heap bytes/tenant",
+                registryHeap / TENANTS, registry.getUsedBytes() / TENANTS));
+
+        List<EnglishDictionary> dictionaries = new ArrayList<>(TENANTS);
+        retained = dictionaries;
+        heapBefore = usedHeap();
+        for (int t = 0; t < TENANTS; t++) {
+            EnglishDictionary dictionary = new EnglishDictionary("AVL");
+            for (int i = 0; i < WORDS_PER_TENANT; i++)
+                dictionary.insert("word" + i);
+            dictionaries.add(dictionary);
+        }
+        System.out.println(String.format("EnglishDictionary: %,6d heap bytes/tenant",
+                (usedHeap() - heapBefore) / TENANTS));
+
+        for (int threads : THREAD_COUNTS) {
+            long time = run(threads, new Operations() {
+                public boolean insert(int tenant, String word) {
+                    try {
+                        return tenants.get(tenant).insert(word);
+                    } catch (IllegalStateException e) {
+                        return false; // over quota
+                    }
+                }
+                public boolean delete(int tenant, String word) { return tenants.get(tenant).delete(word); }
+                public boolean search(int tenant, String word) { return tenants.get(tenant).search(word); }
+            });
+            long ops = (long) threads * OPS_PER_THREAD;
+            System.out.println(String.format("Threads %d: %,6d ms, %.2f Mops/s", threads, time,
+                    ops / (time / 1000.0) / 1e6));
+        }
+        registry.close();
+    }
+
+    /**
+     * Each thread works on its own share of the tenants: 80% searches, 10% inserts
+     * and 10% deletes.
+     */
+    private static long run(int threadCount, Operations operations) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
+        for (int t = 0; t < threadCount; t++) {
+            int first = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                Random random = new Random(first);
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    // tenants first, first + threadCount, ... belong to this thread
+                    int tenant = first + threadCount * random.nextInt((TENANTS - first - 1) / threadCount + 1);
+                    String word = "word" + random.nextInt(2 * WORDS_PER_TENANT);
+                    int op = random.nextInt(10);
+                    if (op == 0)
+                        operations.insert(tenant, word);
+                    else if (op == 1)
+                        operations.delete(tenant, word);
+                    else
+                        operations.search(tenant, word);
+                }
+            }));
+        }
+        for (Thread thread : threads)
+            thread.join();
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
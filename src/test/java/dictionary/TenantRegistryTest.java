@@ -0,0 +1,105 @@
+package dictionary;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TenantRegistryTest {
+
+    @Test
+    public void testTenantsAreIsolated() throws IOException {
+        try (TenantRegistry registry = new TenantRegistry(2)) {
+            TenantRegistry.Tenant alice = registry.create("alice", 100, 1 << 20);
+            TenantRegistry.Tenant bob = registry.create("bob", 100, 1 << 20);
+            assertTrue(alice.insert("apple"));
+            assertFalse(alice.insert("apple"));
+            assertTrue(bob.insert("banana"));
+            assertTrue(alice.search("apple"));
+            assertFalse(alice.search("banana"));
+            assertFalse(bob.search("apple"));
+            assertSame(alice, registry.get("alice"));
+            assertNull(registry.get("carol"));
+            assertEquals(2, registry.getTenantCount());
+            assertThrows(IllegalArgumentException.class, () -> registry.create("alice", 1, 1));
+
+            TenantStats stats = alice.getStats();
+            assertEquals(1, stats.getEntries());
+            assertEquals(2, stats.getSearches());
+            assertEquals(1, stats.getHits());
+            assertEquals(1, stats.getInserts());
+            assertTrue(stats.getOffHeapBytes() > 0);
+            assertEquals(2, registry.getStats().size());
+        }
+    }
+
+    @Test
+    public void testQuotas() throws IOException {
+        try (TenantRegistry registry = new TenantRegistry(1)) {
+            TenantRegistry.Tenant entries = registry.create("entries", 2, 1 << 20);
+            entries.insert("a");
+            entries.insert("b");
+            // a duplicate is not refused
+            assertFalse(entries.insert("a"));
+            assertThrows(IllegalStateException.class, () -> entries.insert("c"));
+            assertEquals(2, entries.getSize());
+            assertTrue(entries.delete("a"));
+            assertTrue(entries.insert("c"));
+
+            // descriptor and one node with a short key take 16 bytes each
+            TenantRegistry.Tenant bytes = registry.create("bytes", 100, 40);
+            assertTrue(bytes.insert("short"));
+            assertThrows(IllegalStateException.class, () -> bytes.insert("a much longer word than that"));
+            assertFalse(bytes.search("a much longer word than that"));
+            assertEquals(32, bytes.getOffHeapBytes());
+
+            assertEquals(1, entries.getStats().getQuotaRejections());
+            assertEquals(1, bytes.getStats().getQuotaRejections());
+        }
+    }
+
+    @Test
+    public void testRemoveReusesMemory() throws IOException {
+        try (TenantRegistry registry = new TenantRegistry(1)) {
+            long empty = registry.getUsedBytes();
+            TenantRegistry.Tenant tenant = registry.create("tenant", 1_000, 1 << 20);
+            for (int i = 0; i < 1_000; i++)
+                tenant.insert("word" + i);
+            long reserved = registry.getReservedBytes();
+            assertTrue(registry.remove("tenant"));
+            assertFalse(registry.remove("tenant"));
+            assertEquals(empty, registry.getUsedBytes());
+            assertThrows(IllegalStateException.class, () -> tenant.search("word1"));
+
+            TenantRegistry.Tenant next = registry.create("next", 1_000, 1 << 20);
+            for (int i = 0; i < 1_000; i++)
+                next.insert("word" + i);
+            assertEquals(reserved, registry.getReservedBytes());
+        }
+    }
+
+    @Test
+    public void testParallelTenants() throws Exception {
+        try (TenantRegistry registry = new TenantRegistry(2)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                TenantRegistry.Tenant tenant = registry.create("tenant" + t, 10_000, 1 << 20);
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 5_000; i++)
+                        tenant.insert("word" + i);
+                    for (int i = 0; i < 5_000; i += 2)
+                        tenant.delete("word" + i);
+                }));
+            }
+            for (Thread thread : threads)
+                thread.join();
+            for (TenantStats stats : registry.getStats()) {
+                assertEquals(2_500, stats.getEntries());
+                assertEquals(5_000, stats.getInserts());
+            }
+        }
+    }
+}
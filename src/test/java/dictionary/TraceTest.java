@@ -0,0 +1,101 @@
+package dictionary;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import trees.AVLTree;
+import trees.SplayTree;
+
+public class TraceTest {
+
+    private static Path record(Path dir) throws IOException {
+        EnglishDictionary dictionary = new EnglishDictionary("Red-Black", 1_000, 16);
+        dictionary.insert("banana");
+        dictionary.insert("apple");
+        Path file = dir.resolve("ops.trace");
+        dictionary.startTrace(file.toString());
+        assertThrows(IllegalStateException.class, () -> dictionary.startTrace(file.toString()));
+        dictionary.insert("cherry");
+        dictionary.insert("apple");
+        dictionary.search("apple");
+        dictionary.search("durian");
+        dictionary.delete("banana");
+        dictionary.search("banana");
+        assertThrows(IllegalStateException.class, () -> dictionary.load(file.toString()));
+        assertEquals(6, dictionary.stopTrace());
+        assertFalse(dictionary.isTracing());
+        dictionary.insert("untraced");
+        return file;
+    }
+
+    @Test
+    public void testRecordAndRead(@TempDir Path dir) throws IOException {
+        Trace trace = Trace.read(record(dir).toString());
+        assertEquals(List.of("apple", "banana"), trace.getSnapshot());
+        assertEquals(6, trace.size());
+        int[] operations = { Trace.INSERT, Trace.INSERT, Trace.SEARCH, Trace.SEARCH, Trace.DELETE, Trace.SEARCH };
+        String[] words = { "cherry", "apple", "apple", "durian", "banana", "banana" };
+        boolean[] results = { true, false, true, false, true, false };
+        for (int i = 0; i < trace.size(); i++) {
+            assertEquals(operations[i], trace.getOperation(i));
+            assertEquals(words[i], trace.getWord(i));
+            assertEquals(results[i], trace.getResult(i));
+            assertTrue(i == 0 || trace.getTimeNanos(i) >= trace.getTimeNanos(i - 1));
+        }
+    }
+
+    @Test
+    public void testLongIdleGap() throws IOException {
+        // two hours of idle time is more microseconds than an int holds
+        long[] nanos = { 5_000 };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TraceRecorder recorder = new TraceRecorder(out, List.of(), () -> nanos[0])) {
+            nanos[0] += 3_000;
+            recorder.record(Trace.INSERT, "apple", true);
+            nanos[0] += TimeUnit.HOURS.toNanos(2);
+            recorder.record(Trace.SEARCH, "apple", true);
+            nanos[0] += 1_000;
+            recorder.record(Trace.DELETE, "apple", true);
+        }
+        Trace trace = Trace.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(3_000, trace.getTimeNanos(0));
+        assertEquals(3_000 + TimeUnit.HOURS.toNanos(2), trace.getTimeNanos(1));
+        assertEquals(4_000 + TimeUnit.HOURS.toNanos(2), trace.getTimeNanos(2));
+    }
+
+    @Test
+    public void testTruncatedTrace(@TempDir Path dir) throws IOException {
+        byte[] bytes = Files.readAllBytes(record(dir));
+        // the last record is a search of an already numbered word: flag, time and number
+        Trace trace = Trace.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertEquals(5, trace.size());
+        assertThrows(IOException.class, () -> Trace.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 })));
+    }
+
+    @Test
+    public void testReplay(@TempDir Path dir) throws Exception {
+        TraceReplayer replayer = new TraceReplayer(Trace.read(record(dir).toString()));
+        TraceReplayer.Report report = replayer.replay(new AVLTree<>(), 1, 0);
+        assertEquals(6, report.getOperations());
+        assertEquals(0, report.getMismatches());
+        assertEquals(2, report.getSize());
+        assertTrue(report.getLatencyNanos(0.5) <= report.getLatencyNanos(0.999));
+
+        // paced and multi-threaded replays run every operation once
+        report = replayer.replay(new SplayTree<>(), 3, 1_000);
+        assertEquals(6, report.getOperations());
+        assertEquals(2, report.getSize());
+        assertThrows(IllegalArgumentException.class, () -> replayer.replay(new AVLTree<>(), 0, 0));
+    }
+}
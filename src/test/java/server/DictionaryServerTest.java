@@ -0,0 +1,137 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dictionary.ChangeFrame;
+import dictionary.DictionaryReplica;
+import dictionary.EnglishDictionary;
+
+public class DictionaryServerTest {
+    private DictionaryServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new DictionaryServer(new EnglishDictionary("AVL"), 0);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    private Socket connect() throws IOException {
+        return new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+    }
+
+    @Test
+    public void testPipelinedRequests() throws IOException {
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            out.write(("INSERT apple\ninsert banana\nINSERT apple\nSEARCH apple\nDELETE apple\nSEARCH apple\n"
+                    + "SIZE\nHEIGHT\nFROB x\nSEARCH\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertEquals("1", in.readLine());
+            assertEquals("1", in.readLine());
+            assertEquals("0", in.readLine());
+            assertEquals("1", in.readLine());
+            assertEquals("1", in.readLine());
+            assertEquals("0", in.readLine());
+            assertEquals("1", in.readLine());
+            assertEquals("1", in.readLine());
+            assertTrue(in.readLine().startsWith("ERR"));
+            assertTrue(in.readLine().startsWith("ERR"));
+
+            out.write("QUIT\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            assertNull(in.readLine());
+        }
+    }
+
+    @Test
+    public void testSharedAcrossClients() throws IOException {
+        try (Socket writer = connect(); Socket reader = connect()) {
+            BufferedReader writerIn = new BufferedReader(new InputStreamReader(writer.getInputStream(), StandardCharsets.UTF_8));
+            writer.getOutputStream().write("INSERT shared\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals("1", writerIn.readLine());
+
+            BufferedReader readerIn = new BufferedReader(new InputStreamReader(reader.getInputStream(), StandardCharsets.UTF_8));
+            reader.getOutputStream().write("SEARCH shared\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals("1", readerIn.readLine());
+            reader.getOutputStream().write("SUGGEST shraed\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals("shared", readerIn.readLine());
+        }
+    }
+
+    @Test
+    public void testStats() throws IOException {
+        try (Socket socket = connect()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            socket.getOutputStream().write("STATS\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals("disabled", in.readLine());
+        }
+        EnglishDictionary filtered = new EnglishDictionary("AVL", 1_000, 16);
+        try (DictionaryServer filteredServer = new DictionaryServer(filtered, 0)) {
+            filteredServer.start();
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), filteredServer.getPort())) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                socket.getOutputStream().write("INSERT apple\nSEARCH apple\nSEARCH cherry\nSTATS\n"
+                        .getBytes(StandardCharsets.UTF_8));
+                assertEquals("1", in.readLine());
+                assertEquals("1", in.readLine());
+                assertEquals("0", in.readLine());
+                assertEquals(filtered.getLookupStats().toString(), in.readLine());
+                assertEquals(2, filtered.getLookupStats().getLookups());
+            }
+        }
+    }
+
+    @Test
+    public void testSubscribe() throws IOException {
+        EnglishDictionary primary = new EnglishDictionary("AVL");
+        primary.insert("existing");
+        primary.enableChangeFeed(100, false);
+        try (DictionaryServer feedServer = new DictionaryServer(primary, 0)) {
+            feedServer.start();
+            try (Socket writer = new Socket(InetAddress.getLoopbackAddress(), feedServer.getPort());
+                 Socket subscriber = new Socket(InetAddress.getLoopbackAddress(), feedServer.getPort())) {
+                subscriber.getOutputStream().write("SUBSCRIBE -1\n".getBytes(StandardCharsets.UTF_8));
+                InputStream in = subscriber.getInputStream();
+                StringBuilder status = new StringBuilder();
+                for (int b; (b = in.read()) != '\n';)
+                    status.append((char) b);
+                assertEquals("OK", status.toString());
+
+                BufferedReader writerIn = new BufferedReader(new InputStreamReader(writer.getInputStream(), StandardCharsets.UTF_8));
+                writer.getOutputStream().write("INSERT apple\nDELETE existing\n".getBytes(StandardCharsets.UTF_8));
+                assertEquals("1", writerIn.readLine());
+                assertEquals("1", writerIn.readLine());
+
+                DictionaryReplica replica = new DictionaryReplica("Red-Black");
+                ChangeFrame snapshot = ChangeFrame.readFrom(in);
+                assertTrue(snapshot.isSnapshot());
+                replica.apply(snapshot);
+                while (replica.getSequence() < 2)
+                    replica.apply(ChangeFrame.readFrom(in));
+                assertTrue(replica.getDictionary().search("apple"));
+                assertFalse(replica.getDictionary().search("existing"));
+            }
+        }
+    }
+}
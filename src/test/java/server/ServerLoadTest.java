@@ -0,0 +1,80 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import dictionary.EnglishDictionary;
+
+/**
+ * Measures lookup throughput of {@link DictionaryServer} on localhost with
+ * several clients pipelining SEARCH requests.
+ */
+public class ServerLoadTest {
+    private static final int WORDS = 100_000;
+    private static final int CLIENTS = 8;
+    private static final int REQUESTS_PER_CLIENT = 500_000;
+    private static final int PIPELINE_DEPTH = 256;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("===== Dictionary Server Load Test =====");
+        EnglishDictionary dictionary = new EnglishDictionary(args.length > 0 ? args[0] : "AVL");
+        for (int i = 0; i < WORDS; i++)
+            dictionary.insert("word" + i);
+
+        try (DictionaryServer server = new DictionaryServer(dictionary, 0)) {
+            server.start();
+            runClients(server.getPort(), REQUESTS_PER_CLIENT / 10); // warm-up
+
+            long startTime = System.nanoTime();
+            runClients(server.getPort(), REQUESTS_PER_CLIENT);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+
+            long lookups = (long) CLIENTS * REQUESTS_PER_CLIENT;
+            System.out.println("Clients: " + CLIENTS + ", pipeline depth: " + PIPELINE_DEPTH);
+            System.out.println("Lookups: " + lookups + " in " + String.format("%.2f", seconds) + " s");
+            System.out.println("Throughput: " + String.format("%.0f", lookups / seconds) + " lookups/sec");
+        }
+    }
+
+    private static void runClients(int port, int requests) throws InterruptedException {
+        List<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            long seed = c;
+            clients.add(Thread.ofPlatform().start(() -> {
+                try {
+                    runClient(port, requests, new Random(seed));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (Thread client : clients)
+            client.join();
+    }
+
+    private static void runClient(int port, int requests, Random random) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+            for (int sent = 0; sent < requests; sent += PIPELINE_DEPTH) {
+                int batch = Math.min(PIPELINE_DEPTH, requests - sent);
+                for (int i = 0; i < batch; i++)
+                    out.write("SEARCH word" + random.nextInt(WORDS * 2) + '\n');
+                out.flush();
+                for (int i = 0; i < batch; i++)
+                    in.readLine();
+            }
+        }
+    }
+}
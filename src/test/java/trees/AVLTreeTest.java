@@ -2,6 +2,9 @@ package trees;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -141,6 +144,7 @@ public class AVLTreeTest {
         assertTrue(avlTree.delete(1));
         assertTrue(avlTree.delete(25));
         assertTrue(avlTree.delete(75));
+        avlTree.validate();
 
         assertEquals(9, avlTree.getSize());
 
@@ -168,4 +172,132 @@ public class AVLTreeTest {
         assertTrue(avlTree.search(30));
         assertFalse(avlTree.search(20));
     }
+
+    @Test
+    public void testLazyDelete() {
+        avlTree.setLazyDelete(0.5);
+        for (int i = 0; i < 200; i++)
+            avlTree.insert(i);
+        int height = avlTree.getHeight();
+
+        // below the threshold deletes only leave tombstones
+        for (int i = 0; i < 100; i++)
+            assertTrue(avlTree.delete(i));
+        assertFalse(avlTree.delete(10));
+        assertEquals(100, avlTree.getSize());
+        assertEquals(100, avlTree.getTombstoneCount());
+        assertEquals(height, avlTree.getHeight());
+        assertFalse(avlTree.search(10));
+        avlTree.validate();
+
+        // inserting a tombstoned key revives it
+        assertTrue(avlTree.insert(10));
+        assertFalse(avlTree.insert(10));
+        assertTrue(avlTree.search(10));
+        assertEquals(99, avlTree.getTombstoneCount());
+        avlTree.validate();
+
+        // crossing the threshold compacts
+        for (int i = 100; i < 102; i++)
+            assertTrue(avlTree.delete(i));
+        assertEquals(0, avlTree.getTombstoneCount());
+        assertEquals(99, avlTree.getSize());
+        assertTrue(avlTree.getHeight() < height);
+        avlTree.validate();
+
+        List<Integer> keys = new ArrayList<>();
+        avlTree.inOrder(keys::add);
+        assertEquals(10, keys.get(0));
+        assertEquals(102, keys.get(1));
+
+        // disabling compacts and goes back to eager deletion
+        assertTrue(avlTree.delete(199));
+        avlTree.setLazyDelete(0);
+        assertEquals(0, avlTree.getTombstoneCount());
+        assertTrue(avlTree.delete(198));
+        assertEquals(0, avlTree.getTombstoneCount());
+        assertEquals(97, avlTree.getSize());
+        avlTree.validate();
+    }
+
+    @Test
+    public void testFreeze() {
+        for (int i = 0; i < 200; i += 2)
+            avlTree.insert(i);
+        avlTree.freeze();
+        assertTrue(avlTree.isFrozen());
+        for (int i = 0; i < 200; i++)
+            assertEquals(i % 2 == 0, avlTree.search(i));
+        assertFalse(avlTree.search(-1));
+        assertFalse(avlTree.search(1_000));
+
+        // failed writes keep the frozen copy, successful ones thaw
+        assertFalse(avlTree.insert(10));
+        assertFalse(avlTree.delete(11));
+        assertTrue(avlTree.isFrozen());
+        assertTrue(avlTree.insert(11));
+        assertFalse(avlTree.isFrozen());
+        assertTrue(avlTree.search(11));
+
+        avlTree.freeze();
+        assertTrue(avlTree.delete(10));
+        assertFalse(avlTree.isFrozen());
+        assertFalse(avlTree.search(10));
+        avlTree.validate();
+    }
+
+    @Test
+    public void testBulkInsert() {
+        for (int i = 0; i < 1_000; i += 2)
+            avlTree.insert(i);
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 500; i < 3_000; i++)
+            batch.add(i);
+        // 250 of the keys are already present
+        assertEquals(2_250, avlTree.bulkInsert(batch));
+        assertEquals(2_750, avlTree.getSize());
+        for (int i = 0; i < 3_000; i++)
+            assertEquals(i >= 500 || i % 2 == 0, avlTree.search(i));
+        assertEquals(0, avlTree.bulkInsert(batch));
+        avlTree.validate();
+    }
+
+    @Test
+    public void testBulkDelete() {
+        for (int i = 0; i < 3_000; i++)
+            avlTree.insert(i);
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 1_000; i < 4_000; i++)
+            batch.add(i);
+        assertEquals(2_000, avlTree.bulkDelete(batch));
+        assertEquals(1_000, avlTree.getSize());
+        assertTrue(avlTree.search(999));
+        assertFalse(avlTree.search(1_000));
+        avlTree.validate();
+
+        // a small batch next to a big tree
+        assertEquals(1, avlTree.bulkDelete(List.of(-1, 500)));
+        assertFalse(avlTree.search(500));
+        assertEquals(999, avlTree.getSize());
+        avlTree.validate();
+    }
+
+    @Test
+    public void testInOrderSkipsRanges() {
+        for (int i = 0; i < 1_000; i++)
+            avlTree.insert(i);
+        avlTree.delete(10);
+        List<Integer> visited = new ArrayList<>();
+        // bounds are exclusive, so every key not above 500 must still be visited
+        avlTree.inOrder((low, high) -> low != null && high != null && low >= 500, visited::add);
+        for (int i = 0; i <= 500; i++)
+            assertEquals(i != 10, visited.contains(i));
+        assertTrue(visited.size() < 600);
+        for (int i = 1; i < visited.size(); i++)
+            assertTrue(visited.get(i - 1) < visited.get(i));
+
+        visited.clear();
+        avlTree.inOrder((low, high) -> true, visited::add);
+        assertTrue(visited.isEmpty());
+    }
 }
@@ -0,0 +1,84 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveTreeTest {
+
+    private static void awaitMigration(AdaptiveTree<Integer> tree, int migrations) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (tree.getMigrationCount() < migrations && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+    }
+
+    @Test
+    public void testBasicOperations() {
+        AdaptiveTree<Integer> tree = new AdaptiveTree<>();
+        assertEquals(0, tree.getSize());
+        assertEquals(0, tree.getHeight());
+        assertTrue(tree.insert(10));
+        assertTrue(tree.insert(20));
+        assertFalse(tree.insert(10));
+        assertTrue(tree.search(20));
+        assertTrue(tree.delete(10));
+        assertFalse(tree.delete(10));
+        assertFalse(tree.search(10));
+        assertEquals(1, tree.getSize());
+        assertEquals("Red-Black", tree.getActiveType());
+    }
+
+    @Test
+    public void testSwitchesWithWorkload() throws InterruptedException {
+        AdaptiveTree<Integer> tree = new AdaptiveTree<>(1_000, 0.9, 0.6, 100);
+        for (int i = 0; i < 5_000; i++)
+            tree.insert(i);
+
+        // read-heavy phase => AVL
+        for (int i = 0; i < 200_000 && tree.getMigrationCount() == 0; i++)
+            assertTrue(tree.search(i % 5_000));
+        awaitMigration(tree, 1);
+        assertEquals("AVL", tree.getActiveType());
+
+        // write-heavy phase => back to Red-Black
+        for (int i = 5_000; i < 200_000 && tree.getMigrationCount() == 1; i++)
+            tree.insert(i);
+        awaitMigration(tree, 2);
+        assertEquals("Red-Black", tree.getActiveType());
+
+        List<Integer> keys = new ArrayList<>();
+        tree.inOrder(keys::add);
+        assertEquals(tree.getSize(), keys.size());
+        for (int i = 0; i < keys.size(); i++)
+            assertEquals(i, keys.get(i));
+    }
+
+    @Test
+    public void testFromSorted() {
+        for (int n = 0; n < 200; n++) {
+            List<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < n; i++)
+                keys.add(i * 2);
+            AVLTree<Integer> avl = AVLTree.fromSorted(keys);
+            RedBlackTree<Integer> rb = RedBlackTree.fromSorted(keys);
+            int minHeight = 32 - Integer.numberOfLeadingZeros(n);
+            assertEquals(minHeight, avl.getHeight());
+            assertEquals(minHeight, rb.getHeight());
+            assertEquals(n, avl.getSize());
+            assertEquals(n, rb.getSize());
+
+            // both trees must keep working after a bulk build
+            assertTrue(avl.insert(1));
+            assertTrue(rb.insert(1));
+            for (int key : keys) {
+                assertTrue(avl.delete(key));
+                assertTrue(rb.delete(key));
+            }
+            assertEquals(1, avl.getSize());
+            assertEquals(1, rb.getSize());
+        }
+    }
+}
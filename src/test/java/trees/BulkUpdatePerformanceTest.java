@@ -0,0 +1,71 @@
+package trees;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares bulk updates with one-at-a-time inserts and deletes when a batch of
+ * 1M random keys is applied to an existing tree of 10M keys, for {@link AVLTree}
+ * and {@link RedBlackTree}. Pass the tree size as the first argument; each tree
+ * needs about 60 bytes of heap per key.
+ */
+public class BulkUpdatePerformanceTest {
+    private static final int BATCH = 1_000_000;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        System.out.println("===== Bulk vs Single Updates (Tree: " + size + ", Batch: " + BATCH + ") =====");
+        // even keys are stored, the batch mixes present and absent keys
+        List<Integer> stored = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            stored.add(2 * i);
+        Random random = new Random(42);
+        List<Integer> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++)
+            batch.add(random.nextInt(2 * size));
+        // separate methods, so the AVL trees can be collected before the Red-Black ones are built
+        runAVL(stored, batch);
+        runRedBlack(stored, batch);
+    }
+
+    private static void runAVL(List<Integer> stored, List<Integer> batch) {
+        AVLTree<Integer> avl = AVLTree.fromSorted(stored);
+        long avlSingle = time(() -> batch.forEach(avl::insert));
+        AVLTree<Integer> bulkAVL = AVLTree.fromSorted(stored);
+        long avlBulk = time(() -> bulkAVL.bulkInsert(sorted(batch)));
+        report("AVL insert", avlSingle, avlBulk);
+        avlSingle = time(() -> batch.forEach(avl::delete));
+        avlBulk = time(() -> bulkAVL.bulkDelete(sorted(batch)));
+        report("AVL delete", avlSingle, avlBulk);
+    }
+
+    private static void runRedBlack(List<Integer> stored, List<Integer> batch) {
+        RedBlackTree<Integer> redBlack = RedBlackTree.fromSorted(stored);
+        long redBlackSingle = time(() -> batch.forEach(redBlack::insert));
+        RedBlackTree<Integer> bulkRedBlack = RedBlackTree.fromSorted(stored);
+        long redBlackBulk = time(() -> bulkRedBlack.bulkInsert(sorted(batch)));
+        report("Red-Black insert", redBlackSingle, redBlackBulk);
+        redBlackSingle = time(() -> batch.forEach(redBlack::delete));
+        redBlackBulk = time(() -> bulkRedBlack.bulkDelete(sorted(batch)));
+        report("Red-Black delete", redBlackSingle, redBlackBulk);
+    }
+
+    // sorting is part of the bulk time, as in a batch file
+    private static List<Integer> sorted(List<Integer> batch) {
+        return batch.stream().sorted().distinct().toList();
+    }
+
+    private static long time(Runnable action) {
+        // keeps a full collection left over from building the trees out of the measurement
+        System.gc();
+        long startTime = System.currentTimeMillis();
+        action.run();
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private static void report(String name, long single, long bulk) {
+        System.out.println(String.format("%-17s single %,6d ms, bulk %,6d ms, speed-up %.2f", name, single, bulk,
+                (double) single / bulk));
+    }
+}
@@ -0,0 +1,99 @@
+package trees;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares {@link LockFreeSkipList} with a {@code Collections.synchronizedSortedSet}
+ * over a {@code TreeSet} under a concurrent mix of 80% searches, 10% inserts and
+ * 10% deletes.
+ */
+public class ConcurrentPerformanceTest {
+    private static final int KEY_RANGE = 1_000_000;
+    private static final int OPS_PER_THREAD = 1_000_000;
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16 };
+
+    private interface Operations {
+        boolean insert(int key);
+
+        boolean delete(int key);
+
+        boolean search(int key);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("===== Concurrent Set Performance Comparison =====");
+        for (int threads : THREAD_COUNTS) {
+            System.out.println("\n=============== Threads: " + threads + " ==============");
+
+            LockFreeSkipList<Integer> skipList = new LockFreeSkipList<>();
+            prefill(skipList::insert);
+            long skipListTime = run(threads, new Operations() {
+                public boolean insert(int key) { return skipList.insert(key); }
+                public boolean delete(int key) { return skipList.delete(key); }
+                public boolean search(int key) { return skipList.search(key); }
+            });
+
+            SortedSet<Integer> synchronizedSet = Collections.synchronizedSortedSet(new TreeSet<>());
+            prefill(synchronizedSet::add);
+            long synchronizedTime = run(threads, new Operations() {
+                public boolean insert(int key) { return synchronizedSet.add(key); }
+                public boolean delete(int key) { return synchronizedSet.remove(key); }
+                public boolean search(int key) { return synchronizedSet.contains(key); }
+            });
+
+            long ops = (long) threads * OPS_PER_THREAD;
+            System.out.println("LockFreeSkipList:     " + skipListTime + " ms, "
+                    + String.format("%.2f", ops / (skipListTime / 1000.0) / 1e6) + " Mops/s");
+            System.out.println("synchronizedSortedSet: " + synchronizedTime + " ms, "
+                    + String.format("%.2f", ops / (synchronizedTime / 1000.0) / 1e6) + " Mops/s");
+            System.out.println("Speed-up: " + String.format("%.2f", (double) synchronizedTime / skipListTime));
+        }
+    }
+
+    private static void prefill(java.util.function.IntPredicate insert) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < KEY_RANGE / 2; i++) {
+            insert.test(random.nextInt(KEY_RANGE));
+        }
+    }
+
+    private static long run(int threadCount, Operations operations) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(threadCount + 1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    int key = random.nextInt(KEY_RANGE);
+                    int op = random.nextInt(10);
+                    if (op == 0) {
+                        operations.insert(key);
+                    } else if (op == 1) {
+                        operations.delete(key);
+                    } else {
+                        operations.search(key);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.await();
+        long startTime = System.currentTimeMillis();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.currentTimeMillis() - startTime;
+    }
+}
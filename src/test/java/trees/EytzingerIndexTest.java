@@ -0,0 +1,69 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class EytzingerIndexTest {
+
+    @Test
+    public void testIntegerKeys() {
+        // every size up to a few full levels, odd keys only so even probes fall into gaps
+        for (int n = 0; n <= 70; n++) {
+            List<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < n; i++)
+                keys.add(2 * i + 1);
+            EytzingerIndex<Integer> index = EytzingerIndex.fromSorted(keys);
+            assertEquals(n, index.size());
+            for (int probe = -1; probe <= 2 * n + 1; probe++)
+                assertEquals(probe % 2 != 0 && probe > 0 && probe < 2 * n, index.contains(probe), n + ": " + probe);
+        }
+    }
+
+    @Test
+    public void testStringKeys() {
+        List<String> keys = new ArrayList<>();
+        for (char c = 'b'; c <= 'y'; c += 2)
+            keys.add(String.valueOf(c));
+        EytzingerIndex<String> index = EytzingerIndex.fromSorted(keys);
+        for (char c = 'a'; c <= 'z'; c++)
+            assertEquals(keys.contains(String.valueOf(c)), index.contains(String.valueOf(c)), String.valueOf(c));
+        assertFalse(index.contains(""));
+        assertFalse(index.contains("bb"));
+    }
+
+    @Test
+    public void testStringPrefixTies() {
+        // long shared prefixes, keys shorter than the packed prefix and chars beyond Latin-1
+        List<String> probes = List.of("", "a", "a\0", "ab", "abcdefgh", "abcdefghi", "abcdefghij", "abcdefgi", "b",
+                "ÿÿÿÿÿÿÿÿ", "ÿÿÿÿÿÿÿÿÿ", "é", "世", "a世", "abcdefgh世");
+        for (boolean wide : new boolean[] { false, true }) {
+            List<String> keys = new ArrayList<>(List.of("a", "abcdefgh", "abcdefghij", "b", "ÿÿÿÿÿÿÿÿ", "é"));
+            if (wide)
+                keys.add("世");
+            keys.sort(null);
+            EytzingerIndex<String> index = EytzingerIndex.fromSorted(keys);
+            for (String probe : probes)
+                assertEquals(keys.contains(probe), index.contains(probe), wide + ": " + probe);
+        }
+    }
+
+    @Test
+    public void testMemoryFootprint() {
+        MemoryLayout layout = MemoryLayout.COMPRESSED;
+        List<Integer> ints = new ArrayList<>();
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            ints.add(i);
+            strings.add(String.format("%04d", i));
+        }
+        // unboxed ints take 4 bytes per key, strings a reference plus an 8 byte prefix
+        assertEquals(layout.objectSize(3, 4) + layout.arraySize(1_001, 4),
+                EytzingerIndex.fromSorted(ints).memoryFootprint(layout));
+        assertEquals(layout.objectSize(3, 4) + layout.arraySize(1_001, 4) + layout.arraySize(1_001, 8),
+                EytzingerIndex.fromSorted(strings).memoryFootprint(layout));
+    }
+}
@@ -0,0 +1,126 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FrequencyTreapTest {
+
+    private FrequencyTreap<Integer> treap;
+
+    @BeforeEach
+    public void setUp() {
+        treap = new FrequencyTreap<>(new Random(42));
+    }
+
+    @Test
+    public void testEmptyTree() {
+        assertEquals(0, treap.getSize());
+        assertEquals(0, treap.getHeight());
+        assertFalse(treap.search(10));
+        assertFalse(treap.delete(10));
+    }
+
+    @Test
+    public void testInsertDeleteSearch() {
+        assertTrue(treap.insert(20));
+        assertTrue(treap.insert(10));
+        assertTrue(treap.insert(30));
+        assertFalse(treap.insert(10));
+        assertEquals(3, treap.getSize());
+
+        assertTrue(treap.search(10));
+        assertFalse(treap.search(15));
+        assertTrue(treap.delete(20));
+        assertFalse(treap.delete(20));
+        assertFalse(treap.search(20));
+        assertEquals(2, treap.getSize());
+    }
+
+    @Test
+    public void testRandomizedHeight() {
+        for (int i = 0; i < 10_000; i++)
+            treap.insert(i);
+        // sorted inserts must not degenerate; expected height is about 3 log2 n
+        assertTrue(treap.getHeight() < 60);
+    }
+
+    @Test
+    public void testHotKeyRisesToRoot() {
+        // the most frequently searched key becomes the root => found with one comparison
+        FrequencyTreap<Counting> counting = new FrequencyTreap<>(new Random(1));
+        for (int i = 0; i < 1_000; i++)
+            counting.insert(new Counting(i));
+        for (int i = 0; i < 5; i++)
+            counting.search(new Counting(777));
+        Counting.comparisons = 0;
+        assertTrue(counting.search(new Counting(777)));
+        assertEquals(1, Counting.comparisons);
+    }
+
+    @Test
+    public void testChainDoesNotOverflowStack() {
+        // tie-breakers rising with key order build a chain, like access counts rising with key order
+        FrequencyTreap<Integer> chain = new FrequencyTreap<>(new Random() {
+            private int next;
+
+            @Override
+            public int nextInt() {
+                return next++;
+            }
+        });
+        int n = 200_000;
+        for (int i = 0; i < n; i++)
+            assertTrue(chain.insert(i));
+        assertEquals(n, chain.getHeight());
+        assertTrue(chain.search(0));
+        assertFalse(chain.search(-1));
+        assertTrue(chain.delete(1));
+        assertFalse(chain.delete(1));
+        assertEquals(n - 1, chain.getSize());
+        List<Integer> keys = new ArrayList<>();
+        chain.inOrder(keys::add);
+        assertEquals(n - 1, keys.size());
+        assertEquals(0, keys.get(0));
+        assertEquals(2, keys.get(1));
+    }
+
+    @Test
+    public void testRandomOperationsAgainstTreeSet() {
+        Random random = new Random(7);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(2_000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(key), treap.insert(key));
+                case 1 -> assertEquals(expected.remove(key), treap.delete(key));
+                default -> assertEquals(expected.contains(key), treap.search(key));
+            }
+        }
+        assertEquals(expected.size(), treap.getSize());
+        List<Integer> keys = new ArrayList<>();
+        treap.inOrder(keys::add);
+        assertEquals(new ArrayList<>(expected), keys);
+    }
+
+    private static class Counting implements Comparable<Counting> {
+        static int comparisons;
+        final int value;
+
+        Counting(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Counting other) {
+            comparisons++;
+            return Integer.compare(value, other.value);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class KeyPrefixTest {
+
+    @Test
+    public void testNoPrefix() {
+        assertEquals(KeyPrefix.NONE, KeyPrefix.of(42));
+        assertEquals(KeyPrefix.NONE, KeyPrefix.of("日本"));
+        // chars past the eighth do not matter
+        assertNotEquals(KeyPrefix.NONE, KeyPrefix.of("abcdefgh日本"));
+        assertEquals(KeyPrefix.of("abcdefgh"), KeyPrefix.of("abcdefghij"));
+    }
+
+    @Test
+    public void testCompareAgreesWithString() {
+        List<String> words = new ArrayList<>(List.of("", "a", "a\0", "ab", "inter", "interact", "interaction",
+                "interactions", "under", "understand", "naïve", "zzzzzzzzz", "日本"));
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int j = 0; j < chars.length; j++)
+                chars[j] = (char) (random.nextInt(10) == 0 ? random.nextInt(0x300) : 'a' + random.nextInt(3));
+            words.add(new String(chars));
+        }
+        for (String a : words) {
+            for (String b : words) {
+                int expected = Integer.signum(a.compareTo(b));
+                assertEquals(expected, Integer.signum(KeyPrefix.compare(a, KeyPrefix.of(a), b, KeyPrefix.of(b))),
+                        a + " vs " + b);
+            }
+        }
+    }
+}
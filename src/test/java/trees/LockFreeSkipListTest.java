@@ -0,0 +1,203 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LockFreeSkipListTest {
+    private static final int THREADS = 8;
+
+    private LockFreeSkipList<Integer> skipList;
+
+    @BeforeEach
+    public void setUp() {
+        skipList = new LockFreeSkipList<>();
+    }
+
+    @Test
+    public void testEmptyList() {
+        assertEquals(0, skipList.getSize());
+        assertEquals(0, skipList.getHeight());
+        assertFalse(skipList.search(10));
+        assertFalse(skipList.delete(10));
+    }
+
+    @Test
+    public void testSequentialAgainstTreeSet() {
+        Random random = new Random(7);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(5_000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(key), skipList.insert(key));
+                case 1 -> assertEquals(expected.remove(key), skipList.delete(key));
+                default -> assertEquals(expected.contains(key), skipList.search(key));
+            }
+        }
+        assertEquals(expected.size(), skipList.getSize());
+        List<Integer> keys = new ArrayList<>();
+        skipList.inOrder(keys::add);
+        assertEquals(new ArrayList<>(expected), keys);
+        assertTrue(skipList.getHeight() <= 2 * Math.log(expected.size()) / Math.log(2) + 2);
+    }
+
+    /**
+     * Threads hammer a small shared key range. In any linearizable history, the
+     * successful inserts and deletes of a key alternate, starting with an insert,
+     * so per key they must differ by 0 (absent at the end) or 1 (present).
+     * Each thread also owns private keys whose results must follow its own program order.
+     */
+    @Test
+    public void testLinearizabilityStress() throws Exception {
+        int sharedKeys = 64;
+        int opsPerThread = 200_000;
+        long[][] inserts = new long[THREADS][sharedKeys];
+        long[][] deletes = new long[THREADS][sharedKeys];
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int id = t;
+            threads.add(new Thread(() -> {
+                try {
+                    Random random = new Random(id);
+                    TreeSet<Integer> own = new TreeSet<>();
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        int op = random.nextInt(3);
+                        if (random.nextBoolean()) {
+                            int key = random.nextInt(sharedKeys);
+                            if (op == 0 && skipList.insert(key))
+                                inserts[id][key]++;
+                            else if (op == 1 && skipList.delete(key))
+                                deletes[id][key]++;
+                            else if (op == 2)
+                                skipList.search(key);
+                        } else {
+                            // private keys interleave with the other threads' private keys
+                            int key = sharedKeys + id + THREADS * random.nextInt(256);
+                            boolean result = op == 0 ? skipList.insert(key)
+                                    : op == 1 ? skipList.delete(key) : skipList.search(key);
+                            boolean expected = op == 0 ? own.add(key) : op == 1 ? own.remove(key) : own.contains(key);
+                            if (result != expected)
+                                throw new AssertionError("Thread " + id + " saw op " + op + " on " + key + " return " + result);
+                        }
+                    }
+                    for (int key : own)
+                        if (!skipList.search(key))
+                            throw new AssertionError("Lost private key " + key);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+
+        int present = 0;
+        for (int key = 0; key < sharedKeys; key++) {
+            long balance = 0;
+            for (int t = 0; t < THREADS; t++)
+                balance += inserts[t][key] - deletes[t][key];
+            assertTrue(balance == 0 || balance == 1, "key " + key + " balance " + balance);
+            assertEquals(balance == 1, skipList.search(key));
+            present += (int) balance;
+        }
+
+        List<Integer> keys = new ArrayList<>();
+        skipList.inOrder(keys::add);
+        for (int i = 1; i < keys.size(); i++)
+            assertTrue(keys.get(i - 1) < keys.get(i));
+        assertEquals(keys.size(), skipList.getSize());
+        assertEquals(present, keys.stream().filter(k -> k < sharedKeys).count());
+    }
+
+    /**
+     * Racing inserts and deletes of one key may leave removed nodes linked on index
+     * levels. Searches must still see every completed re-insert and delete: the
+     * checker publishes the key's state after each of its own operations, and a
+     * search that ran entirely within one published state must agree with it.
+     */
+    @Test
+    public void testSearchAfterReinsertStress() throws Exception {
+        int key = 500;
+        for (int i = 0; i < 1_000; i += 10)
+            skipList.insert(i);
+        skipList.delete(key);
+        // state * 4 + epoch counter; state 0 unknown, 1 present, 2 absent
+        AtomicLong published = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < THREADS - 2; t++) {
+            readers.add(new Thread(() -> {
+                while (!done.get()) {
+                    long before = published.get();
+                    boolean found = skipList.search(key);
+                    long state = before & 3;
+                    if (state != 0 && published.get() == before && found != (state == 1)) {
+                        failure.compareAndSet(null, new AssertionError("Search returned " + found + " in state " + state));
+                        return;
+                    }
+                }
+            }));
+        }
+        for (Thread reader : readers)
+            reader.start();
+
+        long epoch = 0;
+        for (int round = 0; round < 500 && failure.get() == null; round++) {
+            published.set(++epoch << 2);
+            List<Thread> racers = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                int seed = round * 2 + t;
+                racers.add(new Thread(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 200; i++) {
+                        if (random.nextBoolean())
+                            skipList.insert(key);
+                        else
+                            skipList.delete(key);
+                    }
+                }));
+            }
+            for (Thread racer : racers)
+                racer.start();
+            for (Thread racer : racers)
+                racer.join();
+
+            skipList.delete(key);
+            assertTrue(skipList.insert(key));
+            published.set(++epoch << 2 | 1);
+            for (int i = 0; i < 100; i++)
+                assertTrue(skipList.search(key));
+            published.set(++epoch << 2);
+            assertTrue(skipList.delete(key));
+            published.set(++epoch << 2 | 2);
+            for (int i = 0; i < 100; i++)
+                assertFalse(skipList.search(key));
+        }
+        done.set(true);
+        for (Thread reader : readers)
+            reader.join();
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+        assertEquals(99, skipList.getSize());
+    }
+}
@@ -0,0 +1,126 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the layout model against known HotSpot sizes. {@link #main} sweeps
+ * dataset sizes, prints bytes per entry for both trees and compares the estimate
+ * with the heap growth actually measured.
+ */
+public class MemoryFootprintTest {
+
+    @Test
+    public void testCompressedLayout() {
+        MemoryLayout layout = MemoryLayout.COMPRESSED;
+        assertEquals(16, layout.objectSize(0, 0));
+        assertEquals(16, layout.keySize(42));
+        assertEquals(24, layout.keySize(42L));
+        assertEquals(24, layout.arraySize(2, layout.getReferenceSize()));
+        assertEquals(16, layout.arraySize(0, 1));
+        // 24 byte String plus a 16 + 5 byte array padded to 24
+        assertEquals(48, layout.keySize("hello"));
+        assertEquals(24 + 32, layout.keySize("héllo世"));
+    }
+
+    @Test
+    public void testUncompressedLayout() {
+        MemoryLayout layout = new MemoryLayout(16, 8, 8);
+        assertEquals(16, layout.objectSize(0, 0));
+        assertEquals(32, layout.objectSize(1, 1));
+        assertEquals(40, layout.arraySize(2, layout.getReferenceSize()));
+    }
+
+    @Test
+    public void testTreeFootprints() {
+        MemoryLayout layout = MemoryLayout.COMPRESSED;
+        AVLTree<Integer> avl = new AVLTree<>();
+        RedBlackTree<Integer> redBlack = new RedBlackTree<>();
+        for (int i = 0; i < 1_000; i++) {
+            avl.insert(i);
+            redBlack.insert(i);
+        }
+
+        MemoryFootprint avlFootprint = avl.memoryFootprint(layout);
+        assertEquals(1_000, avlFootprint.getEntries());
+        assertEquals(40 * 1_000, avlFootprint.getNodeBytes());
+        assertEquals(0, avlFootprint.getChildArrayBytes());
+        assertEquals(16 * 1_000, avlFootprint.getKeyBytes());
+
+        MemoryFootprint redBlackFootprint = redBlack.memoryFootprint(layout);
+        assertEquals(40 * 1_000, redBlackFootprint.getNodeBytes());
+        assertEquals(24 * 1_000, redBlackFootprint.getChildArrayBytes());
+        assertEquals(avlFootprint.getKeyBytes(), redBlackFootprint.getKeyBytes());
+        assertTrue(redBlackFootprint.getBytesPerEntry() > avlFootprint.getBytesPerEntry());
+
+        // tombstones keep their nodes until compaction
+        avl.setLazyDelete(0.9);
+        for (int i = 0; i < 100; i++)
+            avl.delete(i);
+        assertEquals(900, avl.memoryFootprint(layout).getEntries());
+        assertEquals(40 * 1_000, avl.memoryFootprint(layout).getNodeBytes());
+    }
+
+    // the only reference to the measured tree, so dropping it is not left to JIT liveness analysis
+    private static Object retained;
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String word(Random random) {
+        char[] chars = new char[4 + random.nextInt(9)];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+
+    /**
+     * Builds a tree from fresh copies of the words and measures how much heap is
+     * released when it is dropped, so the measurement covers the keys too.
+     */
+    private static <T extends ISelfBalancingBST<String>> void measure(String name, Supplier<T> factory,
+            List<String> words, Function<T, MemoryFootprint> footprint) {
+        T tree = factory.get();
+        for (String word : words)
+            tree.insert(new String(word.toCharArray()));
+        MemoryFootprint estimate = footprint.apply(tree);
+        retained = tree;
+        tree = null;
+        long withTree = usedHeap();
+        retained = null;
+        double measured = (double) (withTree - usedHeap()) / estimate.getEntries();
+        System.out.println(String.format("%-10s %6.1f bytes/entry (nodes %5.1f, child arrays %5.1f, keys %5.1f), "
+                + "measured %6.1f", name, estimate.getBytesPerEntry(),
+                (double) estimate.getNodeBytes() / estimate.getEntries(),
+                (double) estimate.getChildArrayBytes() / estimate.getEntries(),
+                (double) estimate.getKeyBytes() / estimate.getEntries(), measured));
+    }
+
+    public static void main(String[] args) {
+        System.out.println("===== Memory Footprint (" + MemoryLayout.current().getReferenceSize()
+                + " byte references) =====");
+        int[] sizes = { 10_000, 100_000, 1_000_000, 2_000_000 };
+        Random random = new Random(42);
+        for (int size : sizes) {
+            List<String> words = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                words.add(word(random));
+            Collections.shuffle(words, random);
+            System.out.println("\n-- " + size + " random words --");
+            measure("AVL", AVLTree::new, words, AVLTree::memoryFootprint);
+            measure("Red-Black", RedBlackTree::new, words, RedBlackTree::memoryFootprint);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class OffHeapAVLTreeTest {
+
+    @Test
+    public void testStringKeys() {
+        OffHeapAVLTree<String> tree = new OffHeapAVLTree<>(OffHeapStore.allocateDirect(16), KeyCodec.UTF8);
+        for (String word : new String[] { "pear", "apple", "fig", "", "apples", "héllo", "banana" })
+            assertTrue(tree.insert(word));
+        assertFalse(tree.insert("fig"));
+        assertEquals(7, tree.getSize());
+        assertTrue(tree.search(""));
+        assertTrue(tree.search("héllo"));
+        assertFalse(tree.search("appl"));
+
+        assertTrue(tree.delete("apple"));
+        assertFalse(tree.delete("apple"));
+        assertTrue(tree.search("apples"));
+        List<String> words = new ArrayList<>();
+        tree.inOrder(words::add);
+        assertEquals(List.of("", "apples", "banana", "fig", "héllo", "pear"), words);
+        tree.validate();
+    }
+
+    @Test
+    public void testFreedNodesAreReused() {
+        OffHeapStore store = OffHeapStore.allocateDirect(16);
+        OffHeapAVLTree<Integer> tree = new OffHeapAVLTree<>(store, KeyCodec.INTEGER);
+        long empty = store.getUsedBytes();
+        for (int i = 0; i < 10_000; i++)
+            tree.insert(i);
+        long full = store.getUsedBytes();
+        long reserved = store.getReservedBytes();
+        // 11 byte header and 4 byte key padded to 16 bytes
+        assertEquals(16L * 10_000, full - empty);
+        assertEquals(full, tree.getOffHeapBytes() + empty - 16);
+
+        for (int i = 0; i < 10_000; i += 2)
+            tree.delete(i);
+        assertEquals(16L * 5_000, full - store.getUsedBytes());
+        for (int i = 0; i < 10_000; i += 2)
+            tree.insert(i);
+        assertEquals(full, store.getUsedBytes());
+        assertEquals(reserved, store.getReservedBytes());
+        tree.validate();
+    }
+
+    @Test
+    public void testSharedStore() {
+        OffHeapStore store = OffHeapStore.allocateDirect(16);
+        OffHeapAVLTree<String> first = new OffHeapAVLTree<>(store, KeyCodec.UTF8);
+        OffHeapAVLTree<String> second = new OffHeapAVLTree<>(store, KeyCodec.UTF8);
+        first.insert("a");
+        second.insert("b");
+        assertFalse(first.search("b"));
+        assertTrue(OffHeapAVLTree.attach(store, second.getDescriptor(), KeyCodec.UTF8).search("b"));
+    }
+
+    @Test
+    public void testMappedFileReopens(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("words.store");
+        OffHeapAVLTree<String> tree = OffHeapAVLTree.open(file, KeyCodec.UTF8);
+        for (int i = 0; i < 1_000; i++)
+            tree.insert("word" + i);
+        tree.delete("word7");
+        tree.getStore().close();
+
+        OffHeapAVLTree<String> reopened = OffHeapAVLTree.open(file, KeyCodec.UTF8);
+        assertEquals(999, reopened.getSize());
+        assertTrue(reopened.search("word999"));
+        assertFalse(reopened.search("word7"));
+        reopened.validate();
+        // the free list survives as well
+        long used = reopened.getStore().getUsedBytes();
+        reopened.insert("word8");
+        reopened.insert("word7");
+        assertEquals(used + 16, reopened.getStore().getUsedBytes());
+        reopened.getStore().close();
+    }
+}
@@ -0,0 +1,88 @@
+package trees;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Compares {@link OffHeapAVLTree} with the on-heap {@link AVLTree} on string keys:
+ * build and lookup times, heap and off-heap bytes, the collections during the build
+ * and the pause of a full collection with the tree alive.
+ * <p>
+ * Keys are derived from their index instead of being kept in a list, so the heap
+ * only holds the tree under test. Pass the entry count as the first argument; the
+ * on-heap tree needs about 100 bytes of heap per entry.
+ */
+public class OffHeapPerformanceTest {
+    private static final int LOOKUPS = 2_000_000;
+
+    // the only reference to the measured tree
+    private static Object retained;
+
+    private static String key(long index) {
+        // a bijective mix, so distinct indexes give distinct keys in random order
+        long mixed = index * 0x9E3779B97F4A7C15L;
+        return Long.toString(mixed ^ (mixed >>> 29), 36) + "word";
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        System.out.println("===== Off-Heap vs On-Heap AVL (Size: " + size + ") =====");
+        OffHeapStore store = OffHeapStore.allocateDirect();
+        run("Off-heap", new OffHeapAVLTree<>(store, KeyCodec.UTF8), size);
+        System.out.println(String.format("  off-heap store: %,d MB used, %,d MB reserved",
+                store.getUsedBytes() >> 20, store.getReservedBytes() >> 20));
+        retained = null;
+        run("On-heap", new AVLTree<>(), size);
+    }
+
+    private static void run(String name, ISelfBalancingBST<String> tree, int size) {
+        retained = tree;
+        long heapBefore = usedHeap();
+        long[] gcBefore = gcTotals();
+        long startTime = System.currentTimeMillis();
+        for (int i = 0; i < size; i++)
+            tree.insert(key(i));
+        long buildTime = System.currentTimeMillis() - startTime;
+        long[] gcAfter = gcTotals();
+
+        Random random = new Random(42);
+        startTime = System.currentTimeMillis();
+        int found = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (tree.search(key(random.nextInt(2 * size))))
+                found++;
+        }
+        long searchTime = System.currentTimeMillis() - startTime;
+
+        startTime = System.nanoTime();
+        System.gc();
+        long fullGcMillis = (System.nanoTime() - startTime) / 1_000_000;
+        long heap = usedHeap() - heapBefore;
+
+        System.out.println(String.format("%-9s build %,6d ms, %,d lookups %,5d ms (%d found), height %d", name,
+                buildTime, LOOKUPS, searchTime, found, tree.getHeight()));
+        System.out.println(String.format("  heap %,d MB, %d collections taking %,d ms during the build, "
+                + "full GC with the tree alive %,d ms", heap >> 20, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1],
+                fullGcMillis));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return count and time in ms of all collections so far
+     */
+    private static long[] gcTotals() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, bean.getCollectionCount());
+            totals[1] += Math.max(0, bean.getCollectionTime());
+        }
+        return totals;
+    }
+}
@@ -1,23 +1,364 @@
 package trees;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.function.LongSupplier;
 
 public class PerformanceTest {
     private static final int SMALL_SIZE = 10_000;
     private static final int MEDIUM_SIZE = 50_000;
     private static final int LARGE_SIZE = 100_000;
+    private static final int ZIPF_LOOKUPS = 1_000_000;
+    private static final double ZIPF_EXPONENT = 1.1;
     
     private static final Random random = new Random(42);
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         System.out.println("===== Tree Performance Comparison =====");
         
         // Run tests with different sizes
          runTest("Small Dataset", SMALL_SIZE);
          runTest("Medium Dataset", MEDIUM_SIZE);
          runTest("Large Dataset", LARGE_SIZE);
+
+         runZipfianTest("Zipfian Lookups", LARGE_SIZE, ZIPF_LOOKUPS);
+
+         runMassDeleteTest("Mass Deletion", 1_000_000);
+
+         runTopDownTest("Bottom-Up vs Top-Down Red-Black", 1_000_000, 3);
+
+         runShapeReloadTest("Shape Reload", 1_000_000, 3);
+
+         runRotationTest("Rotations per Operation", 1_000_000, 2);
+
+         runFrozenTest("Frozen vs Pointer Lookups", 1_000_000, 3);
+    }
+
+    /**
+     * Compares searches through the tree nodes with searches in the frozen Eytzinger
+     * copy, for unboxed integer keys and for string keys. Rounds before the last only
+     * warm the JIT up.
+     */
+    private static void runFrozenTest(String testName, int size, int rounds) {
+        System.out.println("\n=============== " + testName + " (Size: " + size + ") ==============");
+        List<Integer> numbers = generateRandomNumbers(size);
+        List<Integer> lookups = getSearchSample(numbers, 2 * size);
+        List<String> words = new ArrayList<>(size);
+        for (Integer number : numbers) {
+            words.add(Integer.toString(number, 36) + "word");
+        }
+        List<String> wordLookups = new ArrayList<>(lookups.size());
+        for (Integer number : lookups) {
+            wordLookups.add(Integer.toString(number, 36) + "word");
+        }
+
+        for (int round = 0; round < rounds; round++) {
+            boolean last = round == rounds - 1;
+            runFrozen("AVL/Integer", fill(new AVLTree<>(), numbers), lookups, last);
+            runFrozen("RB/Integer", fill(new RedBlackTree<>(), numbers), lookups, last);
+            AVLTree<String> avlWords = new AVLTree<>();
+            RedBlackTree<String> rbWords = new RedBlackTree<>();
+            for (String word : words) {
+                avlWords.insert(word);
+                rbWords.insert(word);
+            }
+            runFrozen("AVL/String", avlWords, wordLookups, last);
+            runFrozen("RB/String", rbWords, wordLookups, last);
+        }
+    }
+
+    private static <T extends Comparable<T>> void runFrozen(String name, ISelfBalancingBST<T> tree, List<T> lookups,
+            boolean report) {
+        long startTime = System.currentTimeMillis();
+        int found = 0;
+        for (T key : lookups) {
+            if (tree.search(key)) {
+                found++;
+            }
+        }
+        long pointerTime = System.currentTimeMillis() - startTime;
+
+        startTime = System.currentTimeMillis();
+        if (tree instanceof AVLTree<T> avl) {
+            avl.freeze();
+        } else {
+            ((RedBlackTree<T>) tree).freeze();
+        }
+        long freezeTime = System.currentTimeMillis() - startTime;
+        startTime = System.currentTimeMillis();
+        int frozenFound = 0;
+        for (T key : lookups) {
+            if (tree.search(key)) {
+                frozenFound++;
+            }
+        }
+        long frozenTime = System.currentTimeMillis() - startTime;
+        if (found != frozenFound) {
+            throw new IllegalStateException(name + " found " + frozenFound + " frozen vs " + found);
+        }
+        if (report) {
+            System.out.println(String.format("%-11s pointer %4d ms vs frozen %4d ms (freeze %3d ms), Ratio: %.2f", name,
+                    pointerTime, frozenTime, freezeTime, (double) pointerTime / frozenTime));
+        }
+    }
+
+    /**
+     * Compares AVL, red-black and weak AVL trees on inserts, lookups and deleting
+     * half of the keys, reporting rotations per update next to the timings. Rounds
+     * before the last only warm the JIT up.
+     */
+    private static void runRotationTest(String testName, int size, int rounds) {
+        System.out.println("\n=============== " + testName + " (Size: " + size + ", deleting 50%) ==============");
+        List<Integer> numbers = generateRandomNumbers(size);
+        List<Integer> searchNumbers = getSearchSample(numbers, size);
+        List<Integer> deleteNumbers = new ArrayList<>(numbers.subList(0, size / 2));
+        Collections.shuffle(deleteNumbers, random);
+
+        for (int round = 0; round < rounds; round++) {
+            boolean report = round == rounds - 1;
+            AVLTree<Integer> avlTree = new AVLTree<>();
+            runRotations("AVL", avlTree, avlTree::getRotationCount, numbers, searchNumbers, deleteNumbers, report);
+            RedBlackTree<Integer> rbTree = new RedBlackTree<>();
+            runRotations("Red-Black", rbTree, rbTree::getRotationCount, numbers, searchNumbers, deleteNumbers, report);
+            WAVLTree<Integer> wavlTree = new WAVLTree<>();
+            runRotations("WAVL", wavlTree, wavlTree::getRotationCount, numbers, searchNumbers, deleteNumbers, report);
+        }
+    }
+
+    private static void runRotations(String name, ISelfBalancingBST<Integer> tree, LongSupplier rotations,
+            List<Integer> numbers, List<Integer> searchNumbers, List<Integer> deleteNumbers, boolean report) {
+        long startTime = System.currentTimeMillis();
+        fill(tree, numbers);
+        long insertTime = System.currentTimeMillis() - startTime;
+        long insertRotations = rotations.getAsLong();
+        int insertHeight = tree.getHeight();
+
+        startTime = System.currentTimeMillis();
+        for (Integer num : searchNumbers) {
+            tree.search(num);
+        }
+        long searchTime = System.currentTimeMillis() - startTime;
+
+        startTime = System.currentTimeMillis();
+        for (Integer num : deleteNumbers) {
+            tree.delete(num);
+        }
+        long deleteTime = System.currentTimeMillis() - startTime;
+        long deleteRotations = rotations.getAsLong() - insertRotations;
+
+        if (report) {
+            System.out.println(String.format("%-10s insert %5d ms (%.3f rotations/op, height %d), search %5d ms, "
+                    + "delete %5d ms (%.3f rotations/op, height %d)", name, insertTime,
+                    (double) insertRotations / numbers.size(), insertHeight, searchTime, deleteTime,
+                    (double) deleteRotations / deleteNumbers.size(), tree.getHeight()));
+        }
+    }
+
+    /**
+     * Compares reloading a saved tree shape with rebuilding the tree by inserts, for
+     * string keys like a dictionary holds. Rounds before the last only warm the JIT up.
+     */
+    private static void runShapeReloadTest(String testName, int size, int rounds) throws IOException {
+        System.out.println("\n=============== " + testName + " (Size: " + size + ") ==============");
+        List<String> words = new ArrayList<>(size);
+        for (Integer number : generateRandomNumbers(size)) {
+            words.add(Integer.toString(number, 36) + "word");
+        }
+
+        for (int round = 0; round < rounds; round++) {
+            boolean last = round == rounds - 1;
+            long startTime = System.currentTimeMillis();
+            AVLTree<String> avlTree = new AVLTree<>();
+            for (String word : words) {
+                avlTree.insert(word);
+            }
+            long avlInsertTime = System.currentTimeMillis() - startTime;
+            ByteArrayOutputStream avlBytes = new ByteArrayOutputStream();
+            avlTree.writeTo(avlBytes, KeyCodec.UTF8);
+            // start the load on a clean heap so it is not charged for collecting earlier rounds
+            System.gc();
+            startTime = System.nanoTime();
+            AVLTree<String> avlLoaded = AVLTree.readFrom(new ByteArrayInputStream(avlBytes.toByteArray()),
+                    KeyCodec.UTF8);
+            long avlLoadNanos = System.nanoTime() - startTime;
+
+            startTime = System.currentTimeMillis();
+            RedBlackTree<String> rbTree = new RedBlackTree<>();
+            for (String word : words) {
+                rbTree.insert(word);
+            }
+            long rbInsertTime = System.currentTimeMillis() - startTime;
+            ByteArrayOutputStream rbBytes = new ByteArrayOutputStream();
+            rbTree.writeTo(rbBytes, KeyCodec.UTF8);
+            System.gc();
+            startTime = System.nanoTime();
+            RedBlackTree<String> rbLoaded = RedBlackTree.readFrom(new ByteArrayInputStream(rbBytes.toByteArray()),
+                    KeyCodec.UTF8);
+            long rbLoadNanos = System.nanoTime() - startTime;
+
+            if (last) {
+                System.out.println("AVL:       inserts " + avlInsertTime + " ms vs load " + avlLoadNanos / 1_000_000
+                        + " ms (" + String.format("%.1f", avlLoaded.getSize() * 1e3 / avlLoadNanos) + "M nodes/s, "
+                        + avlBytes.size() / 1024 + " KB)");
+                System.out.println("Red-Black: inserts " + rbInsertTime + " ms vs load " + rbLoadNanos / 1_000_000
+                        + " ms (" + String.format("%.1f", rbLoaded.getSize() * 1e3 / rbLoadNanos) + "M nodes/s, "
+                        + rbBytes.size() / 1024 + " KB)");
+            }
+        }
+    }
+
+    /**
+     * Compares the recursive bottom-up red-black tree with the single-pass top-down
+     * one. Rounds before the last only warm the JIT up.
+     */
+    private static void runTopDownTest(String testName, int size, int rounds) {
+        System.out.println("\n=============== " + testName + " (Size: " + size + ") ==============");
+        List<Integer> numbers = generateRandomNumbers(size);
+        List<Integer> deleteNumbers = new ArrayList<>(numbers);
+        Collections.shuffle(deleteNumbers, random);
+
+        long[] bottomUp = null;
+        long[] topDown = null;
+        for (int round = 0; round < rounds; round++) {
+            bottomUp = timeInsertDelete(new RedBlackTree<>(), numbers, deleteNumbers);
+            topDown = timeInsertDelete(new TopDownRedBlackTree<>(), numbers, deleteNumbers);
+        }
+        System.out.println("Insert: bottom-up " + bottomUp[0] + " ms vs top-down " + topDown[0] + " ms, Ratio: "
+                + String.format("%.2f", (double) bottomUp[0] / topDown[0]));
+        System.out.println("Delete: bottom-up " + bottomUp[1] + " ms vs top-down " + topDown[1] + " ms, Ratio: "
+                + String.format("%.2f", (double) bottomUp[1] / topDown[1]));
+    }
+
+    /**
+     * @return insert and delete times in ms
+     */
+    private static long[] timeInsertDelete(ISelfBalancingBST<Integer> tree, List<Integer> numbers,
+            List<Integer> deleteNumbers) {
+        long startTime = System.currentTimeMillis();
+        fill(tree, numbers);
+        long insertTime = System.currentTimeMillis() - startTime;
+        startTime = System.currentTimeMillis();
+        for (Integer num : deleteNumbers) {
+            tree.delete(num);
+        }
+        return new long[] { insertTime, System.currentTimeMillis() - startTime };
+    }
+
+    private static void runMassDeleteTest(String testName, int size) {
+        System.out.println("\n=============== " + testName + " (Size: " + size + ", deleting 90%) ==============");
+        List<Integer> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            keys.add(i);
+        }
+        Collections.shuffle(keys, random);
+        List<Integer> deleteKeys = new ArrayList<>(keys.subList(0, size * 9 / 10));
+        Collections.shuffle(deleteKeys, random);
+
+        long eagerAVL = timeDeletes(fill(new AVLTree<>(), keys), deleteKeys, null);
+        AVLTree<Integer> lazyAVLTree = fill(new AVLTree<>(), keys);
+        lazyAVLTree.setLazyDelete(0.5);
+        long lazyAVL = timeDeletes(lazyAVLTree, deleteKeys, lazyAVLTree::compact);
+        long eagerRB = timeDeletes(fill(new RedBlackTree<>(), keys), deleteKeys, null);
+        RedBlackTree<Integer> lazyRBTree = fill(new RedBlackTree<>(), keys);
+        lazyRBTree.setLazyDelete(0.5);
+        long lazyRB = timeDeletes(lazyRBTree, deleteKeys, lazyRBTree::compact);
+
+        System.out.println("AVL:       eager " + eagerAVL + " ms vs lazy " + lazyAVL + " ms, Ratio: "
+                + String.format("%.2f", (double) eagerAVL / lazyAVL));
+        System.out.println("Red-Black: eager " + eagerRB + " ms vs lazy " + lazyRB + " ms, Ratio: "
+                + String.format("%.2f", (double) eagerRB / lazyRB));
+    }
+
+    private static <T extends ISelfBalancingBST<Integer>> T fill(T tree, List<Integer> keys) {
+        for (Integer key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    private static long timeDeletes(ISelfBalancingBST<Integer> tree, List<Integer> deleteKeys, Runnable compact) {
+        long startTime = System.currentTimeMillis();
+        for (Integer key : deleteKeys) {
+            tree.delete(key);
+        }
+        // the final compaction is part of the cost of lazy deletion
+        if (compact != null) {
+            compact.run();
+        }
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Key wrapper counting every comparison made by the trees.
+     */
+    private static class CountingKey implements Comparable<CountingKey> {
+        static long comparisons;
+        final int value;
+
+        CountingKey(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(CountingKey other) {
+            comparisons++;
+            return Integer.compare(value, other.value);
+        }
+    }
+
+    private static void runZipfianTest(String testName, int size, int lookups) {
+        System.out.println("\n=============== " + testName + " (Size: " + size + ", Lookups: " + lookups
+                + ", s=" + ZIPF_EXPONENT + ") ==============");
+
+        List<CountingKey> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            keys.add(new CountingKey(i));
+        }
+        Collections.shuffle(keys, random);
+
+        // rank r is drawn with probability proportional to 1 / r^s; ranks map to random keys
+        double[] cdf = new double[size];
+        double sum = 0;
+        for (int r = 0; r < size; r++) {
+            sum += 1 / Math.pow(r + 1, ZIPF_EXPONENT);
+            cdf[r] = sum;
+        }
+        // popularity must not correlate with insertion order
+        List<CountingKey> byRank = new ArrayList<>(keys);
+        Collections.shuffle(byRank, random);
+        List<CountingKey> trace = new ArrayList<>(lookups);
+        for (int i = 0; i < lookups; i++) {
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            trace.add(byRank.get(rank < 0 ? -rank - 1 : rank));
+        }
+
+        runZipfian("AVL Tree", new AVLTree<>(), keys, trace);
+        runZipfian("Red-Black Tree", new RedBlackTree<>(), keys, trace);
+        runZipfian("Splay Tree", new SplayTree<>(), keys, trace);
+        runZipfian("Frequency Treap", new FrequencyTreap<>(new Random(42)), keys, trace);
+    }
+
+    private static void runZipfian(String name, ISelfBalancingBST<CountingKey> tree, List<CountingKey> keys,
+            List<CountingKey> trace) {
+        for (CountingKey key : keys) {
+            tree.insert(key);
+        }
+
+        CountingKey.comparisons = 0;
+        long startTime = System.currentTimeMillis();
+        for (CountingKey key : trace) {
+            tree.search(key);
+        }
+        long searchTime = System.currentTimeMillis() - startTime;
+
+        System.out.println(String.format("%-16s search time: %4d ms, comparisons per hit: %6.2f, final height: %d",
+                name, searchTime, (double) CountingKey.comparisons / trace.size(), tree.getHeight()));
     }
     
     private static void runTest(String testName, int size) {
@@ -0,0 +1,75 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class PersistentAVLTreeTest {
+
+    @Test
+    public void testSnapshotIsolation() {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        for (int i = 0; i < 100; i++)
+            tree.insert(i);
+        PersistentAVLTree.Snapshot<Integer> before = tree.snapshot();
+        assertEquals(100, before.getVersion());
+
+        for (int i = 0; i < 100; i += 2)
+            assertTrue(tree.delete(i));
+        assertTrue(tree.insert(1_000));
+        // failed updates publish no version
+        assertFalse(tree.insert(1_000));
+        assertFalse(tree.delete(0));
+        assertEquals(151, tree.snapshot().getVersion());
+
+        assertEquals(100, before.getSize());
+        assertTrue(before.search(0));
+        assertFalse(before.search(1_000));
+        List<Integer> keys = new ArrayList<>();
+        before.inOrder(keys::add);
+        assertEquals(100, keys.size());
+
+        assertEquals(51, tree.getSize());
+        assertFalse(tree.search(0));
+        assertTrue(tree.search(1_000));
+        tree.validate();
+    }
+
+    @Test
+    public void testIterationDuringWrites() throws InterruptedException {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        for (int i = 0; i < 10_000; i++)
+            tree.insert(i);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            // keeps the size at 10,000 or 10,001 while shifting the keys up
+            for (int i = 0; running.get(); i++) {
+                tree.insert(10_000 + i);
+                tree.delete(i);
+            }
+        });
+        writer.start();
+        try {
+            for (int round = 0; round < 50; round++) {
+                PersistentAVLTree.Snapshot<Integer> snapshot = tree.snapshot();
+                int[] count = new int[1];
+                int[] last = { -1 };
+                snapshot.inOrder(key -> {
+                    assertTrue(key > last[0]);
+                    last[0] = key;
+                    count[0]++;
+                });
+                assertEquals(snapshot.getSize(), count[0]);
+                assertTrue(count[0] == 10_000 || count[0] == 10_001);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+        tree.validate();
+    }
+}
@@ -0,0 +1,132 @@
+package trees;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Measures the comparison cost per lookup of string keys: how many levels a search
+ * descends and how many of them need a full {@link String#compareTo} because the
+ * cached 8-char prefixes tie, and the lookup times of {@link AVLTree} and
+ * {@link RedBlackTree} against a {@code TreeSet}, which compares every level in full.
+ * <p>
+ * Pass a word list with one word per line, such as {@code /usr/share/dict/words};
+ * without one, English-like words with long shared prefixes are generated.
+ */
+public class PrefixComparePerformanceTest {
+    private static final String[] PREFIXES = { "", "", "inter", "under", "over", "counter", "trans", "super",
+            "re", "un" };
+    private static final String[] SUFFIXES = { "", "s", "ed", "ing", "ation", "ations", "ness", "ment", "able" };
+    private static final int LOOKUPS = 2_000_000;
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(42);
+        List<String> words = args.length > 0 ? readWords(Path.of(args[0])) : generateWords(random, 200_000);
+        System.out.println("===== Prefix Compare (" + words.size() + " words from "
+                + (args.length > 0 ? args[0] : "generator") + ") =====");
+
+        List<String> sorted = new ArrayList<>(new TreeSet<>(words));
+        List<String> lookups = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++)
+            lookups.add(new String(words.get(random.nextInt(words.size())).toCharArray()));
+        countCompares(sorted, lookups);
+
+        List<String> shuffled = new ArrayList<>(sorted);
+        Collections.shuffle(shuffled, random);
+        AVLTree<String> avl = new AVLTree<>();
+        RedBlackTree<String> redBlack = new RedBlackTree<>();
+        TreeSet<String> treeSet = new TreeSet<>();
+        for (String word : shuffled) {
+            avl.insert(word);
+            redBlack.insert(word);
+            treeSet.add(word);
+        }
+        for (int round = 0; round < 3; round++) {
+            long avlTime = time(lookups, avl::search);
+            long redBlackTime = time(lookups, redBlack::search);
+            long treeSetTime = time(lookups, treeSet::contains);
+            System.out.println(String.format("round %d: AVL %,4d ms, Red-Black %,4d ms, TreeSet %,4d ms", round,
+                    avlTime, redBlackTime, treeSetTime));
+        }
+    }
+
+    /**
+     * Counts levels and prefix ties of binary searches, which descend like a
+     * perfectly balanced tree.
+     */
+    private static void countCompares(List<String> sorted, List<String> lookups) {
+        long[] prefixes = new long[sorted.size()];
+        for (int i = 0; i < prefixes.length; i++)
+            prefixes[i] = KeyPrefix.of(sorted.get(i));
+        long levels = 0;
+        long ties = 0;
+        for (String word : lookups) {
+            long prefix = KeyPrefix.of(word);
+            int lo = 0;
+            int hi = sorted.size() - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                levels++;
+                if (prefix == KeyPrefix.NONE || prefixes[mid] == KeyPrefix.NONE || prefix == prefixes[mid])
+                    ties++;
+                int cmp = KeyPrefix.compare(word, prefix, sorted.get(mid), prefixes[mid]);
+                if (cmp == 0)
+                    break;
+                if (cmp < 0)
+                    hi = mid - 1;
+                else
+                    lo = mid + 1;
+            }
+        }
+        System.out.println(String.format("levels per lookup %.2f, full compares per lookup %.2f (%.1f%%)",
+                (double) levels / lookups.size(), (double) ties / lookups.size(), 100.0 * ties / levels));
+    }
+
+    private interface Lookup {
+        boolean test(String word);
+    }
+
+    private static long time(List<String> lookups, Lookup lookup) {
+        long startTime = System.currentTimeMillis();
+        int found = 0;
+        for (String word : lookups) {
+            if (lookup.test(word))
+                found++;
+        }
+        if (found != lookups.size())
+            throw new IllegalStateException("Missed " + (lookups.size() - found) + " words");
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private static List<String> readWords(Path path) throws IOException {
+        List<String> words = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String word = line.trim();
+            if (!word.isEmpty())
+                words.add(word);
+        }
+        return words;
+    }
+
+    private static List<String> generateWords(Random random, int count) {
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < count) {
+            StringBuilder word = new StringBuilder(PREFIXES[random.nextInt(PREFIXES.length)]);
+            for (int syllables = 1 + random.nextInt(3); syllables > 0; syllables--) {
+                word.append("bcdfghklmnprstvw".charAt(random.nextInt(16)));
+                word.append("aeiou".charAt(random.nextInt(5)));
+            }
+            word.append(SUFFIXES[random.nextInt(SUFFIXES.length)]);
+            words.add(word.toString());
+        }
+        return new ArrayList<>(words);
+    }
+}
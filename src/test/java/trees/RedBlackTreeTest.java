@@ -1,5 +1,8 @@
 package trees;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -171,9 +174,138 @@ public class RedBlackTreeTest {
             if (rbt.getSize() > 0) {
                 assertNoRedRedViolations(getRoot());
                 assertFalse(isRed(getRoot()), "Root should remain black");
+                rbt.validate();
             }
         }
         assertEquals(0, rbt.getSize());
         assertEquals(0, rbt.getHeight());
     }
+
+    @Test
+    public void testLazyDelete() {
+        rbt.setLazyDelete(0.5);
+        for (int i = 0; i < 200; i++)
+            rbt.insert(i);
+        int height = rbt.getHeight();
+
+        // below the threshold deletes only leave tombstones
+        for (int i = 0; i < 100; i++)
+            assertTrue(rbt.delete(i));
+        assertFalse(rbt.delete(10));
+        assertEquals(100, rbt.getSize());
+        assertEquals(100, rbt.getTombstoneCount());
+        assertEquals(height, rbt.getHeight());
+        assertFalse(rbt.search(10));
+        rbt.validate();
+
+        // inserting a tombstoned key revives it
+        assertTrue(rbt.insert(10));
+        assertFalse(rbt.insert(10));
+        assertTrue(rbt.search(10));
+        assertEquals(99, rbt.getTombstoneCount());
+        rbt.validate();
+
+        // crossing the threshold compacts
+        for (int i = 100; i < 102; i++)
+            assertTrue(rbt.delete(i));
+        assertEquals(0, rbt.getTombstoneCount());
+        assertEquals(99, rbt.getSize());
+        assertTrue(rbt.getHeight() < height);
+        rbt.validate();
+
+        List<Integer> keys = new ArrayList<>();
+        rbt.inOrder(keys::add);
+        assertEquals(10, keys.get(0));
+        assertEquals(102, keys.get(1));
+
+        // disabling compacts and goes back to eager deletion
+        assertTrue(rbt.delete(199));
+        rbt.setLazyDelete(0);
+        assertEquals(0, rbt.getTombstoneCount());
+        assertTrue(rbt.delete(198));
+        assertEquals(0, rbt.getTombstoneCount());
+        assertEquals(97, rbt.getSize());
+        rbt.validate();
+    }
+
+    @Test
+    public void testFreeze() {
+        for (int i = 0; i < 200; i += 2)
+            rbt.insert(i);
+        rbt.freeze();
+        assertTrue(rbt.isFrozen());
+        for (int i = 0; i < 200; i++)
+            assertEquals(i % 2 == 0, rbt.search(i));
+        assertFalse(rbt.search(-1));
+        assertFalse(rbt.search(1_000));
+
+        // failed writes keep the frozen copy, successful ones thaw
+        assertFalse(rbt.insert(10));
+        assertFalse(rbt.delete(11));
+        assertTrue(rbt.isFrozen());
+        assertTrue(rbt.insert(11));
+        assertFalse(rbt.isFrozen());
+        assertTrue(rbt.search(11));
+
+        rbt.freeze();
+        assertTrue(rbt.delete(10));
+        assertFalse(rbt.isFrozen());
+        assertFalse(rbt.search(10));
+        rbt.validate();
+    }
+
+    @Test
+    public void testBulkInsert() {
+        for (int i = 0; i < 1_000; i += 2)
+            rbt.insert(i);
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 500; i < 3_000; i++)
+            batch.add(i);
+        // 250 of the keys are already present
+        assertEquals(2_250, rbt.bulkInsert(batch));
+        assertEquals(2_750, rbt.getSize());
+        for (int i = 0; i < 3_000; i++)
+            assertEquals(i >= 500 || i % 2 == 0, rbt.search(i));
+        assertEquals(0, rbt.bulkInsert(batch));
+        rbt.validate();
+    }
+
+    @Test
+    public void testBulkDelete() {
+        for (int i = 0; i < 3_000; i++)
+            rbt.insert(i);
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 1_000; i < 4_000; i++)
+            batch.add(i);
+        assertEquals(2_000, rbt.bulkDelete(batch));
+        assertEquals(1_000, rbt.getSize());
+        assertTrue(rbt.search(999));
+        assertFalse(rbt.search(1_000));
+        rbt.validate();
+
+        // a small batch next to a big tree
+        assertEquals(1, rbt.bulkDelete(List.of(-1, 500)));
+        assertFalse(rbt.search(500));
+        assertEquals(999, rbt.getSize());
+        rbt.validate();
+    }
+
+    @Test
+    public void testInOrderSkipsRanges() {
+        for (int i = 0; i < 1_000; i++)
+            rbt.insert(i);
+        rbt.delete(10);
+        List<Integer> visited = new ArrayList<>();
+        // bounds are exclusive, so every key not above 500 must still be visited
+        rbt.inOrder((low, high) -> low != null && high != null && low >= 500, visited::add);
+        for (int i = 0; i <= 500; i++)
+            assertEquals(i != 10, visited.contains(i));
+        assertTrue(visited.size() < 600);
+        for (int i = 1; i < visited.size(); i++)
+            assertTrue(visited.get(i - 1) < visited.get(i));
+
+        visited.clear();
+        rbt.inOrder((low, high) -> true, visited::add);
+        assertTrue(visited.isEmpty());
+    }
 }
@@ -0,0 +1,73 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SplayTreeTest {
+
+    private SplayTree<Integer> splayTree;
+
+    @BeforeEach
+    public void setUp() {
+        splayTree = new SplayTree<>();
+    }
+
+    @Test
+    public void testEmptyTree() {
+        assertEquals(0, splayTree.getSize());
+        assertEquals(0, splayTree.getHeight());
+        assertFalse(splayTree.search(10));
+        assertFalse(splayTree.delete(10));
+    }
+
+    @Test
+    public void testInsertDeleteSearch() {
+        assertTrue(splayTree.insert(20));
+        assertTrue(splayTree.insert(10));
+        assertTrue(splayTree.insert(30));
+        assertFalse(splayTree.insert(10));
+        assertEquals(3, splayTree.getSize());
+
+        assertTrue(splayTree.search(10));
+        assertFalse(splayTree.search(15));
+        assertTrue(splayTree.delete(20));
+        assertFalse(splayTree.delete(20));
+        assertFalse(splayTree.search(20));
+        assertEquals(2, splayTree.getSize());
+    }
+
+    @Test
+    public void testSearchMovesKeyToRoot() {
+        for (int i = 0; i < 1_000; i++)
+            splayTree.insert(i);
+        // sequential inserts leave a path; one lookup of the deepest key roughly halves it
+        assertEquals(1_000, splayTree.getHeight());
+        assertTrue(splayTree.search(0));
+        assertTrue(splayTree.getHeight() < 600);
+    }
+
+    @Test
+    public void testRandomOperationsAgainstTreeSet() {
+        Random random = new Random(7);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(2_000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(key), splayTree.insert(key));
+                case 1 -> assertEquals(expected.remove(key), splayTree.delete(key));
+                default -> assertEquals(expected.contains(key), splayTree.search(key));
+            }
+        }
+        assertEquals(expected.size(), splayTree.getSize());
+        List<Integer> keys = new ArrayList<>();
+        splayTree.inOrder(keys::add);
+        assertEquals(new ArrayList<>(expected), keys);
+    }
+}
@@ -0,0 +1,75 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TopDownRedBlackTreeTest {
+
+    private TopDownRedBlackTree<Integer> tree;
+
+    @BeforeEach
+    public void setUp() {
+        tree = new TopDownRedBlackTree<>();
+    }
+
+    @Test
+    public void testEmptyTree() {
+        assertEquals(0, tree.getSize());
+        assertEquals(0, tree.getHeight());
+        assertFalse(tree.search(10));
+        assertFalse(tree.delete(10));
+        tree.validate();
+    }
+
+    @Test
+    public void testInsertDeleteSearch() {
+        assertTrue(tree.insert(20));
+        assertTrue(tree.insert(10));
+        assertTrue(tree.insert(30));
+        assertFalse(tree.insert(10));
+        assertEquals(3, tree.getSize());
+        tree.validate();
+
+        assertTrue(tree.search(10));
+        assertFalse(tree.search(15));
+        assertFalse(tree.delete(15));
+        assertTrue(tree.delete(20));
+        assertFalse(tree.delete(20));
+        assertFalse(tree.search(20));
+        assertEquals(2, tree.getSize());
+        tree.validate();
+    }
+
+    @Test
+    public void testSequentialInsertsStayBalanced() {
+        for (int i = 0; i < 1_000; i++) {
+            tree.insert(i);
+            tree.validate();
+        }
+        assertTrue(tree.getHeight() <= 2 * Math.log(1_001) / Math.log(2));
+
+        List<Integer> keys = new ArrayList<>();
+        tree.inOrder(keys::add);
+        assertEquals(1_000, keys.size());
+        for (int i = 0; i < 1_000; i++)
+            assertEquals(i, keys.get(i));
+    }
+
+    @Test
+    public void testDeleteAll() {
+        for (int i = 0; i < 500; i++)
+            tree.insert(i * 7 % 500);
+        for (int i = 0; i < 500; i++) {
+            assertTrue(tree.delete(i * 3 % 500));
+            assertFalse(tree.search(i * 3 % 500));
+            tree.validate();
+        }
+        assertEquals(0, tree.getSize());
+        assertEquals(0, tree.getHeight());
+    }
+}
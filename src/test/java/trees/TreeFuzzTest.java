@@ -0,0 +1,236 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential fuzzing of the balanced trees against {@link TreeSet}. Random
+ * mixed operations must return the same results as the reference set, the
+ * structural invariants are validated as the trees change, and heights must
+ * stay within the theoretical bounds. Validation walks the whole tree, after
+ * every operation on small key ranges and periodically on large ones.
+ * <p>
+ * The JUnit tests run a short campaign; {@link #main} runs millions of operations
+ * and reports the observed heights against the bounds.
+ */
+public class TreeFuzzTest {
+
+    private interface Validated<T extends Comparable<T>> extends ISelfBalancingBST<T> {
+        void validate();
+
+        double heightBound(int size);
+    }
+
+    private static Validated<Integer> avl() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        return wrap(tree, tree::validate, n -> 1.4405 * Math.log(n + 2) / Math.log(2) - 0.3277);
+    }
+
+    private static Validated<Integer> redBlack() {
+        RedBlackTree<Integer> tree = new RedBlackTree<>();
+        return wrap(tree, tree::validate, n -> 2 * Math.log(n + 1) / Math.log(2));
+    }
+
+    private static Validated<Integer> wavl() {
+        WAVLTree<Integer> tree = new WAVLTree<>();
+        // rank <= 2 log2 n, height = rank of the root + 1
+        return wrap(tree, tree::validate, n -> 2 * Math.log(n + 1) / Math.log(2) + 1);
+    }
+
+    private static Validated<Integer> topDownRedBlack() {
+        TopDownRedBlackTree<Integer> tree = new TopDownRedBlackTree<>();
+        return wrap(tree, tree::validate, n -> 2 * Math.log(n + 1) / Math.log(2));
+    }
+
+    private static Validated<Integer> persistentAVL() {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        return wrap(tree, tree::validate, n -> 1.4405 * Math.log(n + 2) / Math.log(2) - 0.3277);
+    }
+
+    // fuzzed keys are non-negative, so big-endian bytes keep their order; small chunks get crossed often
+    private static Validated<Integer> offHeapAVL() {
+        OffHeapAVLTree<Integer> tree = new OffHeapAVLTree<>(OffHeapStore.allocateDirect(16), KeyCodec.INTEGER);
+        return wrap(tree, tree::validate, n -> 1.4405 * Math.log(n + 2) / Math.log(2) - 0.3277);
+    }
+
+    // tombstones still count towards the height
+    private static Validated<Integer> lazyAVL() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        tree.setLazyDelete(0.3);
+        return wrap(tree, tree::validate,
+                n -> 1.4405 * Math.log(n + tree.getTombstoneCount() + 2) / Math.log(2) - 0.3277);
+    }
+
+    private static Validated<Integer> lazyRedBlack() {
+        RedBlackTree<Integer> tree = new RedBlackTree<>();
+        tree.setLazyDelete(0.3);
+        return wrap(tree, tree::validate, n -> 2 * Math.log(n + tree.getTombstoneCount() + 1) / Math.log(2));
+    }
+
+    private static Validated<Integer> wrap(ISelfBalancingBST<Integer> tree, Runnable validate,
+            IntToDoubleFunction bound) {
+        return new Validated<>() {
+            @Override
+            public boolean insert(Integer key) {
+                return tree.insert(key);
+            }
+
+            @Override
+            public boolean delete(Integer key) {
+                return tree.delete(key);
+            }
+
+            @Override
+            public boolean search(Integer key) {
+                return tree.search(key);
+            }
+
+            @Override
+            public int getSize() {
+                return tree.getSize();
+            }
+
+            @Override
+            public int getHeight() {
+                return tree.getHeight();
+            }
+
+            @Override
+            public void inOrder(Consumer<? super Integer> action) {
+                tree.inOrder(action);
+            }
+
+            @Override
+            public void validate() {
+                validate.run();
+            }
+
+            @Override
+            public double heightBound(int size) {
+                return bound.applyAsDouble(size);
+            }
+        };
+    }
+
+    /**
+     * @return the largest height / bound ratio observed
+     */
+    private static double fuzz(Supplier<Validated<Integer>> factory, long seed, int operations, int keyRange,
+            int validateEvery) {
+        Random random = new Random(seed);
+        Validated<Integer> tree = factory.get();
+        TreeSet<Integer> expected = new TreeSet<>();
+        double worst = 0;
+
+        for (int i = 1; i <= operations; i++) {
+            int key = random.nextInt(keyRange);
+            int op = random.nextInt(10);
+            String context = "seed " + seed + ", operation " + i + ", key " + key;
+            // phases that grow and shrink the tree reach both full and nearly empty shapes
+            boolean growing = (i / (keyRange * 4)) % 2 == 0;
+            if (op < (growing ? 5 : 2)) {
+                assertEquals(expected.add(key), tree.insert(key), "insert, " + context);
+            } else if (op < 6) {
+                assertEquals(expected.remove(key), tree.delete(key), "delete, " + context);
+            } else {
+                assertEquals(expected.contains(key), tree.search(key), "search, " + context);
+            }
+
+            if (i % validateEvery == 0) {
+                try {
+                    tree.validate();
+                } catch (IllegalStateException e) {
+                    fail("Invariant broken at " + context + ": " + e.getMessage());
+                }
+                assertEquals(expected.size(), tree.getSize(), context);
+                int height = tree.getHeight();
+                double bound = tree.heightBound(expected.size());
+                assertTrue(height <= Math.max(1, bound), "height " + height + " above bound " + bound + ", " + context);
+                if (expected.size() > 1)
+                    worst = Math.max(worst, height / bound);
+            }
+        }
+
+        List<Integer> keys = new ArrayList<>();
+        tree.inOrder(keys::add);
+        assertEquals(new ArrayList<>(expected), keys);
+        return worst;
+    }
+
+    @Test
+    public void testAVLAgainstTreeSet() {
+        for (long seed = 0; seed < 20; seed++)
+            fuzz(TreeFuzzTest::avl, seed, 20_000, 1 << (4 + seed % 8), 1);
+        fuzz(TreeFuzzTest::avl, 99, 300_000, 10_000, 1_000);
+    }
+
+    @Test
+    public void testRedBlackAgainstTreeSet() {
+        for (long seed = 0; seed < 20; seed++)
+            fuzz(TreeFuzzTest::redBlack, seed, 20_000, 1 << (4 + seed % 8), 1);
+        fuzz(TreeFuzzTest::redBlack, 99, 300_000, 10_000, 1_000);
+    }
+
+    @Test
+    public void testWAVLAgainstTreeSet() {
+        for (long seed = 0; seed < 20; seed++)
+            fuzz(TreeFuzzTest::wavl, seed, 20_000, 1 << (4 + seed % 8), 1);
+        fuzz(TreeFuzzTest::wavl, 99, 300_000, 10_000, 1_000);
+    }
+
+    @Test
+    public void testTopDownRedBlackAgainstTreeSet() {
+        for (long seed = 0; seed < 20; seed++)
+            fuzz(TreeFuzzTest::topDownRedBlack, seed, 20_000, 1 << (4 + seed % 8), 1);
+        fuzz(TreeFuzzTest::topDownRedBlack, 99, 300_000, 10_000, 1_000);
+    }
+
+    @Test
+    public void testPersistentAVLAgainstTreeSet() {
+        for (long seed = 0; seed < 20; seed++)
+            fuzz(TreeFuzzTest::persistentAVL, seed, 20_000, 1 << (4 + seed % 8), 1);
+        fuzz(TreeFuzzTest::persistentAVL, 99, 300_000, 10_000, 1_000);
+    }
+
+    @Test
+    public void testOffHeapAVLAgainstTreeSet() {
+        for (long seed = 0; seed < 20; seed++)
+            fuzz(TreeFuzzTest::offHeapAVL, seed, 20_000, 1 << (4 + seed % 8), 1);
+        fuzz(TreeFuzzTest::offHeapAVL, 99, 300_000, 10_000, 1_000);
+    }
+
+    @Test
+    public void testLazyDeleteAgainstTreeSet() {
+        for (long seed = 0; seed < 10; seed++) {
+            fuzz(TreeFuzzTest::lazyAVL, seed, 20_000, 1 << (4 + seed % 8), 1);
+            fuzz(TreeFuzzTest::lazyRedBlack, seed, 20_000, 1 << (4 + seed % 8), 1);
+        }
+        fuzz(TreeFuzzTest::lazyAVL, 99, 300_000, 10_000, 1_000);
+        fuzz(TreeFuzzTest::lazyRedBlack, 99, 300_000, 10_000, 1_000);
+    }
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        System.out.println("===== Differential Fuzzing (" + operations + " operations per run) =====");
+        int[] keyRanges = { 100, 10_000, 1_000_000 };
+        for (int keyRange : keyRanges) {
+            long startTime = System.currentTimeMillis();
+            double avlWorst = fuzz(TreeFuzzTest::avl, keyRange, operations, keyRange, 10_000);
+            double rbWorst = fuzz(TreeFuzzTest::redBlack, keyRange, operations, keyRange, 10_000);
+            double topDownWorst = fuzz(TreeFuzzTest::topDownRedBlack, keyRange, operations, keyRange, 10_000);
+            double wavlWorst = fuzz(TreeFuzzTest::wavl, keyRange, operations, keyRange, 10_000);
+            System.out.println(String.format("Key range %,d: worst height/bound AVL %.3f, Red-Black %.3f, "
+                    + "top-down Red-Black %.3f, WAVL %.3f (%d ms)", keyRange, avlWorst, rbWorst, topDownWorst,
+                    wavlWorst, System.currentTimeMillis() - startTime));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TreeShapeTest {
+
+    private static <T extends Comparable<T>> List<T> keys(ISelfBalancingBST<T> tree) {
+        List<T> keys = new ArrayList<>();
+        tree.inOrder(keys::add);
+        return keys;
+    }
+
+    private static byte[] save(AVLTree<Integer> tree) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.writeTo(out, KeyCodec.INTEGER);
+        return out.toByteArray();
+    }
+
+    private static byte[] save(RedBlackTree<Integer> tree) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.writeTo(out, KeyCodec.INTEGER);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testAVLRoundTrip() throws IOException {
+        AVLTree<Integer> tree = new AVLTree<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++)
+            tree.insert(random.nextInt(100_000) - 50_000);
+        byte[] bytes = save(tree);
+
+        AVLTree<Integer> loaded = AVLTree.readFrom(new ByteArrayInputStream(bytes), KeyCodec.INTEGER);
+        loaded.validate();
+        assertEquals(tree.getSize(), loaded.getSize());
+        assertEquals(tree.getHeight(), loaded.getHeight());
+        assertEquals(keys(tree), keys(loaded));
+        // same shape => same bytes
+        assertArrayEquals(bytes, save(loaded));
+    }
+
+    @Test
+    public void testRedBlackRoundTrip() throws IOException {
+        RedBlackTree<Integer> tree = new RedBlackTree<>();
+        for (int i = 0; i < 10_000; i++)
+            tree.insert(i * 31 % 10_007);
+        byte[] bytes = save(tree);
+
+        RedBlackTree<Integer> loaded = RedBlackTree.readFrom(new ByteArrayInputStream(bytes), KeyCodec.INTEGER);
+        loaded.validate();
+        assertEquals(keys(tree), keys(loaded));
+        assertArrayEquals(bytes, save(loaded));
+        assertTrue(loaded.insert(20_000));
+        assertTrue(loaded.delete(5));
+        loaded.validate();
+    }
+
+    @Test
+    public void testEmptyTreesAndStrings() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AVLTree<String>().writeTo(out, KeyCodec.UTF8);
+        AVLTree<String> empty = AVLTree.readFrom(new ByteArrayInputStream(out.toByteArray()), KeyCodec.UTF8);
+        assertEquals(0, empty.getSize());
+        assertEquals(0, empty.getHeight());
+
+        RedBlackTree<String> tree = new RedBlackTree<>();
+        char[] longWord = new char[100_000];
+        Arrays.fill(longWord, 'x');
+        for (String word : List.of("apple", "Ünïcödé", "日本語", new String(longWord), ""))
+            tree.insert(word);
+        out.reset();
+        tree.writeTo(out, KeyCodec.UTF8);
+        RedBlackTree<String> loaded = RedBlackTree.readFrom(new ByteArrayInputStream(out.toByteArray()), KeyCodec.UTF8);
+        loaded.validate();
+        assertEquals(keys(tree), keys(loaded));
+    }
+
+    @Test
+    public void testTombstonesAreKept() throws IOException {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 100; i++)
+            tree.insert(i);
+        tree.setLazyDelete(0.5);
+        for (int i = 0; i < 10; i++)
+            tree.delete(i);
+
+        AVLTree<Integer> loaded = AVLTree.readFrom(new ByteArrayInputStream(save(tree)), KeyCodec.INTEGER);
+        loaded.validate();
+        assertEquals(90, loaded.getSize());
+        assertEquals(10, loaded.getTombstoneCount());
+        assertFalse(loaded.search(5));
+        // still lazy
+        assertTrue(loaded.delete(50));
+        assertEquals(11, loaded.getTombstoneCount());
+    }
+
+    @Test
+    public void testRejectsBadInput() throws IOException {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 100; i++)
+            tree.insert(i);
+        byte[] bytes = save(tree);
+
+        IOException wrongKind = assertThrows(IOException.class,
+                () -> RedBlackTree.readFrom(new ByteArrayInputStream(bytes), KeyCodec.INTEGER));
+        assertTrue(wrongKind.getMessage().contains("AVL"));
+        assertThrows(EOFException.class, () -> AVLTree
+                .readFrom(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)), KeyCodec.INTEGER));
+        assertThrows(IOException.class,
+                () -> AVLTree.readFrom(new ByteArrayInputStream("not a tree".getBytes()), KeyCodec.INTEGER));
+    }
+}
@@ -0,0 +1,83 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WAVLTreeTest {
+
+    private WAVLTree<Integer> tree;
+
+    @BeforeEach
+    public void setUp() {
+        tree = new WAVLTree<>();
+    }
+
+    @Test
+    public void testEmptyTree() {
+        assertEquals(0, tree.getSize());
+        assertEquals(0, tree.getHeight());
+        assertFalse(tree.search(10));
+        assertFalse(tree.delete(10));
+        tree.validate();
+    }
+
+    @Test
+    public void testInsertDeleteSearch() {
+        assertTrue(tree.insert(20));
+        assertTrue(tree.insert(10));
+        assertTrue(tree.insert(30));
+        assertFalse(tree.insert(10));
+        assertEquals(3, tree.getSize());
+
+        assertTrue(tree.delete(20));
+        assertFalse(tree.delete(20));
+        assertFalse(tree.search(20));
+        assertTrue(tree.search(10));
+        assertTrue(tree.search(30));
+        assertEquals(2, tree.getSize());
+        tree.validate();
+    }
+
+    @Test
+    public void testInsertionsMatchAVL() {
+        AVLTree<Integer> avl = new AVLTree<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(1_000_000);
+            tree.insert(key);
+            avl.insert(key);
+        }
+        tree.validate();
+        // insert rebalancing is the AVL one, so shapes and rotations agree
+        assertEquals(avl.getHeight(), tree.getHeight());
+        assertEquals(avl.getRotationCount(), tree.getRotationCount());
+    }
+
+    @Test
+    public void testDeletesRotateAtMostTwicePerOperation() {
+        for (int i = 0; i < 4_096; i++)
+            tree.insert(i);
+        long before = tree.getRotationCount();
+        int deletes = 0;
+        for (int i = 0; i < 4_096; i += 2) {
+            long rotations = tree.getRotationCount();
+            assertTrue(tree.delete(i));
+            assertTrue(tree.getRotationCount() - rotations <= 2);
+            deletes++;
+        }
+        tree.validate();
+        assertTrue(tree.getRotationCount() - before <= 2L * deletes);
+
+        List<Integer> keys = new ArrayList<>();
+        tree.inOrder(keys::add);
+        assertEquals(2_048, keys.size());
+        assertEquals(1, keys.get(0));
+        assertEquals(4_095, keys.get(2_047));
+    }
+}